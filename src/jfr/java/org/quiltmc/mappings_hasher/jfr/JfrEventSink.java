@@ -0,0 +1,122 @@
+package org.quiltmc.mappings_hasher.jfr;
+
+import jdk.jfr.*;
+import org.quiltmc.mappings_hasher.util.Metrics;
+import org.quiltmc.mappings_hasher.util.Metrics.Counter;
+
+/**
+ * Records metrics as JFR events, loaded by {@link Metrics} when running on java 11 or newer.
+ */
+public class JfrEventSink implements Metrics.EventSink {
+    @Override
+    public Runnable beginPhase(String run, String phase) {
+        PhaseEvent event = new PhaseEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+
+        event.run = run;
+        event.phase = phase;
+        event.begin();
+        return event::commit;
+    }
+
+    @Override
+    public void commit(Metrics metrics) {
+        CountersEvent counters = new CountersEvent();
+        if (counters.isEnabled()) {
+            counters.run = metrics.run();
+            counters.jarClasses = metrics.get(Counter.JAR_CLASSES);
+            counters.libraryClasses = metrics.get(Counter.LIBRARY_CLASSES);
+            counters.platformClasses = metrics.get(Counter.PLATFORM_CLASSES);
+            counters.jdkFallbacks = metrics.get(Counter.JDK_FALLBACKS);
+            counters.cacheHits = metrics.get(Counter.CACHE_HITS);
+            counters.cacheMisses = metrics.get(Counter.CACHE_MISSES);
+            counters.hashes = metrics.get(Counter.HASHES);
+            counters.reusedClasses = metrics.get(Counter.REUSED_CLASSES);
+            counters.collisions = metrics.get(Counter.COLLISIONS);
+            counters.commit();
+        }
+
+        for (int bucket = 0; bucket < Metrics.NAME_SET_BUCKETS; bucket++) {
+            NameSetSizeEvent nameSets = new NameSetSizeEvent();
+            if (nameSets.isEnabled() && metrics.getNameSetCount(bucket) > 0) {
+                nameSets.run = metrics.run();
+                nameSets.minSize = Metrics.bucketMinSize(bucket);
+                nameSets.maxSize = Metrics.bucketMaxSize(bucket);
+                nameSets.count = metrics.getNameSetCount(bucket);
+                nameSets.commit();
+            }
+        }
+    }
+
+    @Name("org.quiltmc.mappings_hasher.Phase")
+    @Label("Hasher Phase")
+    @Category("Mappings Hasher")
+    @StackTrace(false)
+    static class PhaseEvent extends Event {
+        @Label("Run")
+        String run;
+
+        @Label("Phase")
+        String phase;
+    }
+
+    @Name("org.quiltmc.mappings_hasher.Counters")
+    @Label("Hasher Counters")
+    @Category("Mappings Hasher")
+    @StackTrace(false)
+    static class CountersEvent extends Event {
+        @Label("Run")
+        String run;
+
+        @Label("Jar Classes")
+        long jarClasses;
+
+        @Label("Library Classes")
+        long libraryClasses;
+
+        @Label("Platform Classes")
+        long platformClasses;
+
+        @Label("JDK Fallbacks")
+        @Description("Classes not found in any jar, which are looked up in the java platform")
+        long jdkFallbacks;
+
+        @Label("Cache Hits")
+        long cacheHits;
+
+        @Label("Cache Misses")
+        long cacheMisses;
+
+        @Label("Hashes")
+        long hashes;
+
+        @Label("Reused Classes")
+        @Description("Classes whose hashed names were reused from a previous result")
+        long reusedClasses;
+
+        @Label("Collisions")
+        long collisions;
+    }
+
+    @Name("org.quiltmc.mappings_hasher.NameSetSize")
+    @Label("Hasher Name Set Sizes")
+    @Description("The number of method name sets with a size in the given range")
+    @Category("Mappings Hasher")
+    @StackTrace(false)
+    static class NameSetSizeEvent extends Event {
+        @Label("Run")
+        String run;
+
+        @Label("Min Size")
+        int minSize;
+
+        @Label("Max Size")
+        @Description("-1 if the range is open")
+        int maxSize;
+
+        @Label("Count")
+        long count;
+    }
+}
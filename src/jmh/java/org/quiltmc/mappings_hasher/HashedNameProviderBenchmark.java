@@ -0,0 +1,72 @@
+package org.quiltmc.mappings_hasher;
+
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.model.ClassMapping;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.quiltmc.mappings_hasher.asm.ClassInfo;
+import org.quiltmc.mappings_hasher.asm.MethodInfo;
+import org.quiltmc.mappings_hasher.asm.SymbolTable;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Naming a large method name set: a class implementing many interfaces which declare the same method.
+ * Each invocation uses a new provider, so the name set is resolved again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashedNameProviderBenchmark {
+    @Param({ "100", "1000", "5000" })
+    public int nameSetSize;
+
+    private MappingSet mappings;
+    private Set<ClassInfo> classes;
+    private List<MethodInfo> topLevelMethods;
+
+    @Setup
+    public void setup() {
+        mappings = MappingSet.create();
+        classes = new HashSet<>();
+        topLevelMethods = new ArrayList<>();
+
+        SymbolTable symbols = new SymbolTable();
+        ClassInfo implementation = new ClassInfo(symbols, "c", Opcodes.ACC_PUBLIC);
+        for (int i = 0; i < nameSetSize; i++) {
+            ClassInfo anInterface = new ClassInfo(symbols, "i" + i, Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT);
+            MethodInfo method = new MethodInfo(anInterface, "a", "()V", Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT);
+            anInterface.addMethod(method);
+            anInterface.finish();
+            implementation.superClasses().add(anInterface);
+            classes.add(anInterface);
+            topLevelMethods.add(method);
+
+            ClassMapping<?, ?> classMapping = mappings.getOrCreateClassMapping("i" + i);
+            classMapping.setDeobfuscatedName("net/example/Interface" + i);
+            classMapping.createMethodMapping("a", "()V").setDeobfuscatedName("method" + i);
+        }
+
+        MethodInfo override = new MethodInfo(implementation, "a", "()V", Opcodes.ACC_PUBLIC);
+        implementation.addMethod(override);
+        implementation.finish();
+        classes.add(implementation);
+
+        ClassMapping<?, ?> classMapping = mappings.getOrCreateClassMapping("c");
+        classMapping.setDeobfuscatedName("net/example/Implementation");
+        classMapping.createMethodMapping("a", "()V").setDeobfuscatedName("method0");
+    }
+
+    @Benchmark
+    public void getMethodName(Blackhole blackhole) {
+        HashedNameProvider provider = new HashedNameProvider(classes, mappings, "net/example/unmapped");
+        for (MethodInfo method : topLevelMethods) {
+            blackhole.consume(provider.getMethodName(method));
+        }
+    }
+}
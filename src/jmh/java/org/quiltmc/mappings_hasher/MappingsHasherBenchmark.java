@@ -0,0 +1,82 @@
+package org.quiltmc.mappings_hasher;
+
+import org.cadixdev.lorenz.MappingSet;
+import org.openjdk.jmh.annotations.*;
+import org.quiltmc.mappings_hasher.asm.ClassResolver;
+import org.quiltmc.mappings_hasher.asm.HierarchyCache;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full generation of the hashed mappings of a synthetic version, from reading the jar to the mappings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MappingsHasherBenchmark {
+    @Param({ "5000" })
+    public int classCount;
+
+    @Param({ "1", "4" })
+    public int parallelism;
+
+    private Path directory;
+    private Path jar;
+    private MappingSet mappings;
+    // Platform classes are only parsed once, like with a warm cache
+    private HierarchyCache hierarchyCache;
+
+    @Setup
+    public void setup() throws IOException {
+        SyntheticVersion version = SyntheticVersion.generate(classCount, 0);
+        directory = Files.createTempDirectory("benchmark");
+        jar = version.writeJar(directory.resolve("version.jar"));
+        mappings = version.mappings();
+        hierarchyCache = new HierarchyCache();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(jar);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public MappingSet generateMappingSet() {
+        return hasher().generate(jar, classInfo -> true);
+    }
+
+    @Benchmark
+    public void generateTiny() throws IOException {
+        hasher().generate(jar, classInfo -> true, new NullWriter(), parallelism);
+    }
+
+    private MappingsHasher hasher() {
+        return new MappingsHasher(mappings, "net/example/unmapped", new ClassResolver(parallelism, hierarchyCache));
+    }
+
+    private static class NullWriter extends Writer {
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+        }
+
+        @Override
+        public void write(String string) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.quiltmc.mappings_hasher;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashing of single raw names, which happens for every obfuscated class, method name set and field.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NameHasherBenchmark {
+    private final NameHasher hasher = new NameHasher();
+    private final String[] rawNames = new String[1024];
+    private int index;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < rawNames.length; i++) {
+            rawNames[i] = i % 2 == 0 ? "m;Class" + i + ".method" + i + ";" : "f;net/example/Class" + i + ".field;I";
+        }
+    }
+
+    @Benchmark
+    public String hash() {
+        index = (index + 1) & (rawNames.length - 1);
+        return hasher.hash(rawNames[index]);
+    }
+}
@@ -0,0 +1,85 @@
+package org.quiltmc.mappings_hasher.asm;
+
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.*;
+import org.quiltmc.mappings_hasher.SyntheticVersion;
+import org.quiltmc.mappings_hasher.SyntheticVersion.ClassSpec;
+import org.quiltmc.mappings_hasher.SyntheticVersion.MemberSpec;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the hierarchy of a synthetic version without reading class files:
+ * finishing classes (ancestors, method lookups, overrides and name sets), and computing overrides alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassInfoBenchmark {
+    @Param({ "5000" })
+    public int classCount;
+
+    private List<ClassSpec> specs;
+    private List<MethodInfo> finishedMethods;
+
+    @Setup
+    public void setup() {
+        specs = SyntheticVersion.generate(classCount, 0).classes();
+
+        finishedMethods = new ArrayList<>();
+        for (ClassInfo classInfo : build(specs)) {
+            finishedMethods.addAll(classInfo.methods());
+        }
+    }
+
+    /**
+     * Creates and finishes the class infos, creating them is included as classes can only be finished once.
+     */
+    @Benchmark
+    public List<ClassInfo> finish() {
+        return build(specs);
+    }
+
+    @Benchmark
+    public void computeOverrides() {
+        for (MethodInfo method : finishedMethods) {
+            method.computeOverrides();
+        }
+    }
+
+    private static List<ClassInfo> build(List<ClassSpec> specs) {
+        Map<String, ClassInfo> classes = new HashMap<>();
+        SymbolTable symbols = new SymbolTable();
+        ClassInfo object = new ClassInfo(symbols, "java/lang/Object", Opcodes.ACC_PUBLIC);
+        object.addMethod(new MethodInfo(object, "<init>", "()V", Opcodes.ACC_PUBLIC));
+        object.addMethod(new MethodInfo(object, "toString", "()Ljava/lang/String;", Opcodes.ACC_PUBLIC));
+        object.finish();
+        classes.put(object.name(), object);
+
+        List<ClassInfo> built = new ArrayList<>();
+        for (ClassSpec spec : specs) {
+            ClassInfo classInfo = new ClassInfo(symbols, spec.name, spec.access);
+            classInfo.superClasses().add(classes.get(spec.superName));
+            for (String anInterface : spec.interfaces) {
+                classInfo.superClasses().add(classes.get(anInterface));
+            }
+            for (MemberSpec method : spec.methods) {
+                classInfo.addMethod(new MethodInfo(classInfo, method.name, method.descriptor, spec.methodAccess()));
+            }
+            for (MemberSpec field : spec.fields) {
+                classInfo.addField(new FieldInfo(classInfo, field.name, field.descriptor));
+            }
+
+            // Super classes come first, so they are already finished
+            classInfo.finish();
+            classes.put(spec.name, classInfo);
+            built.add(classInfo);
+        }
+
+        return built;
+    }
+}
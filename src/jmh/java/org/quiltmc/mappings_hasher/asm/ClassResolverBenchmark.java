@@ -0,0 +1,50 @@
+package org.quiltmc.mappings_hasher.asm;
+
+import org.openjdk.jmh.annotations.*;
+import org.quiltmc.mappings_hasher.SyntheticVersion;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading the class hierarchy of a synthetic version's jar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ClassResolverBenchmark {
+    @Param({ "5000" })
+    public int classCount;
+
+    @Param({ "1", "4" })
+    public int parallelism;
+
+    private Path directory;
+    private Path jar;
+    // Platform classes are only parsed once, like with a warm cache
+    private HierarchyCache hierarchyCache;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("benchmark");
+        jar = SyntheticVersion.generate(classCount, 0).writeJar(directory.resolve("version.jar"));
+        hierarchyCache = new HierarchyCache();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(jar);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public Set<ClassInfo> extractClassInfo() {
+        return new ClassResolver(parallelism, hierarchyCache).extractClassInfo(jar, classInfo -> true);
+    }
+}
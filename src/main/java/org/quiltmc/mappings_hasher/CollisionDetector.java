@@ -0,0 +1,199 @@
+package org.quiltmc.mappings_hasher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Detects hashed names that collide within a scope: the members of a class, or the classes of a package (the classes
+ * of an outer class for inner classes). Raw names with the same hash would silently get the same hashed name.
+ *
+ * <p>Hashed names are compared by the numeric value of their suffix, in open addressing tables keyed by that value,
+ * so checking a name doesn't allocate. Member scopes are per thread, so classes can be checked in parallel.
+ */
+public class CollisionDetector {
+    // 26^8 < 2^38, so the suffix value leaves the upper bits of a key for the kind of member or the class scope
+    private static final int VALUE_BITS = 38;
+
+    private final ThreadLocal<MemberScope> memberScopes = ThreadLocal.withInitial(MemberScope::new);
+    private final Map<String, Integer> classScopeIds = new HashMap<>();
+    private final Table classNames = new Table();
+    private final List<Collision> collisions = new ArrayList<>();
+
+    /**
+     * Starts checking the members of a class on this thread, the previous class checked on this thread is done.
+     */
+    public MemberScope memberScope(String className) {
+        MemberScope scope = memberScopes.get();
+        scope.begin(className);
+        return scope;
+    }
+
+    /**
+     * Checks the hashed name of a top level class within its package, or of an inner class within its outer class.
+     *
+     * @param className the obfuscated name of the class
+     * @param hashedName the hashed name, only the inner class name for inner classes
+     */
+    public synchronized void checkClass(String className, String hashedName, String rawName) {
+        int separator = className.lastIndexOf('$');
+        String scope = separator != -1
+                ? "class " + className.substring(0, separator)
+                : "package " + hashedName.substring(0, Math.max(hashedName.lastIndexOf('/'), 0));
+
+        long scopeId = classScopeIds.computeIfAbsent(scope, s -> classScopeIds.size());
+        String otherRawName = classNames.putIfAbsent(scopeId << VALUE_BITS | suffixValue(hashedName), rawName);
+        if (otherRawName != null && !otherRawName.equals(rawName)) {
+            collisions.add(new Collision(scope, hashedName, otherRawName, rawName));
+        }
+    }
+
+    public synchronized List<Collision> collisions() {
+        return new ArrayList<>(collisions);
+    }
+
+    private synchronized void addCollision(Collision collision) {
+        collisions.add(collision);
+    }
+
+    // The suffix is the last digits of a base-26 number, see NameHasher
+    static long suffixValue(String hashedName) {
+        long value = 0;
+        for (int i = hashedName.length() - NameHasher.DIGITS; i < hashedName.length(); i++) {
+            value = value * 26 + (hashedName.charAt(i) - 'a');
+        }
+
+        return value;
+    }
+
+    public class MemberScope {
+        private final Table names = new Table();
+        private String className;
+
+        private MemberScope() {
+        }
+
+        private void begin(String className) {
+            this.className = className;
+            names.clear();
+        }
+
+        public void checkMethod(String hashedName, String rawName) {
+            check(0, hashedName, rawName);
+        }
+
+        public void checkField(String hashedName, String rawName) {
+            check(1, hashedName, rawName);
+        }
+
+        // Methods and fields don't collide with each other, their hashed names have different prefixes
+        private void check(long kind, String hashedName, String rawName) {
+            String otherRawName = names.putIfAbsent(kind << VALUE_BITS | suffixValue(hashedName), rawName);
+            if (otherRawName != null && !otherRawName.equals(rawName)) {
+                addCollision(new Collision("class " + className, hashedName, otherRawName, rawName));
+            }
+        }
+    }
+
+    public static class Collision {
+        private final String scope;
+        private final String hashedName;
+        private final String rawName;
+        private final String otherRawName;
+
+        private Collision(String scope, String hashedName, String rawName, String otherRawName) {
+            this.scope = scope;
+            this.hashedName = hashedName;
+            this.rawName = rawName;
+            this.otherRawName = otherRawName;
+        }
+
+        /**
+         * The class or package the names collide in, e.g. {@code class a} or {@code package net/minecraft/unmapped}.
+         */
+        public String scope() {
+            return scope;
+        }
+
+        public String hashedName() {
+            return hashedName;
+        }
+
+        /**
+         * The raw name that got the hashed name first.
+         */
+        public String rawName() {
+            return rawName;
+        }
+
+        public String otherRawName() {
+            return otherRawName;
+        }
+
+        @Override
+        public String toString() {
+            return "Hash collision in " + scope + ": " + rawName + " and " + otherRawName + " are both hashed to " + hashedName;
+        }
+    }
+
+    // An open addressing hash table from long keys to raw names. Slots are only used if they were filled since the
+    // last clear, so clearing doesn't touch the slots.
+    private static class Table {
+        private long[] keys = new long[16];
+        private String[] rawNames = new String[16];
+        private int[] generations = new int[16];
+        private int generation = 1;
+        private int size;
+
+        // Returns the raw name of the key if it's present, otherwise adds the key and returns null
+        private String putIfAbsent(long key, String rawName) {
+            int mask = keys.length - 1;
+            int index = mix(key) & mask;
+            while (generations[index] == generation) {
+                if (keys[index] == key) {
+                    return rawNames[index];
+                }
+                index = index + 1 & mask;
+            }
+
+            keys[index] = key;
+            rawNames[index] = rawName;
+            generations[index] = generation;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+            return null;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            String[] oldRawNames = rawNames;
+            int[] oldGenerations = generations;
+            int oldGeneration = generation;
+
+            keys = new long[oldKeys.length * 2];
+            rawNames = new String[oldKeys.length * 2];
+            generations = new int[oldKeys.length * 2];
+            generation = 1;
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldGenerations[i] == oldGeneration) {
+                    putIfAbsent(oldKeys[i], oldRawNames[i]);
+                }
+            }
+        }
+
+        private void clear() {
+            if (size > 0) {
+                generation++;
+                size = 0;
+            }
+        }
+
+        private static int mix(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ hash >>> 32);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.quiltmc.mappings_hasher;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+
+/**
+ * Compares two Tiny files, e.g. the hashed mappings of two versions, see {@link TinyDiff}.
+ * Exits with 1 if anything was added, removed or renamed, like diff.
+ */
+@Command(name = "diff")
+public class DiffCommand implements Callable<Integer> {
+    @Parameters(index = "0")
+    private Path oldFile;
+
+    @Parameters(index = "1")
+    private Path newFile;
+
+    // The file the changes are written to, by default they are printed before the summary
+    @Option(names = "--out")
+    private Path outFile;
+
+    // The namespace entries are matched by, the second one by default, or e.g. "official" to compare two files of
+    // the same version
+    @Option(names = "--key")
+    private String keyNamespace;
+
+    @Override
+    public Integer call() throws IOException {
+        TinyDiff.Summary summary;
+        if (outFile != null) {
+            try (Writer report = Files.newBufferedWriter(outFile, StandardCharsets.UTF_8)) {
+                summary = TinyDiff.diff(oldFile, newFile, report, keyNamespace);
+            }
+        }
+        else {
+            // Not closed, as that would close System.out
+            Writer report = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+            summary = TinyDiff.diff(oldFile, newFile, report, keyNamespace);
+            report.flush();
+        }
+
+        System.out.print(summary);
+        return summary.hasChanges() ? 1 : 0;
+    }
+}
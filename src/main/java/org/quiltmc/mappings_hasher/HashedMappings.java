@@ -0,0 +1,46 @@
+package org.quiltmc.mappings_hasher;
+
+import org.cadixdev.lorenz.MappingSet;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The result of a {@link MappingsHasher} run: the hashed mappings, plus what they were derived from.
+ *
+ * <p>Passing the result to the next run allows it to reuse the hashed names of all classes whose inputs didn't change.
+ * Classes and members are identified by their deobfuscated names, as obfuscated names aren't stable between versions.
+ */
+public class HashedMappings {
+    private final MappingSet mappings;
+    private final Map<String, ClassRecord> classes;
+
+    HashedMappings(MappingSet mappings, Map<String, ClassRecord> classes) {
+        this.mappings = mappings;
+        this.classes = classes;
+    }
+
+    public MappingSet mappings() {
+        return mappings;
+    }
+
+    ClassRecord getClassRecord(String deobfuscatedName) {
+        return classes.get(deobfuscatedName);
+    }
+
+    static class ClassRecord {
+        // Everything the hashed names are derived from, see HashedNameProvider#getFingerprint
+        final long fingerprint;
+
+        final String className; // Null if the class isn't obfuscated
+        final Map<String, String> methodNames; // Only contains members that are mapped
+        final Map<String, String> fieldNames;
+
+        ClassRecord(long fingerprint, String className, Map<String, String> methodNames, Map<String, String> fieldNames) {
+            this.fingerprint = fingerprint;
+            this.className = className;
+            this.methodNames = methodNames.isEmpty() ? Collections.emptyMap() : methodNames;
+            this.fieldNames = fieldNames.isEmpty() ? Collections.emptyMap() : fieldNames;
+        }
+    }
+}
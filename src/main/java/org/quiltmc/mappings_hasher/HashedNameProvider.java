@@ -1,221 +1,431 @@
 package org.quiltmc.mappings_hasher;
 
-import org.cadixdev.bombe.type.signature.FieldSignature;
 import org.cadixdev.lorenz.MappingSet;
-import org.cadixdev.lorenz.model.ClassMapping;
-import org.cadixdev.lorenz.model.FieldMapping;
-import org.cadixdev.lorenz.model.Mapping;
-import org.cadixdev.lorenz.model.MethodMapping;
+import org.quiltmc.mappings_hasher.MappingsTable.ClassEntry;
+import org.quiltmc.mappings_hasher.MappingsTable.MemberEntry;
 import org.quiltmc.mappings_hasher.asm.ClassInfo;
 import org.quiltmc.mappings_hasher.asm.FieldInfo;
 import org.quiltmc.mappings_hasher.asm.MethodInfo;
+import org.quiltmc.mappings_hasher.util.Metrics;
 
-import java.math.BigInteger;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.*;
-import java.util.stream.Collectors;
-
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generates the hashed names of classes and their members. Instances are thread safe, so the classes of a jar can
+ * be hashed in parallel; name sets are named and hashed once, whichever thread gets to them first.
+ *
+ * <p>The classes are joined with their mappings once, when the provider is created: each class and member is paired
+ * with the mapping data its names are derived from, so hashing doesn't look up mappings anymore. All missing mappings
+ * are reported at once.
+ */
 public class HashedNameProvider {
-    private final MessageDigest digest;
-    private final MappingSet mappings;
+    // The fingerprint input of members that aren't obfuscated
+    private static final long UNMAPPED = -1;
+
+    private final NameHasher hasher = new NameHasher();
+    private final MappingsTable mappings;
     private final String defaultPackage;
+    private final Metrics metrics;
+    // Raw name -> hash, shared with the name providers of other jars, or null
+    private final Map<String, String> sharedHashes;
 
     private final Map<String, Set<ClassInfo>> simpleClassNameSet;
+    // The provided classes joined with their mappings, other classes (e.g. owners of overridden methods that were
+    // filtered out) are joined when they are first needed
+    private final Map<ClassInfo, JoinedClass> joinedClasses = new ConcurrentHashMap<>();
+
+    // The raw and hashed names of already resolved method name sets, keyed by the name set representative
+    private final Map<MethodInfo, String> nameSetRawNames = new ConcurrentHashMap<>();
+    private final Map<MethodInfo, String> nameSetNames = new ConcurrentHashMap<>();
 
     public HashedNameProvider(Set<ClassInfo> classes, MappingSet mappings, String defaultPackage) {
-        try {
-            digest = MessageDigest.getInstance("SHA-256");
-        }
-        catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
+        this(classes, new LorenzMappingsTable(mappings), defaultPackage);
+    }
 
+    public HashedNameProvider(Set<ClassInfo> classes, MappingsTable mappings, String defaultPackage) {
+        this(classes, mappings, defaultPackage, new Metrics(), null);
+    }
+
+    HashedNameProvider(Set<ClassInfo> classes, MappingsTable mappings, String defaultPackage, Metrics metrics,
+            Map<String, String> sharedHashes) {
         this.mappings = mappings;
         this.defaultPackage = defaultPackage;
-        this.simpleClassNameSet = computeSimpleClassNameSet(classes, mappings);
+        this.metrics = metrics;
+        this.sharedHashes = sharedHashes;
+
+        List<String> missing = new ArrayList<>();
+        Map<ClassInfo, ClassEntry> classMappings = new HashMap<>();
+        for (ClassInfo clazz : classes) {
+            ClassEntry classMapping = mappings.getClass(clazz.name());
+            if (classMapping == null) {
+                missing.add("class " + clazz.name());
+            }
+            else {
+                classMappings.put(clazz, classMapping);
+            }
+        }
+
+        // Raw class names depend on all simple class names, so they are joined first
+        this.simpleClassNameSet = computeSimpleClassNameSet(classMappings);
+        classMappings.forEach((clazz, classMapping) -> joinedClasses.put(clazz, join(clazz, classMapping, missing)));
+
+        if (!missing.isEmpty()) {
+            Collections.sort(missing);
+            throw new RuntimeException("Missing mappings for " + missing.size() + " entries:\n\t" + String.join("\n\t", missing));
+        }
     }
 
-    private static Map<String, Set<ClassInfo>> computeSimpleClassNameSet(Set<ClassInfo> classes, MappingSet mappings) {
+    private static Map<String, Set<ClassInfo>> computeSimpleClassNameSet(Map<ClassInfo, ClassEntry> classMappings) {
         Map<String, Set<ClassInfo>> simpleClassNameSet = new HashMap<>();
 
-        for (ClassInfo clazz : classes) {
-            ClassMapping<?, ?> classMapping = mappings.getClassMapping(clazz.name())
-                    .orElseThrow(() -> new RuntimeException("Missing mapping for class " + clazz.name()));
-
+        classMappings.forEach((clazz, classMapping) -> {
             // Simple name: Full name without the package, e.g. net/example/Class$Inner -> Class$Inner
-            String fullName = classMapping.getFullDeobfuscatedName();
+            String fullName = classMapping.fullDeobfuscatedName();
             String simpleName = fullName.substring(fullName.lastIndexOf('/') + 1);
 
             simpleClassNameSet.computeIfAbsent(simpleName, s -> new HashSet<>()).add(clazz);
-        }
+        });
 
         return simpleClassNameSet;
     }
 
-
-    private String getRawClassName(ClassInfo clazz) {
-        // Get the mapping
-        ClassMapping<?, ?> classMapping = mappings.getClassMapping(clazz.name())
-                .orElseThrow(() -> new RuntimeException("Missing mapping for class " + clazz.name()));
-
-        // Don't obfuscate non-obfuscated classes
-        if (!isObfuscated(classMapping)) {
-            return clazz.name();
+    // The deobfuscated names that are shared by multiple members (with different descriptors)
+    private static Set<String> findDuplicateNames(Collection<? extends MemberEntry> members) {
+        Set<String> names = new HashSet<>();
+        Set<String> duplicateNames = new HashSet<>();
+        for (MemberEntry member : members) {
+            if (!names.add(member.deobfuscatedName())) {
+                duplicateNames.add(member.deobfuscatedName());
+            }
         }
 
+        return duplicateNames.isEmpty() ? Collections.emptySet() : duplicateNames;
+    }
+
+    /**
+     * Pairs a class and its members with their mappings, missing member mappings are added to the given list.
+     */
+    private JoinedClass join(ClassInfo clazz, ClassEntry classMapping, List<String> missing) {
         // Ful name: Package + Outer Class + Inner Class
-        String fullName = classMapping.getFullDeobfuscatedName();
+        String fullName = classMapping.fullDeobfuscatedName();
+        boolean obfuscated = isObfuscated(classMapping.obfuscatedName(), classMapping.deobfuscatedName());
 
         // Simple name: Full name without the package, e.g. net/example/Class$Inner -> Class$Inner
         String simpleName = fullName.substring(fullName.lastIndexOf('/') + 1);
 
-        // Raw name: The simple name if unique, otherwise the full name
-        return simpleClassNameSet.get(simpleName).size() == 1 ? simpleName : fullName;
+        // Raw name: The simple name if unique, otherwise the full name. Don't obfuscate non-obfuscated classes.
+        // Uniqueness is only known among the provided classes, which classes outside the set aren't part of.
+        Set<ClassInfo> sameSimpleName = simpleClassNameSet.get(simpleName);
+        if (obfuscated && sameSimpleName == null) {
+            throw new RuntimeException("Can't name class " + clazz.name() + " (" + fullName
+                    + "), it isn't one of the hashed classes and no hashed class has the simple name " + simpleName);
+        }
+        String rawName = !obfuscated ? clazz.name() : sameSimpleName.size() == 1 ? simpleName : fullName;
+
+        JoinedClass joined = new JoinedClass(fullName, obfuscated, rawName);
+
+        Set<String> duplicateMethodNames = findDuplicateNames(classMapping.methods());
+        for (MethodInfo method : clazz.methods()) {
+            MemberEntry methodMapping = classMapping.getMethod(method.name(), method.descriptor());
+            if (methodMapping == null) {
+                missing.add("method " + method.getFullName());
+                continue;
+            }
+
+            // Omit the descriptor for unique method names
+            String methodName = methodMapping.deobfuscatedName();
+            String methodDescriptor = duplicateMethodNames.contains(methodName) ? methodMapping.deobfuscatedDescriptor() : "";
+
+            // "m;" prefix: methods with omitted descriptors need to be different to fields
+            // Note that ";" and "." are illegal in jvm identifiers, so this should be safe
+            // "m;<package>/<className>.<methodName>;<methodDescriptor>"
+            joined.methods.put(method, joinMember(method.name(), methodMapping,
+                    methodName + methodMapping.deobfuscatedDescriptor(),
+                    "m;" + rawName + "." + methodName + ";" + methodDescriptor));
+        }
+
+        // While java doesn't allow it, the jvm allows fields that only differ in their descriptor.
+        Set<String> duplicateFieldNames = findDuplicateNames(classMapping.fields());
+        for (FieldInfo field : clazz.fields()) {
+            MemberEntry fieldMapping = classMapping.getField(field.name(), field.descriptor());
+            if (fieldMapping == null) {
+                missing.add("field " + clazz.name() + "/" + field.name() + ":" + field.descriptor());
+                continue;
+            }
+
+            // Omit the descriptor for unique field names
+            String fieldName = fieldMapping.deobfuscatedName();
+            String fieldDescriptor = duplicateFieldNames.contains(fieldName) ? fieldMapping.obfuscatedDescriptor() : "";
+
+            // "f;" prefix: fields need to be different to methods with omitted descriptors
+            // "f;<className>.<fieldName>;<fieldDescriptor>"
+            joined.fields.put(field, joinMember(field.name(), fieldMapping,
+                    fieldName + ":" + fieldMapping.deobfuscatedDescriptor(),
+                    "f;" + rawName + "." + fieldName + ";" + fieldDescriptor));
+        }
+
+        return joined;
     }
 
-    public Optional<String> getClassName(ClassInfo clazz) {
-        // Get the mapping
-        ClassMapping<?, ?> classMapping = mappings.getClassMapping(clazz.name())
-                .orElseThrow(() -> new RuntimeException("Missing mapping for class " + clazz.name()));
+    private JoinedMember joinMember(String name, MemberEntry mapping, String key, String rawName) {
+        // No need for a mapping if the member isn't obfuscated
+        boolean obfuscated = isObfuscated(mapping.obfuscatedName(), mapping.deobfuscatedName());
+        return new JoinedMember(key, obfuscated, obfuscated ? rawName : name);
+    }
 
-        // Don't obfuscate non-obfuscated classes
-        if (!isObfuscated(classMapping)) {
-            return Optional.empty();
+    private JoinedClass getJoinedClass(ClassInfo clazz) {
+        JoinedClass joined = joinedClasses.get(clazz);
+        if (joined != null) {
+            return joined;
         }
 
-        // Prefix: None for inner classes, otherwise the default package (if non-empty)
-        String prefix = clazz.name().contains("$") || this.defaultPackage.isEmpty() ? "" : this.defaultPackage + "/";
+        // A class outside the provided set, its missing mappings are reported when they are needed
+        return joinedClasses.computeIfAbsent(clazz, c -> {
+            ClassEntry classMapping = mappings.getClass(c.name());
+            if (classMapping == null) {
+                throw new RuntimeException("Missing mapping for class " + c.name());
+            }
 
-        // Hashed name: prefix plus class identifier plus hash of raw name
-        return Optional.of(prefix + "C_" + getHashedString(getRawClassName(clazz)));
+            return join(c, classMapping, new ArrayList<>());
+        });
     }
 
-    public String getRawMethodName(MethodInfo method) {
-        // Get the mappings
-        ClassMapping<?, ?> classMapping = mappings.getClassMapping(method.owner().name())
-                .orElseThrow(() -> new RuntimeException("Missing mapping for class " + method.owner().name()));
-        MethodMapping methodMapping = classMapping.getMethodMapping(method.name(), method.descriptor())
-                .orElseThrow(() -> new RuntimeException("Missing mapping for method " + method.getFullName()));
+    private JoinedMember getJoinedMethod(MethodInfo method) {
+        JoinedMember joined = getJoinedClass(method.owner()).methods.get(method);
+        if (joined == null) {
+            throw new RuntimeException("Missing mapping for method " + method.getFullName());
+        }
 
-        // No need for a mapping if the method isn't obfuscated
-        if (!isObfuscated(methodMapping)) {
-            return method.name();
+        return joined;
+    }
+
+    private JoinedMember getJoinedField(FieldInfo field) {
+        JoinedMember joined = getJoinedClass(field.owner()).fields.get(field);
+        if (joined == null) {
+            throw new RuntimeException("Missing mapping for field " + field.name());
         }
 
-        // Check if there's a method with the same name (but different descriptor)
-        boolean isMethodNameNonUnique = classMapping.getMethodMappings().stream()
-                .filter(m -> m.getDeobfuscatedName().equals(methodMapping.getDeobfuscatedName()))
-                .count() > 1;
+        return joined;
+    }
+
+    public Optional<String> getClassName(ClassInfo clazz) {
+        JoinedClass joined = getJoinedClass(clazz);
+
+        // Don't obfuscate non-obfuscated classes
+        if (!joined.obfuscated) {
+            return Optional.empty();
+        }
 
-        // Get the raw class name
-        String className = getRawClassName(method.owner());
+        // Hashed name: prefix plus class identifier plus hash of raw name
+        return Optional.of(getClassPrefix(clazz) + "C_" + getHashedString(joined.rawName));
+    }
 
-        // Get the method name
-        String methodName = methodMapping.getDeobfuscatedName();
+    /**
+     * The raw name of a class, or its obfuscated name if it isn't obfuscated.
+     */
+    String getRawClassName(ClassInfo clazz) {
+        return getJoinedClass(clazz).rawName;
+    }
 
-        // Omit the descriptor for unique method names
-        String methodDescriptor = isMethodNameNonUnique ? methodMapping.getDeobfuscatedDescriptor() : "";
+    private String getClassPrefix(ClassInfo clazz) {
+        // Prefix: None for inner classes, otherwise the default package (if non-empty)
+        return clazz.name().contains("$") || this.defaultPackage.isEmpty() ? "" : this.defaultPackage + "/";
+    }
 
-        // "m;" prefix: methods with omitted descriptors need to be different to fields
-        // Note that ";" and "." are illegal in jvm identifiers, so this should be safe
-        // "m;<package>/<className>.<methodName>;<methodDescriptor>"
-        return "m;" + className + "." + methodName + ";" + methodDescriptor;
+    public String getRawMethodName(MethodInfo method) {
+        return getJoinedMethod(method).rawName;
     }
 
     public Optional<String> getMethodName(MethodInfo method) {
-        // Get the mappings
-        ClassMapping<?, ?> classMapping = mappings.getClassMapping(method.owner().name())
-                .orElseThrow(() -> new RuntimeException("Missing mapping for class " + method.owner().name()));
-        MethodMapping methodMapping = classMapping.getMethodMapping(method.name(), method.descriptor())
-                .orElseThrow(() -> new RuntimeException("Missing mapping for method " + method.getFullName()));
-
         // No need for a mapping if the method isn't obfuscated
-        if (!isObfuscated(methodMapping)) {
+        if (!getJoinedMethod(method).obfuscated) {
             return Optional.empty();
         }
 
-        // The name of this method is determined by the first of its name set
-        MethodInfo nameSource = method.nameSet().stream().filter(m -> m.overrides().size() == 0)
-                .min(Comparator.comparing(this::getRawMethodName))
-                .orElseThrow(() -> new RuntimeException("No name source for method " + method.getFullName()));
+        // The name of this method is determined by its name set
+        String nameSetName = getNameSetName(method);
 
         // No mapping is needed if the name doesn't come from this method
         if (method.overrides().size() != 0) {
             return Optional.empty();
         }
 
-        return Optional.of("m_" + getHashedString(getRawMethodName(nameSource)));
+        return Optional.of(nameSetName);
+    }
+
+    private String getNameSetName(MethodInfo method) {
+        // Name sets are complete once classes are extracted, so their representatives don't change anymore
+        return nameSetNames.computeIfAbsent(method.nameSetRepresentative(), representative ->
+                "m_" + getHashedString(getNameSetRawName(method)));
+    }
+
+    /**
+     * The raw name the name set of a method is named after.
+     */
+    String getNameSetRawName(MethodInfo method) {
+        return nameSetRawNames.computeIfAbsent(method.nameSetRepresentative(), representative -> computeNameSetRawName(method));
+    }
+
+    private String computeNameSetRawName(MethodInfo method) {
+        // The name set is named after the lexically smallest raw name of its top level methods
+        // Walks the circular list of the set instead of copying it
+        String rawName = null;
+        MethodInfo member = method;
+        do {
+            if (member.overrides().size() == 0) {
+                String memberRawName = getRawMethodName(member);
+                if (rawName == null || memberRawName.compareTo(rawName) < 0) {
+                    rawName = memberRawName;
+                }
+            }
+            member = member.nextInNameSet();
+        } while (member != method);
+
+        if (rawName == null) {
+            throw new RuntimeException("No name source for method " + method.getFullName());
+        }
+
+        metrics.recordNameSetSize(method.nameSetSize());
+        return rawName;
     }
 
     public String getRawFieldName(FieldInfo field) {
-        // Get the mappings
-        ClassMapping<?, ?> classMapping = mappings.getClassMapping(field.owner().name())
-                .orElseThrow(() -> new RuntimeException("Missing mapping for class " + field.owner().name()));
-        FieldMapping fieldMapping = classMapping.getFieldMapping(FieldSignature.of(field.name(), field.descriptor()))
-                .orElseThrow(() -> new RuntimeException("Missing mapping for field " + field.name()));
+        return getJoinedField(field).rawName;
+    }
+
+    public Optional<String> getFieldName(FieldInfo field) {
+        JoinedMember joined = getJoinedField(field);
 
         // No need for a mapping if the field isn't obfuscated
-        if (!isObfuscated(fieldMapping)) {
-            return field.name();
+        if (!joined.obfuscated) {
+            return Optional.empty();
         }
 
-        // Check if there's a field with the same name (but different descriptor)
-        // While java doesn't allow it, the jvm allows fields that only differ in their descriptor.
-        boolean isFieldNameNonUnique = classMapping.getFieldMappings().stream()
-                .filter(f -> f.getDeobfuscatedName().equals(fieldMapping.getDeobfuscatedName()))
-                .count() > 1;
-
-        // Get the raw class name
-        String className = getRawClassName(field.owner());
+        return Optional.of("f_" + getHashedString(joined.rawName));
+    }
 
-        // Get the field name
-        String fieldName = fieldMapping.getDeobfuscatedName();
+    /**
+     * Identifies a class across versions, unlike its obfuscated name.
+     */
+    String getClassKey(ClassInfo clazz) {
+        return getJoinedClass(clazz).fullName;
+    }
 
-        // Omit the descriptor for unique field names
-        String fieldDescriptor = isFieldNameNonUnique ? fieldMapping.getType().get().toString() : "";
+    /**
+     * Identifies a method within its class across versions, unlike its obfuscated name and descriptor.
+     */
+    String getMethodKey(MethodInfo method) {
+        return getJoinedMethod(method).key;
+    }
 
-        // "f;" prefix: fields need to be different to methods with omitted descriptors
-        // Note that ";" and "." are illegal in jvm identifiers, so this should be safe
-        // "f;<className>.<fieldName>;<fieldDescriptor>"
-        return "f;" + className + "." + fieldName + ";" + fieldDescriptor;
+    /**
+     * Identifies a field within its class across versions, unlike its obfuscated name and descriptor.
+     */
+    String getFieldKey(FieldInfo field) {
+        return getJoinedField(field).key;
     }
 
-    public Optional<String> getFieldName(FieldInfo field) {
-        // Get the mappings
-        ClassMapping<?, ?> classMapping = mappings.getClassMapping(field.owner().name())
-                .orElseThrow(() -> new RuntimeException("Missing mapping for class " + field.owner().name()));
-        FieldMapping fieldMapping = classMapping.getFieldMapping(FieldSignature.of(field.name(), field.descriptor()))
-                .orElseThrow(() -> new RuntimeException("Missing mapping for field " + field.name()));
+    /**
+     * Fingerprints everything the hashed names of a class and its members are derived from, without hashing anything:
+     * the raw names of the class and its members, and the raw names its methods' name sets are named after.
+     * These capture changed mappings, simple class name collisions and name sets.
+     * Classes with equal fingerprints have equal hashed names.
+     *
+     * <p>The raw names themselves are built for every class when it's joined with its mappings, as missing mappings
+     * and hash collisions are checked for all classes. The fingerprint only combines them, no input string is built.
+     */
+    long getFingerprint(ClassInfo clazz) {
+        JoinedClass joined = getJoinedClass(clazz);
+        long classFingerprint = 0;
+        if (joined.obfuscated) {
+            boolean prefixed = !clazz.name().contains("$") && !defaultPackage.isEmpty();
+            classFingerprint = combine(prefixed ? fingerprint(defaultPackage) : 0, fingerprint(joined.rawName));
+        }
 
-        // No need for a mapping if the field isn't obfuscated
-        if (!isObfuscated(fieldMapping)) {
-            return Optional.empty();
+        // Members are summed, so their order doesn't matter
+        long methodFingerprints = 0;
+        for (MethodInfo method : clazz.methods()) {
+            JoinedMember joinedMethod = getJoinedMethod(method);
+            long input = UNMAPPED;
+            if (joinedMethod.obfuscated) {
+                // Overriding methods don't get a mapping, their name set is only resolved to report missing name sources
+                String nameSetRawName = getNameSetRawName(method);
+                input = fingerprint(method.overrides().size() == 0 ? nameSetRawName : "");
+            }
+            methodFingerprints += combine(fingerprint(joinedMethod.key), input);
+        }
+
+        long fieldFingerprints = 0;
+        for (FieldInfo field : clazz.fields()) {
+            JoinedMember joinedField = getJoinedField(field);
+            fieldFingerprints += combine(fingerprint(joinedField.key), joinedField.obfuscated ? fingerprint(joinedField.rawName) : UNMAPPED);
         }
 
-        return Optional.of("f_" + getHashedString(getRawFieldName(field)));
+        return combine(combine(classFingerprint, methodFingerprints), fieldFingerprints);
     }
 
-    private boolean isObfuscated(Mapping<?, ?> mapping) {
-        return mapping.getDeobfuscatedName().length() == 1 ||
-                !mapping.getDeobfuscatedName().equals(mapping.getObfuscatedName());
+    // 64 bit FNV-1a, unlike String#hashCode distinct names practically never collide
+    private static long fingerprint(String string) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < string.length(); i++) {
+            hash = (hash ^ string.charAt(i)) * 0x100000001b3L;
+        }
+
+        return hash;
+    }
+
+    // Order dependent, mixed with the SplitMix64 finalizer so sums of combined fingerprints stay well distributed
+    private static long combine(long first, long second) {
+        long hash = first * 0x9e3779b97f4a7c15L + second;
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    private static boolean isObfuscated(String obfuscatedName, String deobfuscatedName) {
+        return deobfuscatedName.length() == 1 || !deobfuscatedName.equals(obfuscatedName);
     }
 
     private String getHashedString(String string) {
-        // Hash the string and interpret the result as a big integer
-        byte[] hash = digest.digest(string.getBytes());
-        BigInteger bigInteger = new BigInteger(hash);
+        String hash = sharedHashes != null ? sharedHashes.get(string) : null;
+        if (hash == null) {
+            metrics.increment(Metrics.Counter.HASHES);
+            hash = hasher.hash(string);
+            if (sharedHashes != null) {
+                sharedHashes.putIfAbsent(string, hash);
+            }
+        }
 
-        StringBuilder builder = new StringBuilder();
-        int digits = 8; // Max: 256 * log(2) / log(base)
-        int base = 26;
-        for (int i = 0; i < digits; i++) {
-            int digit = bigInteger.mod(BigInteger.valueOf(base)).intValue();
-            bigInteger = bigInteger.divide(BigInteger.valueOf(base));
+        return hash;
+    }
 
-            builder.insert(0, (char)('a' + digit));
+    // A class paired with its mapping and the mappings of its members
+    private static class JoinedClass {
+        private final String fullName;
+        private final boolean obfuscated;
+        private final String rawName;
+        private final Map<MethodInfo, JoinedMember> methods = new HashMap<>();
+        private final Map<FieldInfo, JoinedMember> fields = new HashMap<>();
+
+        private JoinedClass(String fullName, boolean obfuscated, String rawName) {
+            this.fullName = fullName;
+            this.obfuscated = obfuscated;
+            this.rawName = rawName;
         }
+    }
 
-        return builder.toString();
+    private static class JoinedMember {
+        // Identifies the member within its class across versions
+        private final String key;
+        private final boolean obfuscated;
+        // The raw name if obfuscated, otherwise the name itself
+        private final String rawName;
+
+        private JoinedMember(String key, boolean obfuscated, String rawName) {
+            this.key = key;
+            this.obfuscated = obfuscated;
+            this.rawName = rawName;
+        }
     }
 }
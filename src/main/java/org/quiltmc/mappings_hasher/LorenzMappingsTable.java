@@ -0,0 +1,125 @@
+package org.quiltmc.mappings_hasher;
+
+import org.cadixdev.bombe.type.signature.FieldSignature;
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.model.ClassMapping;
+import org.cadixdev.lorenz.model.FieldMapping;
+import org.cadixdev.lorenz.model.MethodMapping;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link MappingsTable} backed by a Lorenz {@link MappingSet}, mapping from obfuscated to deobfuscated names.
+ */
+public class LorenzMappingsTable implements MappingsTable {
+    private final MappingSet mappings;
+
+    public LorenzMappingsTable(MappingSet mappings) {
+        this.mappings = mappings;
+    }
+
+    @Override
+    public ClassEntry getClass(String obfuscatedName) {
+        return mappings.getClassMapping(obfuscatedName).map(LorenzClassEntry::new).orElse(null);
+    }
+
+    private static class LorenzClassEntry implements ClassEntry {
+        private final ClassMapping<?, ?> mapping;
+
+        private LorenzClassEntry(ClassMapping<?, ?> mapping) {
+            this.mapping = mapping;
+        }
+
+        @Override
+        public String obfuscatedName() {
+            return mapping.getObfuscatedName();
+        }
+
+        @Override
+        public String deobfuscatedName() {
+            return mapping.getDeobfuscatedName();
+        }
+
+        @Override
+        public String fullDeobfuscatedName() {
+            return mapping.getFullDeobfuscatedName();
+        }
+
+        @Override
+        public MemberEntry getMethod(String obfuscatedName, String obfuscatedDescriptor) {
+            return mapping.getMethodMapping(obfuscatedName, obfuscatedDescriptor).map(LorenzMethodEntry::new).orElse(null);
+        }
+
+        @Override
+        public MemberEntry getField(String obfuscatedName, String obfuscatedDescriptor) {
+            return mapping.getFieldMapping(FieldSignature.of(obfuscatedName, obfuscatedDescriptor)).map(LorenzFieldEntry::new).orElse(null);
+        }
+
+        @Override
+        public Collection<? extends MemberEntry> methods() {
+            return mapping.getMethodMappings().stream().map(LorenzMethodEntry::new).collect(Collectors.toList());
+        }
+
+        @Override
+        public Collection<? extends MemberEntry> fields() {
+            return mapping.getFieldMappings().stream().map(LorenzFieldEntry::new).collect(Collectors.toList());
+        }
+    }
+
+    private static class LorenzMethodEntry implements MemberEntry {
+        private final MethodMapping mapping;
+
+        private LorenzMethodEntry(MethodMapping mapping) {
+            this.mapping = mapping;
+        }
+
+        @Override
+        public String obfuscatedName() {
+            return mapping.getObfuscatedName();
+        }
+
+        @Override
+        public String deobfuscatedName() {
+            return mapping.getDeobfuscatedName();
+        }
+
+        @Override
+        public String obfuscatedDescriptor() {
+            return mapping.getObfuscatedDescriptor();
+        }
+
+        @Override
+        public String deobfuscatedDescriptor() {
+            return mapping.getDeobfuscatedDescriptor();
+        }
+    }
+
+    private static class LorenzFieldEntry implements MemberEntry {
+        private final FieldMapping mapping;
+
+        private LorenzFieldEntry(FieldMapping mapping) {
+            this.mapping = mapping;
+        }
+
+        @Override
+        public String obfuscatedName() {
+            return mapping.getObfuscatedName();
+        }
+
+        @Override
+        public String deobfuscatedName() {
+            return mapping.getDeobfuscatedName();
+        }
+
+        @Override
+        public String obfuscatedDescriptor() {
+            return mapping.getType().get().toString();
+        }
+
+        @Override
+        public String deobfuscatedDescriptor() {
+            return mapping.getDeobfuscatedSignature().getType().map(Object::toString).orElse("");
+        }
+    }
+}
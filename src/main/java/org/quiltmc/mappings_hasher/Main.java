@@ -1,21 +1,24 @@
 package org.quiltmc.mappings_hasher;
 
-import net.fabricmc.lorenztiny.TinyMappingsWriter;
-import org.cadixdev.lorenz.MappingSet;
-import org.cadixdev.lorenz.io.TextMappingsReader;
-import org.cadixdev.lorenz.io.proguard.ProGuardReader;
 import org.quiltmc.launchermeta.version.v1.DownloadableFile;
 import org.quiltmc.launchermeta.version.v1.Library;
 import org.quiltmc.launchermeta.version.v1.Rule;
 import org.quiltmc.launchermeta.version.v1.Version;
 import org.quiltmc.launchermeta.version_manifest.VersionEntry;
 import org.quiltmc.launchermeta.version_manifest.VersionManifest;
-import org.quiltmc.mappings_hasher.util.CachingFileDownloader;
-import org.quiltmc.mappings_hasher.util.FileDownloader;
+import org.quiltmc.mappings_hasher.asm.ClassInfo;
+import org.quiltmc.mappings_hasher.asm.ClassResolver;
+import org.quiltmc.mappings_hasher.asm.HierarchyCache;
+import org.quiltmc.mappings_hasher.asm.PlatformClasses;
+import org.quiltmc.mappings_hasher.util.DownloadManager;
+import org.quiltmc.mappings_hasher.util.Metrics;
+import org.quiltmc.mappings_hasher.util.ServerBundle;
 import picocli.CommandLine;
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.Spec;
 
 import java.io.*;
 import java.net.URL;
@@ -23,14 +26,19 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.Callable;
-import java.util.jar.JarFile;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.concurrent.*;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
-@Command(name = "mappings-hasher")
+@Command(name = "mappings-hasher", subcommands = DiffCommand.class)
 public class Main implements Callable<Integer> {
     static class VersionSource {
         @Option(names = "--zip")
@@ -41,19 +49,81 @@ public class Main implements Callable<Integer> {
 
         @Option(names = "--version")
         private String version;
+
+        // Comma separated version ids, or a range "<first>..<last>" of the version manifest
+        @Option(names = "--versions")
+        private String versions;
     }
 
-    @ArgGroup(multiplicity = "1")
+    private static final String VERSION_MANIFEST_URL = "https://launchermeta.mojang.com/mc/game/version_manifest_v2.json";
+
+    // Required unless a subcommand is used, so it's checked when the mappings are generated
+    @ArgGroup(multiplicity = "0..1")
     private VersionSource versionSource;
 
+    @Spec
+    private CommandSpec spec;
+
     @Option(names = "--out")
     private Path outFile;
 
+    // Also generates the server mappings, sharing libraries, platform classes and hashes with the client
+    @Option(names = "--server")
+    private boolean server;
+
+    // The server mappings, by default next to the client mappings with a "-server" suffix
+    @Option(names = "--server-out")
+    private Path serverOutFile;
+
+    // Batch mode: the directory the mappings of each version are written to
+    @Option(names = "--out-dir")
+    private Path outDir = Paths.get("mappings");
+
     @Option(names = "--cache")
     private Path cacheDir;
 
+    @Option(names = "--threads")
+    private int threads = 1;
+
+    // Batch mode: the number of versions generated at the same time
+    @Option(names = "--version-threads")
+    private int versionThreads = 1;
+
+    // The number of files downloaded at the same time
+    @Option(names = "--download-threads")
+    private int downloadThreads = 4;
+
+    // The JDK image platform classes are read from, instead of the JDK running the hasher
+    @Option(names = "--jdk")
+    private Path jdk;
+
+    // Writes the phase timings and counters of each version next to its mappings, as <mappings>.metrics.json
+    @Option(names = "--metrics")
+    private boolean writeMetrics;
+
+    private DownloadManager downloads;
+    private PlatformClasses platformClasses;
+
     @Override
     public Integer call() throws IOException {
+        if (versionSource == null) {
+            throw new CommandLine.ParameterException(spec.commandLine(),
+                    "Missing required argument: one of --zip, --json, --version or --versions");
+        }
+
+        platformClasses = jdk != null ? PlatformClasses.of(jdk) : PlatformClasses.runtime();
+
+        try (DownloadManager downloads = new DownloadManager(cacheDir, downloadThreads)) {
+            this.downloads = downloads;
+            return run();
+        }
+    }
+
+    private int run() throws IOException {
+        if (versionSource.versions != null) {
+            return generateBatch();
+        }
+
         InputStreamReader reader;
 
         if (versionSource.zipUrl != null) {
@@ -74,9 +144,7 @@ public class Main implements Callable<Integer> {
             reader = new InputStreamReader(zipInputStream);
         }
         else if (versionSource.version != null) {
-            URL manifestUrl = new URL("https://launchermeta.mojang.com/mc/game/version_manifest_v2.json");
-            InputStreamReader manifestReader = new InputStreamReader(new BufferedInputStream(manifestUrl.openStream()));
-            VersionManifest manifest = VersionManifest.fromReader(manifestReader);
+            VersionManifest manifest = readVersionManifest();
             Optional<VersionEntry> entry = manifest.getVersions().stream().filter(e -> e.getId().equals(versionSource.version)).findAny();
             if (entry.isPresent()) {
                 reader = new InputStreamReader(new BufferedInputStream(new URL(entry.get().getUrl()).openStream()));
@@ -95,10 +163,166 @@ public class Main implements Callable<Integer> {
         System.out.println("Reading manifest...");
         Version version = Version.fromReader(reader);
 
+        if (outFile == null) {
+            // Previous outFile path - breaks Tiny convention for mappings location
+            // outFile = Paths.get("mappings", "hashed-" + version.getId() + ".tiny");
+            outFile = Paths.get("mappings", "mappings.tiny");
+        }
+
+        // The class hierarchies of libraries and the java platform are cached alongside the downloads
+        HierarchyCache hierarchyCache = null;
+        if (cacheDir != null) {
+            hierarchyCache = new HierarchyCache(cacheDir.resolve("hierarchy"), platformClasses.key());
+        }
+
+        if (server && serverOutFile == null) {
+            String fileName = outFile.getFileName().toString();
+            int extension = fileName.lastIndexOf('.');
+            serverOutFile = outFile.resolveSibling(extension == -1 ? fileName + "-server"
+                    : fileName.substring(0, extension) + "-server" + fileName.substring(extension));
+        }
+
+        generate(version, outFile, server ? serverOutFile : null, hierarchyCache, "");
+        return 0;
+    }
+
+    private int generateBatch() throws IOException {
+        if (versionThreads < 1) {
+            throw new RuntimeException("Version threads must be at least 1");
+        }
+
+        // The manifest lists the newest version first
+        List<VersionEntry> manifestVersions = new ArrayList<>(readVersionManifest().getVersions());
+        Collections.reverse(manifestVersions);
+        Map<String, VersionEntry> entriesById = new HashMap<>();
+        List<String> manifestIds = new ArrayList<>();
+        for (VersionEntry entry : manifestVersions) {
+            entriesById.put(entry.getId(), entry);
+            manifestIds.add(entry.getId());
+        }
+
+        List<VersionEntry> entries = new ArrayList<>();
+        for (String id : selectVersions(manifestIds, versionSource.versions)) {
+            entries.add(entriesById.get(id));
+        }
+
+        // Library and platform hierarchies are shared by all versions, they are kept in memory even without a cache
+        HierarchyCache hierarchyCache = new HierarchyCache(cacheDir != null ? cacheDir.resolve("hierarchy") : null, platformClasses.key());
+
+        System.out.println("Generating " + entries.size() + " versions...");
+        ExecutorService executor = Executors.newFixedThreadPool(versionThreads);
+        List<Future<?>> results = new ArrayList<>();
+        for (VersionEntry entry : entries) {
+            results.add(executor.submit(() -> {
+                String logPrefix = "[" + entry.getId() + "] ";
+                try (InputStreamReader reader = new InputStreamReader(new BufferedInputStream(new URL(entry.getUrl()).openStream()))) {
+                    System.out.println(logPrefix + "Reading manifest...");
+                    Version version = Version.fromReader(reader);
+                    generate(version, batchOutFile(outDir, entry.getId(), false),
+                            server ? batchOutFile(outDir, entry.getId(), true) : null, hierarchyCache, logPrefix);
+                }
+                return null;
+            }));
+        }
+        executor.shutdown();
+
+        // A failing version doesn't stop the other versions
+        int failed = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            try {
+                results.get(i).get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                throw new RuntimeException(e);
+            }
+            catch (ExecutionException e) {
+                failed++;
+                System.err.println("Failed to generate " + entries.get(i).getId() + ":");
+                e.getCause().printStackTrace();
+            }
+        }
+
+        System.out.println("Generated " + (entries.size() - failed) + " of " + entries.size() + " versions");
+        return failed == 0 ? 0 : 1;
+    }
+
+    /**
+     * Selects the ids of the {@code --versions} option: either comma separated ids, or a range {@code <first>..<last>}
+     * in either direction, including both ends.
+     *
+     * @param manifestIds the ids of all versions, from oldest to newest
+     * @return the selected ids, a range is returned from oldest to newest
+     */
+    static List<String> selectVersions(List<String> manifestIds, String versions) {
+        int rangeSeparator = versions.indexOf("..");
+        if (rangeSeparator != -1) {
+            if (versions.indexOf("..", rangeSeparator + 2) != -1 || versions.contains(",")) {
+                throw new RuntimeException("Invalid version range " + versions + ", expected <first>..<last>");
+            }
+
+            int first = indexOfVersion(manifestIds, versions.substring(0, rangeSeparator).trim());
+            int last = indexOfVersion(manifestIds, versions.substring(rangeSeparator + 2).trim());
+            return new ArrayList<>(manifestIds.subList(Math.min(first, last), Math.max(first, last) + 1));
+        }
+
+        // Each version is written to its own files, so listing a version twice would generate them concurrently
+        List<String> selected = new ArrayList<>();
+        for (String version : versions.split(",", -1)) {
+            String id = manifestIds.get(indexOfVersion(manifestIds, version.trim()));
+            if (selected.contains(id)) {
+                throw new RuntimeException("Version " + id + " is listed twice");
+            }
+            selected.add(id);
+        }
+        return selected;
+    }
+
+    private static int indexOfVersion(List<String> ids, String id) {
+        if (id.isEmpty()) {
+            throw new RuntimeException("Missing version id");
+        }
+
+        int index = ids.indexOf(id);
+        if (index == -1) {
+            throw new RuntimeException("Version " + id + " doesn't exist...");
+        }
+
+        return index;
+    }
+
+    /**
+     * The file the client or server mappings of a version are written to in batch mode.
+     */
+    static Path batchOutFile(Path outDir, String id, boolean server) {
+        return outDir.resolve("hashed-" + id + (server ? "-server" : "") + ".tiny");
+    }
+
+    private static VersionManifest readVersionManifest() throws IOException {
+        try (InputStreamReader manifestReader = new InputStreamReader(new BufferedInputStream(new URL(VERSION_MANIFEST_URL).openStream()))) {
+            return VersionManifest.fromReader(manifestReader);
+        }
+    }
+
+    /**
+     * @param serverOutFile the file the server mappings are written to, or null to only generate the client mappings
+     */
+    @SuppressWarnings("try")
+    private void generate(Version version, Path outFile, Path serverOutFile, HierarchyCache hierarchyCache, String logPrefix) throws IOException {
         DownloadableFile clientJarDownload = version.getDownloads().getClient();
         DownloadableFile clientMappingsDownload = version.getDownloads().getClientMappings()
                 .orElseThrow(() -> new RuntimeException("There exist no mappings for this version"));
 
+        DownloadableFile serverJarDownload = null;
+        DownloadableFile serverMappingsDownload = null;
+        if (serverOutFile != null) {
+            serverJarDownload = version.getDownloads().getServer()
+                    .orElseThrow(() -> new RuntimeException("There exists no server for this version"));
+            serverMappingsDownload = version.getDownloads().getServerMappings()
+                    .orElseThrow(() -> new RuntimeException("There exist no server mappings for this version"));
+        }
+
         List<DownloadableFile> libraryDownloads = new ArrayList<>();
         for (Library library : version.getLibraries()) {
             // TODO: Proper rule parsing?
@@ -131,49 +355,128 @@ public class Main implements Callable<Integer> {
             library.getDownloads().getArtifact().ifPresent(libraryDownloads::add);
         }
 
-        System.out.println("Downloading files...");
-        FileDownloader downloader = new FileDownloader();
-        if (cacheDir != null) {
-            downloader = new CachingFileDownloader(cacheDir);
+        Metrics metrics = new Metrics(version.getId());
+
+        // All files are downloaded concurrently
+        System.out.println(logPrefix + "Downloading files...");
+        Path clientJar;
+        Path clientMappings;
+        Path serverJar = null;
+        Path serverMappings = null;
+        List<Path> libraries;
+        try (Metrics.PhaseTimer ignored = metrics.phase(Metrics.Phase.DOWNLOAD)) {
+            Future<Path> clientJarFuture = downloads.submit(clientJarDownload);
+            Future<Path> clientMappingsFuture = downloads.submit(clientMappingsDownload);
+            Future<Path> serverJarFuture = serverJarDownload != null ? downloads.submit(serverJarDownload) : null;
+            Future<Path> serverMappingsFuture = serverMappingsDownload != null ? downloads.submit(serverMappingsDownload) : null;
+            libraries = downloads.downloadAll(libraryDownloads);
+            clientJar = DownloadManager.get(clientJarFuture);
+            clientMappings = DownloadManager.get(clientMappingsFuture);
+            if (serverJarFuture != null) {
+                serverJar = DownloadManager.get(serverJarFuture);
+                serverMappings = DownloadManager.get(serverMappingsFuture);
+            }
         }
 
-        Path clientJar = downloader.download(clientJarDownload);
-        Path clientMappings = downloader.download(clientMappingsDownload);
-        List<Path> libraries = new ArrayList<>();
-        for (DownloadableFile libraryDownload : libraryDownloads) {
-            libraries.add(downloader.download(libraryDownload));
+        System.out.println(logPrefix + "Reading mappings...");
+        ProGuardMappings clientMappingsTable;
+        ProGuardMappings serverMappingsTable = null;
+        try (Metrics.PhaseTimer ignored = metrics.phase(Metrics.Phase.MAPPINGS)) {
+            clientMappingsTable = ProGuardMappings.read(clientMappings, threads);
+            if (serverMappings != null) {
+                serverMappingsTable = ProGuardMappings.read(serverMappings, threads);
+            }
         }
 
-        System.out.println("Reading mappings...");
-        BufferedReader clientMappingsReader = Files.newBufferedReader(clientMappings);
-        TextMappingsReader mappingsReader = new ProGuardReader(clientMappingsReader);
-        MappingSet clientMappingsSet = mappingsReader.read().reverse();
+        ClassResolver classResolver = new ClassResolver(threads, hierarchyCache, platformClasses, metrics);
+        MappingsHasher mappingsHasher = new MappingsHasher(clientMappingsTable, "net/minecraft/unmapped", classResolver);
 
-        MappingsHasher mappingsHasher = new MappingsHasher(clientMappingsSet, "net/minecraft/unmapped");
+        System.out.println(logPrefix + "Reading libraries...");
+        MappingsHasher serverHasher = null;
+        ServerBundle serverBundle = null;
+        try (Metrics.PhaseTimer ignored = metrics.phase(Metrics.Phase.LIBRARIES)) {
+            Set<String> libraryNames = new HashSet<>();
+            for (int i = 0; i < libraries.size(); i++) {
+                mappingsHasher.addLibrary(libraries.get(i), libraryDownloads.get(i).getSha1());
+                libraryNames.add(libraries.get(i).getFileName().toString());
+            }
 
-        System.out.println("Reading libraries...");
-        for (Path library : libraries) {
-            mappingsHasher.addLibrary(new JarFile(library.toFile()));
+            if (serverJar != null) {
+                // Libraries of the client are shared with the server, only bundled libraries the client doesn't have are added
+                serverBundle = ServerBundle.unpack(serverJar, serverJar.resolveSibling("unpacked"));
+                serverHasher = mappingsHasher.fork(serverMappingsTable);
+                for (Path library : serverBundle.libraries()) {
+                    if (!libraryNames.contains(library.getFileName().toString())) {
+                        serverHasher.addLibrary(library);
+                    }
+                }
+            }
         }
 
-        System.out.println("Generating mappings...");
-        MappingSet mappingSet = mappingsHasher.generate(new JarFile(clientJar.toFile()), classInfo -> true);
+        // The mappings are written while they are generated
+        System.out.println(logPrefix + "Generating mappings...");
+        if (serverHasher == null) {
+            writeMappings(mappingsHasher, clientJar, classInfo -> true, outFile);
+        }
+        else {
+            // Older server jars contain their libraries, only classes with mappings are hashed
+            ProGuardMappings serverTable = serverMappingsTable;
+            writeMappingsConcurrently(mappingsHasher, clientJar, outFile,
+                    serverHasher, serverBundle.jar(), classInfo -> serverTable.getClass(classInfo.name()) != null, serverOutFile);
+        }
 
-        if (outFile == null) {
-            // Previous outFile path - breaks Tiny convention for mappings location
-            // outFile = Paths.get("mappings", "hashed-" + version.getId() + ".tiny");
-            outFile = Paths.get("mappings", "mappings.tiny");
+        // Colliding names are written anyway, as the hashed names must not depend on other names
+        for (CollisionDetector.Collision collision : mappingsHasher.getCollisions()) {
+            System.err.println(logPrefix + collision);
+        }
+        if (serverHasher != null) {
+            for (CollisionDetector.Collision collision : serverHasher.getCollisions()) {
+                System.err.println(logPrefix + "Server: " + collision);
+            }
         }
 
-        System.out.println("Writing mappings...");
+        metrics.commit();
+        if (writeMetrics) {
+            metrics.writeReport(outFile.resolveSibling(outFile.getFileName() + ".metrics.json"));
+        }
+    }
+
+    private void writeMappings(MappingsHasher mappingsHasher, Path jar, Predicate<ClassInfo> classFilter, Path outFile) throws IOException {
         Files.deleteIfExists(outFile);
-        Files.createDirectories(outFile.getParent());
-        BufferedWriter mappingsWriter = Files.newBufferedWriter(outFile);
-        new TinyMappingsWriter(mappingsWriter, "official", "hashed").write(mappingSet);
-        mappingsWriter.flush();
-        mappingsWriter.close();
+        Files.createDirectories(outFile.toAbsolutePath().getParent());
+        try (BufferedWriter mappingsWriter = Files.newBufferedWriter(outFile)) {
+            mappingsHasher.generate(jar, classFilter, mappingsWriter, threads);
+        }
+    }
 
-        return 0;
+    // The client and server mappings are generated at the same time
+    private void writeMappingsConcurrently(MappingsHasher clientHasher, Path clientJar, Path clientOutFile,
+            MappingsHasher serverHasher, Path serverJar, Predicate<ClassInfo> serverClassFilter, Path serverOutFile) throws IOException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> serverResult = executor.submit(() -> {
+                writeMappings(serverHasher, serverJar, serverClassFilter, serverOutFile);
+                return null;
+            });
+            writeMappings(clientHasher, clientJar, classInfo -> true, clientOutFile);
+            serverResult.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,52 @@
+package org.quiltmc.mappings_hasher;
+
+import java.util.Collection;
+
+/**
+ * Mappings from obfuscated to deobfuscated names, looked up by obfuscated names.
+ * This is all the {@link HashedNameProvider} needs to know about the original mappings.
+ */
+public interface MappingsTable {
+    /**
+     * Returns the mapping of the class with the given full obfuscated name, or null if the class isn't mapped.
+     */
+    ClassEntry getClass(String obfuscatedName);
+
+    interface ClassEntry {
+        /**
+         * The obfuscated name, only the inner class name for inner classes.
+         */
+        String obfuscatedName();
+
+        /**
+         * The deobfuscated name, only the inner class name for inner classes.
+         */
+        String deobfuscatedName();
+
+        String fullDeobfuscatedName();
+
+        /**
+         * Returns the mapping of a method, or null if the method isn't mapped.
+         */
+        MemberEntry getMethod(String obfuscatedName, String obfuscatedDescriptor);
+
+        /**
+         * Returns the mapping of a field, or null if the field isn't mapped.
+         */
+        MemberEntry getField(String obfuscatedName, String obfuscatedDescriptor);
+
+        Collection<? extends MemberEntry> methods();
+
+        Collection<? extends MemberEntry> fields();
+    }
+
+    interface MemberEntry {
+        String obfuscatedName();
+
+        String deobfuscatedName();
+
+        String obfuscatedDescriptor();
+
+        String deobfuscatedDescriptor();
+    }
+}
@@ -0,0 +1,154 @@
+package org.quiltmc.mappings_hasher;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashes raw names into the suffix of hashed names, e.g. {@code Minecraft -> ayfeobid}.
+ *
+ * <p>The suffix are the least significant 8 digits of the base-26 representation of the SHA-256 hash of the
+ * UTF-8 encoded raw name, where the hash is interpreted as a signed (two's complement) big-endian integer.
+ * Digits of negative hashes are those of repeatedly taking the non-negative remainder and dividing towards zero.
+ *
+ * <p>Instances are thread safe, every thread uses its own digest and buffers.
+ */
+public class NameHasher {
+    public static final int DIGITS = 8; // Max: 256 * log(2) / log(base)
+    private static final int BASE = 26;
+    private static final long MODULUS = pow(BASE, DIGITS);
+
+    // 2^256 mod 26^8, the magnitude of a negative hash is 2^256 minus its unsigned value
+    private static final long TWO_TO_256_MOD = powerOfTwoMod(256, MODULUS);
+
+    private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+    public String hash(String rawName) {
+        return new String(hashToChars(state.get(), rawName));
+    }
+
+    /**
+     * Hashes all raw names, the result contains the hash of each raw name at the same index.
+     */
+    public List<String> hashAll(List<String> rawNames) {
+        State state = this.state.get();
+        List<String> hashes = new ArrayList<>(rawNames.size());
+        for (String rawName : rawNames) {
+            hashes.add(new String(hashToChars(state, rawName)));
+        }
+
+        return hashes;
+    }
+
+    private static char[] hashToChars(State state, String rawName) {
+        int length = state.encode(rawName);
+        byte[] hash = state.hash;
+        try {
+            state.digest.update(state.input, 0, length);
+            state.digest.digest(hash, 0, hash.length);
+        }
+        catch (DigestException exception) {
+            throw new RuntimeException(exception);
+        }
+
+        // Only the hash modulo 26^8 is needed for the last 8 digits
+        long unsignedMod = 0;
+        for (byte b : hash) {
+            unsignedMod = (unsignedMod * 256 + (b & 0xFF)) % MODULUS;
+        }
+
+        boolean negative = hash[0] < 0;
+        long magnitude = negative ? Math.floorMod(TWO_TO_256_MOD - unsignedMod, MODULUS) : unsignedMod;
+
+        char[] chars = state.chars;
+        for (int i = DIGITS - 1; i >= 0; i--) {
+            int remainder = (int) (magnitude % BASE);
+            magnitude /= BASE;
+
+            // The remainder of a negative number is taken from the next lower multiple of the base
+            int digit = negative && remainder != 0 ? BASE - remainder : remainder;
+            chars[i] = (char) ('a' + digit);
+        }
+
+        return chars;
+    }
+
+    private static long pow(int base, int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+
+        return result;
+    }
+
+    private static long powerOfTwoMod(int exponent, long modulus) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result = result * 2 % modulus;
+        }
+
+        return result;
+    }
+
+    private static class State {
+        private final MessageDigest digest;
+        private final byte[] hash;
+        private final char[] chars = new char[DIGITS];
+        private byte[] input = new byte[256];
+
+        private State() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            }
+            catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+
+            hash = new byte[digest.getDigestLength()];
+        }
+
+        // Encodes the string as UTF-8 into the input buffer, returns the encoded length
+        private int encode(String string) {
+            int length = string.length();
+
+            // A char encodes to at most 3 bytes (surrogate pairs encode to 4 bytes from 2 chars)
+            if (input.length < length * 3) {
+                input = new byte[Math.max(length * 3, input.length * 2)];
+            }
+
+            byte[] bytes = input;
+            int position = 0;
+            for (int i = 0; i < length; i++) {
+                char c = string.charAt(i);
+                if (c < 0x80) {
+                    bytes[position++] = (byte) c;
+                }
+                else if (c < 0x800) {
+                    bytes[position++] = (byte) (0xC0 | c >> 6);
+                    bytes[position++] = (byte) (0x80 | c & 0x3F);
+                }
+                else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, string.charAt(++i));
+                    bytes[position++] = (byte) (0xF0 | codePoint >> 18);
+                    bytes[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                    bytes[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                    bytes[position++] = (byte) (0x80 | codePoint & 0x3F);
+                }
+                else if (Character.isSurrogate(c)) {
+                    // Unpaired surrogates are replaced, like String.getBytes does
+                    bytes[position++] = '?';
+                }
+                else {
+                    bytes[position++] = (byte) (0xE0 | c >> 12);
+                    bytes[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    bytes[position++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+
+            return position;
+        }
+    }
+}
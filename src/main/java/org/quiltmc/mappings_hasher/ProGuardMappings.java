@@ -0,0 +1,446 @@
+package org.quiltmc.mappings_hasher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Mappings read from a ProGuard mappings file (e.g. Mojang's client.txt), keyed by obfuscated names.
+ *
+ * <p>The file maps deobfuscated to obfuscated names, with member types given in deobfuscated java syntax.
+ * It's read in two passes: the first one parses the classes, the second one remaps the member types to
+ * obfuscated descriptors, which needs all class names. Names and descriptors are interned, as most of them repeat.
+ */
+public class ProGuardMappings implements MappingsTable {
+    // Chunks per thread, so threads finishing early can pick up more work
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static final Map<String, String> PRIMITIVE_DESCRIPTORS = new HashMap<>();
+
+    static {
+        PRIMITIVE_DESCRIPTORS.put("void", "V");
+        PRIMITIVE_DESCRIPTORS.put("boolean", "Z");
+        PRIMITIVE_DESCRIPTORS.put("byte", "B");
+        PRIMITIVE_DESCRIPTORS.put("char", "C");
+        PRIMITIVE_DESCRIPTORS.put("short", "S");
+        PRIMITIVE_DESCRIPTORS.put("int", "I");
+        PRIMITIVE_DESCRIPTORS.put("long", "J");
+        PRIMITIVE_DESCRIPTORS.put("float", "F");
+        PRIMITIVE_DESCRIPTORS.put("double", "D");
+    }
+
+    private final Map<String, ClassEntry> classes;
+
+    private ProGuardMappings(Map<String, ClassEntry> classes) {
+        this.classes = classes;
+    }
+
+    @Override
+    public ClassEntry getClass(String obfuscatedName) {
+        return classes.get(obfuscatedName);
+    }
+
+    public static ProGuardMappings read(Path path) throws IOException {
+        return read(path, 1);
+    }
+
+    /**
+     * @param parallelism the number of threads used to parse the file, 1 parses on the calling thread
+     */
+    public static ProGuardMappings read(Path path, int parallelism) throws IOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        }
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Mappings are too large to be mapped: " + path);
+            }
+
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        List<int[]> chunks = splitIntoChunks(buffer, parallelism == 1 ? 1 : parallelism * CHUNKS_PER_THREAD);
+        Interner interner = new Interner();
+
+        if (parallelism == 1) {
+            return remap(parseChunk(buffer, chunks.get(0), interner), interner, false);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ParsedClass> parsedClasses = pool.submit(() -> chunks.parallelStream()
+                    .map(chunk -> parseChunk(buffer, chunk, interner))
+                    .flatMap(List::stream)
+                    .collect(Collectors.toList())).get();
+
+            return pool.submit(() -> remap(parsedClasses, interner, true)).get();
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(exception);
+        }
+        catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw new RuntimeException(exception.getCause());
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    // Splits the file into ranges of whole classes, each range starts at a class line
+    private static List<int[]> splitIntoChunks(MappedByteBuffer buffer, int chunkCount) {
+        List<int[]> chunks = new ArrayList<>();
+        int size = buffer.limit();
+        int start = 0;
+        for (int i = 1; i <= chunkCount && start < size; i++) {
+            int end = i == chunkCount ? size : findClassLine(buffer, Math.max(start, (int) ((long) size * i / chunkCount)));
+            if (end > start) {
+                chunks.add(new int[] { start, end });
+                start = end;
+            }
+        }
+
+        if (chunks.isEmpty()) {
+            chunks.add(new int[] { 0, 0 });
+        }
+
+        return chunks;
+    }
+
+    // Returns the start of the first class line at or after the line containing the given position
+    private static int findClassLine(MappedByteBuffer buffer, int position) {
+        int size = buffer.limit();
+        while (position < size) {
+            // Move to the start of the next line
+            while (position < size && buffer.get(position) != '\n') {
+                position++;
+            }
+            position++;
+
+            if (position < size) {
+                byte first = buffer.get(position);
+                if (first != ' ' && first != '\t' && first != '#' && first != '\r' && first != '\n') {
+                    return position;
+                }
+            }
+        }
+
+        return size;
+    }
+
+    private static List<ParsedClass> parseChunk(MappedByteBuffer buffer, int[] chunk, Interner interner) {
+        byte[] bytes = new byte[chunk[1] - chunk[0]];
+        ByteBuffer view = buffer.duplicate();
+        view.position(chunk[0]);
+        view.get(bytes);
+
+        List<ParsedClass> classes = new ArrayList<>();
+        ParsedClass currentClass = null;
+        for (String line : new String(bytes, StandardCharsets.UTF_8).split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+
+            int arrow = trimmed.indexOf(" -> ");
+            if (arrow == -1) {
+                throw new RuntimeException("Invalid mappings line: " + line);
+            }
+
+            // Class: "net.example.Class -> a:"
+            if (!Character.isWhitespace(line.charAt(0))) {
+                String name = trimmed.substring(0, arrow).replace('.', '/');
+                String obfuscatedName = trimmed.substring(arrow + 4, trimmed.length() - 1).replace('.', '/');
+                currentClass = new ParsedClass(name, obfuscatedName);
+                classes.add(currentClass);
+                continue;
+            }
+
+            if (currentClass == null) {
+                throw new RuntimeException("Member outside of class: " + line);
+            }
+
+            String member = trimmed.substring(0, arrow);
+            String obfuscatedName = interner.intern(trimmed.substring(arrow + 4));
+            int parameterStart = member.indexOf('(');
+
+            // Field: "int count -> a"
+            if (parameterStart == -1) {
+                int space = member.indexOf(' ');
+                currentClass.fields.add(new ParsedMember(interner.intern(member.substring(space + 1)), obfuscatedName,
+                        member.substring(0, space), null));
+                continue;
+            }
+
+            // Method: "12:14:void tick(int,net.example.Class):20:22 -> a", the line numbers are optional
+            int typeStart = 0;
+            if (Character.isDigit(member.charAt(0))) {
+                typeStart = member.indexOf(':', member.indexOf(':') + 1) + 1;
+            }
+            int space = member.lastIndexOf(' ', parameterStart);
+            String name = member.substring(space + 1, parameterStart);
+
+            // Qualified names describe code inlined from other methods, not methods of this class
+            if (name.indexOf('.') != -1) {
+                continue;
+            }
+
+            String parameters = member.substring(parameterStart + 1, member.indexOf(')', parameterStart));
+            currentClass.methods.add(new ParsedMember(interner.intern(name), obfuscatedName,
+                    member.substring(typeStart, space), parameters.isEmpty() ? new String[0] : parameters.split(",")));
+        }
+
+        return classes;
+    }
+
+    private static ProGuardMappings remap(List<ParsedClass> parsedClasses, Interner interner, boolean parallel) {
+        Map<String, String> obfuscatedClassNames = new HashMap<>();
+        for (ParsedClass parsedClass : parsedClasses) {
+            obfuscatedClassNames.put(parsedClass.name, parsedClass.obfuscatedName);
+        }
+
+        Map<String, ClassEntry> classes = new HashMap<>();
+        (parallel ? parsedClasses.parallelStream() : parsedClasses.stream())
+                .map(parsedClass -> parsedClass.toEntry(obfuscatedClassNames, interner))
+                .collect(Collectors.toList())
+                .forEach(entry -> classes.put(entry.fullObfuscatedName, entry));
+
+        return new ProGuardMappings(classes);
+    }
+
+    // Converts a java type, e.g. "net.example.Class[]", into a descriptor, using obfuscated class names if given
+    private static String toDescriptor(String type, Map<String, String> obfuscatedClassNames) {
+        int dimensions = 0;
+        while (type.endsWith("[]")) {
+            type = type.substring(0, type.length() - 2);
+            dimensions++;
+        }
+
+        StringBuilder descriptor = new StringBuilder();
+        for (int i = 0; i < dimensions; i++) {
+            descriptor.append('[');
+        }
+
+        String primitive = PRIMITIVE_DESCRIPTORS.get(type);
+        if (primitive != null) {
+            return descriptor.append(primitive).toString();
+        }
+
+        String className = type.replace('.', '/');
+        if (obfuscatedClassNames != null) {
+            className = obfuscatedClassNames.getOrDefault(className, className);
+        }
+
+        return descriptor.append('L').append(className).append(';').toString();
+    }
+
+    private static class Interner {
+        private final Map<String, String> strings = new ConcurrentHashMap<>();
+
+        String intern(String string) {
+            String interned = strings.putIfAbsent(string, string);
+            return interned != null ? interned : string;
+        }
+    }
+
+    private static class ParsedClass {
+        private final String name;
+        private final String obfuscatedName;
+        private final List<ParsedMember> methods = new ArrayList<>();
+        private final List<ParsedMember> fields = new ArrayList<>();
+
+        private ParsedClass(String name, String obfuscatedName) {
+            this.name = name;
+            this.obfuscatedName = obfuscatedName;
+        }
+
+        private Entry toEntry(Map<String, String> obfuscatedClassNames, Interner interner) {
+            Member[] methods = new Member[this.methods.size()];
+            for (int i = 0; i < methods.length; i++) {
+                ParsedMember method = this.methods.get(i);
+                StringBuilder descriptor = new StringBuilder("(");
+                StringBuilder obfuscatedDescriptor = new StringBuilder("(");
+                for (String parameter : method.parameters) {
+                    descriptor.append(toDescriptor(parameter, null));
+                    obfuscatedDescriptor.append(toDescriptor(parameter, obfuscatedClassNames));
+                }
+                descriptor.append(')').append(toDescriptor(method.type, null));
+                obfuscatedDescriptor.append(')').append(toDescriptor(method.type, obfuscatedClassNames));
+
+                methods[i] = new Member(method.obfuscatedName, method.name,
+                        interner.intern(obfuscatedDescriptor.toString()), interner.intern(descriptor.toString()));
+            }
+
+            Member[] fields = new Member[this.fields.size()];
+            for (int i = 0; i < fields.length; i++) {
+                ParsedMember field = this.fields.get(i);
+                fields[i] = new Member(field.obfuscatedName, field.name,
+                        interner.intern(toDescriptor(field.type, obfuscatedClassNames)), interner.intern(toDescriptor(field.type, null)));
+            }
+
+            return new Entry(obfuscatedName, name, sortMembers(methods), sortMembers(fields));
+        }
+    }
+
+    private static class ParsedMember {
+        private final String name;
+        private final String obfuscatedName;
+        private final String type; // The return type for methods
+        private final String[] parameters; // Null for fields
+
+        private ParsedMember(String name, String obfuscatedName, String type, String[] parameters) {
+            this.name = name;
+            this.obfuscatedName = obfuscatedName;
+            this.type = type;
+            this.parameters = parameters;
+        }
+    }
+
+    private static final Comparator<Member> MEMBER_ORDER = Comparator
+            .comparing((Member member) -> member.obfuscatedName)
+            .thenComparing(member -> member.obfuscatedDescriptor);
+
+    // Sorts members for lookups, if members are listed multiple times the last one is kept
+    private static Member[] sortMembers(Member[] members) {
+        Member[] sorted = members.clone();
+        Arrays.sort(sorted, MEMBER_ORDER); // Stable, so duplicates keep their order
+
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i + 1 < sorted.length && MEMBER_ORDER.compare(sorted[i], sorted[i + 1]) == 0) {
+                continue;
+            }
+            sorted[count++] = sorted[i];
+        }
+
+        return count == sorted.length ? sorted : Arrays.copyOf(sorted, count);
+    }
+
+    private static class Entry implements ClassEntry {
+        private final String fullObfuscatedName;
+        private final String fullDeobfuscatedName;
+        private final Member[] methods;
+        private final Member[] fields;
+
+        private Entry(String fullObfuscatedName, String fullDeobfuscatedName, Member[] methods, Member[] fields) {
+            this.fullObfuscatedName = fullObfuscatedName;
+            this.fullDeobfuscatedName = fullDeobfuscatedName;
+            this.methods = methods;
+            this.fields = fields;
+        }
+
+        @Override
+        public String obfuscatedName() {
+            // Only the inner class name for inner classes
+            return fullObfuscatedName.substring(fullObfuscatedName.lastIndexOf('$') + 1);
+        }
+
+        @Override
+        public String deobfuscatedName() {
+            if (fullObfuscatedName.indexOf('$') == -1) {
+                return fullDeobfuscatedName;
+            }
+
+            return fullDeobfuscatedName.substring(fullDeobfuscatedName.lastIndexOf('$') + 1);
+        }
+
+        @Override
+        public String fullDeobfuscatedName() {
+            return fullDeobfuscatedName;
+        }
+
+        @Override
+        public MemberEntry getMethod(String obfuscatedName, String obfuscatedDescriptor) {
+            return find(methods, obfuscatedName, obfuscatedDescriptor);
+        }
+
+        @Override
+        public MemberEntry getField(String obfuscatedName, String obfuscatedDescriptor) {
+            return find(fields, obfuscatedName, obfuscatedDescriptor);
+        }
+
+        private static Member find(Member[] members, String obfuscatedName, String obfuscatedDescriptor) {
+            int low = 0;
+            int high = members.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                Member member = members[middle];
+                int comparison = member.obfuscatedName.compareTo(obfuscatedName);
+                if (comparison == 0) {
+                    comparison = member.obfuscatedDescriptor.compareTo(obfuscatedDescriptor);
+                }
+
+                if (comparison < 0) {
+                    low = middle + 1;
+                }
+                else if (comparison > 0) {
+                    high = middle - 1;
+                }
+                else {
+                    return member;
+                }
+            }
+
+            return null;
+        }
+
+        @Override
+        public Collection<? extends MemberEntry> methods() {
+            return Collections.unmodifiableList(Arrays.asList(methods));
+        }
+
+        @Override
+        public Collection<? extends MemberEntry> fields() {
+            return Collections.unmodifiableList(Arrays.asList(fields));
+        }
+    }
+
+    private static class Member implements MemberEntry {
+        private final String obfuscatedName;
+        private final String deobfuscatedName;
+        private final String obfuscatedDescriptor;
+        private final String deobfuscatedDescriptor;
+
+        private Member(String obfuscatedName, String deobfuscatedName, String obfuscatedDescriptor, String deobfuscatedDescriptor) {
+            this.obfuscatedName = obfuscatedName;
+            this.deobfuscatedName = deobfuscatedName;
+            this.obfuscatedDescriptor = obfuscatedDescriptor;
+            this.deobfuscatedDescriptor = deobfuscatedDescriptor;
+        }
+
+        @Override
+        public String obfuscatedName() {
+            return obfuscatedName;
+        }
+
+        @Override
+        public String deobfuscatedName() {
+            return deobfuscatedName;
+        }
+
+        @Override
+        public String obfuscatedDescriptor() {
+            return obfuscatedDescriptor;
+        }
+
+        @Override
+        public String deobfuscatedDescriptor() {
+            return deobfuscatedDescriptor;
+        }
+    }
+}
@@ -0,0 +1,576 @@
+package org.quiltmc.mappings_hasher;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * Compares two Tiny v2 files, e.g. the hashed mappings of two versions, and reports added, removed and renamed
+ * classes, methods and fields.
+ *
+ * <p>By default, entries are matched by their names in the second namespace, e.g. the hashed names, so two versions
+ * can be compared. Obfuscated names are reassigned by every release, so matched entries aren't compared by their names
+ * in the first namespace and nothing is reported as renamed. The files are sorted by the key names in runs of a
+ * limited number of classes, which are written to temporary files if there's more than one, and merged again.
+ * Members are matched by their name alone, as descriptors are written in the first namespace, so their descriptor
+ * column is left out of the report.
+ *
+ * <p>Entries can also be matched by their names in the first namespace, and compared by their names in the second
+ * namespace, e.g. for two files of the same version hashed with different settings. Both files must then be sorted
+ * like {@link TinyWriter} sorts them, so they are read side by side as a merge join and only the members of the
+ * current class are kept in memory.
+ *
+ * <p>Each change is reported as a tab separated line: {@code +} for added, {@code -} for removed and {@code ~} for
+ * renamed entries, the kind ({@code c}, {@code m} or {@code f}), the owner class for members, the descriptor and the
+ * name for members, then the mapped names. The members of added and removed classes are counted, but not reported.
+ */
+public class TinyDiff {
+    public enum Kind {
+        CLASS,
+        METHOD,
+        FIELD
+    }
+
+    public enum Change {
+        ADDED,
+        REMOVED,
+        RENAMED,
+        UNCHANGED
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    // The number of classes sorted in memory at once when matching by the second namespace
+    private static final int RUN_SIZE = 1 << 12;
+
+    private final Writer report;
+    private final boolean compareMappedNames;
+    private final Summary summary = new Summary();
+
+    private TinyDiff(Writer report, boolean compareMappedNames) {
+        this.report = report;
+        this.compareMappedNames = compareMappedNames;
+    }
+
+    public static Summary diff(Path oldFile, Path newFile, Writer report) throws IOException {
+        return diff(oldFile, newFile, report, null);
+    }
+
+    public static Summary diff(Path oldFile, Path newFile, Writer report, String keyNamespace) throws IOException {
+        try (BufferedReader oldReader = new BufferedReader(Files.newBufferedReader(oldFile, StandardCharsets.UTF_8), BUFFER_SIZE);
+             BufferedReader newReader = new BufferedReader(Files.newBufferedReader(newFile, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            return diff(oldReader, newReader, report, keyNamespace);
+        }
+    }
+
+    public static Summary diff(BufferedReader oldReader, BufferedReader newReader, Writer report) throws IOException {
+        return diff(oldReader, newReader, report, null);
+    }
+
+    /**
+     * @param report receives a line for each change, or null to only count changes
+     * @param keyNamespace the namespace entries are matched by, either of the first two namespaces of the files,
+     *                     or null for the second one
+     */
+    public static Summary diff(BufferedReader oldReader, BufferedReader newReader, Writer report, String keyNamespace) throws IOException {
+        return diff(oldReader, newReader, report, keyNamespace, RUN_SIZE);
+    }
+
+    static Summary diff(BufferedReader oldReader, BufferedReader newReader, Writer report, String keyNamespace,
+            int runSize) throws IOException {
+        try (ClassReader oldClasses = new ClassReader(oldReader, "old", keyNamespace, runSize);
+             ClassReader newClasses = new ClassReader(newReader, "new", keyNamespace, runSize)) {
+            TinyDiff diff = new TinyDiff(report, !oldClasses.swapped && !newClasses.swapped);
+            diff.diff(oldClasses, newClasses);
+            return diff.summary;
+        }
+    }
+
+    private void diff(ClassReader oldClasses, ClassReader newClasses) throws IOException {
+        TinyClass oldClass = oldClasses.next();
+        TinyClass newClass = newClasses.next();
+        while (oldClass != null || newClass != null) {
+            int order = oldClass == null ? 1 : newClass == null ? -1 : compareClassNames(oldClass.name, newClass.name);
+            if (order < 0) {
+                report(Change.REMOVED, Kind.CLASS, "c", null, oldClass.name, oldClass.mappedName, null);
+                summary.add(Kind.METHOD, Change.REMOVED, oldClass.methods.size());
+                summary.add(Kind.FIELD, Change.REMOVED, oldClass.fields.size());
+                oldClass = oldClasses.next();
+            }
+            else if (order > 0) {
+                report(Change.ADDED, Kind.CLASS, "c", null, newClass.name, null, newClass.mappedName);
+                summary.add(Kind.METHOD, Change.ADDED, newClass.methods.size());
+                summary.add(Kind.FIELD, Change.ADDED, newClass.fields.size());
+                newClass = newClasses.next();
+            }
+            else {
+                compare(Kind.CLASS, "c", null, oldClass.name, oldClass.mappedName, newClass.mappedName);
+                diffMembers(Kind.METHOD, "m", oldClass.name, oldClass.methods, newClass.methods);
+                diffMembers(Kind.FIELD, "f", oldClass.name, oldClass.fields, newClass.fields);
+                oldClass = oldClasses.next();
+                newClass = newClasses.next();
+            }
+        }
+    }
+
+    private void diffMembers(Kind kind, String type, String owner, List<String[]> oldMembers, List<String[]> newMembers) throws IOException {
+        // Usually sorted already, see TinyWriter.ClassEntry
+        oldMembers.sort(TinyDiff::compareMembers);
+        newMembers.sort(TinyDiff::compareMembers);
+
+        int oldIndex = 0;
+        int newIndex = 0;
+        while (oldIndex < oldMembers.size() || newIndex < newMembers.size()) {
+            String[] oldMember = oldIndex < oldMembers.size() ? oldMembers.get(oldIndex) : null;
+            String[] newMember = newIndex < newMembers.size() ? newMembers.get(newIndex) : null;
+            int order = oldMember == null ? 1 : newMember == null ? -1 : compareMembers(oldMember, newMember);
+            if (order < 0) {
+                report(Change.REMOVED, kind, type, owner, memberName(oldMember), oldMember[2], null);
+                oldIndex++;
+            }
+            else if (order > 0) {
+                report(Change.ADDED, kind, type, owner, memberName(newMember), null, newMember[2]);
+                newIndex++;
+            }
+            else {
+                compare(kind, type, owner, memberName(oldMember), oldMember[2], newMember[2]);
+                oldIndex++;
+                newIndex++;
+            }
+        }
+    }
+
+    private void compare(Kind kind, String type, String owner, String name, String oldMappedName, String newMappedName) throws IOException {
+        // Matched by the second namespace, the mapped names are obfuscated names, which are reassigned by every release
+        if (!compareMappedNames || oldMappedName.equals(newMappedName)) {
+            summary.add(kind, Change.UNCHANGED, 1);
+        }
+        else {
+            report(Change.RENAMED, kind, type, owner, name, oldMappedName, newMappedName);
+        }
+    }
+
+    private void report(Change change, Kind kind, String type, String owner, String name, String oldMappedName,
+            String newMappedName) throws IOException {
+        summary.add(kind, change, 1);
+        if (report == null) {
+            return;
+        }
+
+        report.write(change == Change.ADDED ? "+" : change == Change.REMOVED ? "-" : "~");
+        report.write('\t');
+        report.write(type);
+        if (owner != null) {
+            report.write('\t');
+            report.write(owner);
+        }
+        report.write('\t');
+        report.write(name);
+        if (oldMappedName != null) {
+            report.write('\t');
+            report.write(oldMappedName);
+        }
+        if (newMappedName != null) {
+            report.write('\t');
+            report.write(newMappedName);
+        }
+        report.write('\n');
+    }
+
+    // The descriptor and name, members matched by their mapped names have no descriptor
+    private static String memberName(String[] member) {
+        return member[1].isEmpty() ? member[0] : member[1] + "\t" + member[0];
+    }
+
+    // Compares the concatenated names and descriptors, like TinyWriter sorts members, without concatenating them
+    private static int compareMembers(String[] a, String[] b) {
+        int aLength = a[0].length() + a[1].length();
+        int bLength = b[0].length() + b[1].length();
+        for (int i = 0; i < Math.min(aLength, bLength); i++) {
+            char aChar = i < a[0].length() ? a[0].charAt(i) : a[1].charAt(i - a[0].length());
+            char bChar = i < b[0].length() ? b[0].charAt(i) : b[1].charAt(i - b[0].length());
+            if (aChar != bChar) {
+                return Character.compare(aChar, bChar);
+            }
+        }
+
+        // Names and descriptors could only concatenate to the same string if the descriptors are invalid
+        int order = Integer.compare(aLength, bLength);
+        return order != 0 ? order : Integer.compare(a[0].length(), b[0].length());
+    }
+
+    /**
+     * Compares class names in the order of {@link TinyWriter#sortClassNames}: outer classes are compared first,
+     * and inner classes follow their outer class.
+     */
+    static int compareClassNames(String a, String b) {
+        int aStart = 0;
+        int bStart = 0;
+        while (true) {
+            int aEnd = a.indexOf('$', aStart);
+            int bEnd = b.indexOf('$', bStart);
+            if (aEnd == -1) {
+                aEnd = a.length();
+            }
+            if (bEnd == -1) {
+                bEnd = b.length();
+            }
+
+            // The full names of top level classes are compared, for inner classes only the inner class names
+            // differ, both are sorted by length first
+            int order = Integer.compare(aEnd - aStart, bEnd - bStart);
+            if (order == 0) {
+                for (int i = 0; i < aEnd - aStart && order == 0; i++) {
+                    order = Character.compare(a.charAt(aStart + i), b.charAt(bStart + i));
+                }
+            }
+            if (order != 0) {
+                return order;
+            }
+
+            boolean aDone = aEnd == a.length();
+            boolean bDone = bEnd == b.length();
+            if (aDone || bDone) {
+                // An outer class comes before its inner classes
+                return Boolean.compare(!aDone, !bDone);
+            }
+            aStart = aEnd + 1;
+            bStart = bEnd + 1;
+        }
+    }
+
+    private static class TinyClass {
+        private final String name;
+        private final String mappedName;
+        // Name, descriptor, mapped name
+        private final List<String[]> methods = new ArrayList<>();
+        private final List<String[]> fields = new ArrayList<>();
+
+        private TinyClass(String name, String mappedName) {
+            this.name = name;
+            this.mappedName = mappedName;
+        }
+    }
+
+    private interface ClassSource {
+        // Returns the next class with its members, or null at the end
+        TinyClass next() throws IOException;
+    }
+
+    // Reads a Tiny v2 file class by class, checking the order of the classes.
+    // Classes keyed by the second namespace are read up front and sorted by their mapped names, see SortedClasses.
+    private static class ClassReader implements ClassSource, Closeable {
+        private final BufferedReader reader;
+        private final String description;
+        private final boolean swapped;
+        private String line;
+        private int lineNumber;
+        private TinyClass previous;
+        private SortedClasses swappedClasses;
+
+        private ClassReader(BufferedReader reader, String description, String keyNamespace, int runSize) throws IOException {
+            this.reader = reader;
+            this.description = description;
+
+            String header = readLine();
+            if (header == null || !header.startsWith("tiny\t2\t")) {
+                throw new IOException("The " + description + " file isn't a Tiny v2 file");
+            }
+
+            String[] namespaces = header.split("\t");
+            if (namespaces.length < 5) {
+                throw new IOException("The " + description + " file has less than two namespaces");
+            }
+            String key = keyNamespace != null ? keyNamespace : namespaces[4];
+            this.swapped = !key.equals(namespaces[3]);
+            if (swapped && !key.equals(namespaces[4])) {
+                throw new IOException("The first namespaces of the " + description + " file don't include " + key);
+            }
+
+            // Skip the properties of the header
+            do {
+                readLine();
+            } while (line != null && line.startsWith("\t"));
+
+            if (swapped) {
+                swappedClasses = new SortedClasses(description, namespaces[4], namespaces[3]);
+                try {
+                    readSwapped(runSize);
+                }
+                catch (IOException | RuntimeException e) {
+                    swappedClasses.close();
+                    throw e;
+                }
+            }
+        }
+
+        private void readSwapped(int runSize) throws IOException {
+            List<TinyClass> run = new ArrayList<>();
+            for (TinyClass tinyClass = read(); tinyClass != null; tinyClass = read()) {
+                TinyClass swapped = new TinyClass(tinyClass.mappedName, tinyClass.name);
+                swap(tinyClass.methods, swapped.methods);
+                swap(tinyClass.fields, swapped.fields);
+                run.add(swapped);
+
+                if (run.size() == runSize) {
+                    swappedClasses.addRun(run, true);
+                    run = new ArrayList<>();
+                }
+            }
+
+            // The last run is kept in memory
+            swappedClasses.addRun(run, false);
+        }
+
+        private static void swap(List<String[]> members, List<String[]> swapped) {
+            for (String[] member : members) {
+                swapped.add(new String[] { member[2], "", member[0] });
+            }
+        }
+
+        private String readLine() throws IOException {
+            line = reader.readLine();
+            lineNumber++;
+            return line;
+        }
+
+        @Override
+        public TinyClass next() throws IOException {
+            if (swappedClasses != null) {
+                return swappedClasses.next();
+            }
+
+            return read();
+        }
+
+        private TinyClass read() throws IOException {
+            if (line == null) {
+                return null;
+            }
+
+            String[] columns = split(line, 3);
+            if (!columns[0].equals("c")) {
+                throw new IOException("Expected a class in line " + lineNumber + " of the " + description + " file: " + line);
+            }
+
+            TinyClass tinyClass = new TinyClass(columns[1], columns[2]);
+            // Swapped classes are sorted by their mapped names instead
+            if (!swapped && previous != null && compareClassNames(previous.name, tinyClass.name) >= 0) {
+                throw new IOException("The classes of the " + description + " file aren't sorted, " + previous.name
+                        + " comes before " + tinyClass.name + " in line " + lineNumber);
+            }
+            previous = tinyClass;
+
+            // Members are indented by one tab, their parameters, variables and comments by more tabs
+            while (readLine() != null && line.startsWith("\t")) {
+                if (line.startsWith("\tm\t") || line.startsWith("\tf\t")) {
+                    String[] member = split(line.substring(3), 3);
+                    String[] entry = { member[1], member[0], member[2] };
+                    (line.charAt(1) == 'm' ? tinyClass.methods : tinyClass.fields).add(entry);
+                }
+            }
+
+            return tinyClass;
+        }
+
+        // Splits off the first columns, only the first target namespace is compared
+        private String[] split(String string, int count) throws IOException {
+            String[] columns = new String[count];
+            int start = 0;
+            for (int i = 0; i < count; i++) {
+                int end = string.indexOf('\t', start);
+                if (end == -1) {
+                    if (i != count - 1) {
+                        throw new IOException("Expected " + count + " columns in line " + lineNumber + " of the " + description + " file: " + line);
+                    }
+                    end = string.length();
+                }
+
+                columns[i] = string.substring(start, end);
+                start = end + 1;
+            }
+
+            return columns;
+        }
+
+        // The reader itself is closed by the caller
+        @Override
+        public void close() throws IOException {
+            if (swappedClasses != null) {
+                swappedClasses.close();
+            }
+        }
+    }
+
+    // Merges sorted runs of classes. All but the last run are written to temporary Tiny files keyed by the mapped
+    // names, with the member columns in the order ClassReader reads them back.
+    private static class SortedClasses implements ClassSource, Closeable {
+        private final String description;
+        private final String keyNamespace;
+        private final String otherNamespace;
+        private final List<Path> files = new ArrayList<>();
+        private final List<BufferedReader> fileReaders = new ArrayList<>();
+        private final PriorityQueue<Run> runs = new PriorityQueue<>(Comparator.comparing((Run run) -> run.current.name, TinyDiff::compareClassNames));
+        private String previous;
+
+        private SortedClasses(String description, String keyNamespace, String otherNamespace) {
+            this.description = description;
+            this.keyNamespace = keyNamespace;
+            this.otherNamespace = otherNamespace;
+        }
+
+        private void addRun(List<TinyClass> classes, boolean write) throws IOException {
+            classes.sort((a, b) -> compareClassNames(a.name, b.name));
+            for (int i = 1; i < classes.size(); i++) {
+                checkUnique(classes.get(i - 1).name, classes.get(i).name);
+            }
+
+            if (write) {
+                Path file = Files.createTempFile("mappings-diff", ".tiny");
+                files.add(file);
+                try (Writer writer = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                    writer.write("tiny\t2\t0\t" + keyNamespace + "\t" + otherNamespace + "\n");
+                    for (TinyClass tinyClass : classes) {
+                        writer.write("c\t" + tinyClass.name + "\t" + tinyClass.mappedName + "\n");
+                        writeMembers(writer, "m", tinyClass.methods);
+                        writeMembers(writer, "f", tinyClass.fields);
+                    }
+                }
+
+                BufferedReader fileReader = new BufferedReader(Files.newBufferedReader(file, StandardCharsets.UTF_8), BUFFER_SIZE);
+                fileReaders.add(fileReader);
+                addRun(new ClassReader(fileReader, description, keyNamespace, 0));
+            }
+            else {
+                Iterator<TinyClass> iterator = classes.iterator();
+                addRun(() -> iterator.hasNext() ? iterator.next() : null);
+            }
+        }
+
+        private static void writeMembers(Writer writer, String type, List<String[]> members) throws IOException {
+            for (String[] member : members) {
+                writer.write("\t" + type + "\t" + member[1] + "\t" + member[0] + "\t" + member[2] + "\n");
+            }
+        }
+
+        private void addRun(ClassSource source) throws IOException {
+            Run run = new Run(source);
+            if (run.advance()) {
+                runs.add(run);
+            }
+        }
+
+        private void checkUnique(String previous, String name) throws IOException {
+            if (previous.equals(name)) {
+                throw new IOException("Multiple classes of the " + description + " file are mapped to " + name);
+            }
+        }
+
+        @Override
+        public TinyClass next() throws IOException {
+            Run run = runs.poll();
+            if (run == null) {
+                return null;
+            }
+
+            TinyClass next = run.current;
+            if (run.advance()) {
+                runs.add(run);
+            }
+            if (previous != null) {
+                checkUnique(previous, next.name);
+            }
+            previous = next.name;
+            return next;
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException exception = null;
+            for (BufferedReader reader : fileReaders) {
+                try {
+                    reader.close();
+                }
+                catch (IOException e) {
+                    exception = e;
+                }
+            }
+            for (Path file : files) {
+                try {
+                    Files.deleteIfExists(file);
+                }
+                catch (IOException e) {
+                    exception = e;
+                }
+            }
+
+            if (exception != null) {
+                throw exception;
+            }
+        }
+    }
+
+    private static class Run {
+        private final ClassSource source;
+        private TinyClass current;
+
+        private Run(ClassSource source) {
+            this.source = source;
+        }
+
+        private boolean advance() throws IOException {
+            current = source.next();
+            return current != null;
+        }
+    }
+
+    public static class Summary {
+        private final long[] counts = new long[Kind.values().length * Change.values().length];
+
+        private void add(Kind kind, Change change, long count) {
+            counts[kind.ordinal() * Change.values().length + change.ordinal()] += count;
+        }
+
+        public long get(Kind kind, Change change) {
+            return counts[kind.ordinal() * Change.values().length + change.ordinal()];
+        }
+
+        /**
+         * Whether anything was added, removed or renamed.
+         */
+        public boolean hasChanges() {
+            for (Kind kind : Kind.values()) {
+                if (get(kind, Change.ADDED) + get(kind, Change.REMOVED) + get(kind, Change.RENAMED) != 0) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            for (Kind kind : Kind.values()) {
+                builder.append(kind.name().toLowerCase(Locale.ROOT)).append(kind == Kind.CLASS ? "es" : "s").append(':');
+                for (Change change : Change.values()) {
+                    builder.append(change.ordinal() == 0 ? " " : ", ").append(get(kind, change))
+                            .append(' ').append(change.name().toLowerCase(Locale.ROOT));
+                }
+                builder.append('\n');
+            }
+
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.quiltmc.mappings_hasher;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Writes mappings in the Tiny v2 format class by class, without building a {@link org.cadixdev.lorenz.MappingSet} first.
+ *
+ * <p>The output matches lorenz-tiny's TinyMappingsWriter: top level classes are sorted by the length and then the value
+ * of their name, and inner classes follow their outer class, sorted the same way. Within a class, methods come before
+ * fields, both sorted by their name and descriptor.
+ */
+public class TinyWriter {
+    // Sorts by length first, so "b" comes before "aa"
+    static final Comparator<String> CLASS_ORDER = Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+
+    private final Writer writer;
+
+    public TinyWriter(Writer writer, String fromNamespace, String toNamespace) throws IOException {
+        this.writer = writer;
+        writer.write("tiny\t2\t0\t" + fromNamespace + "\t" + toNamespace + "\n");
+    }
+
+    public void write(ClassEntry entry) throws IOException {
+        writer.write(entry.render());
+    }
+
+    public void write(String renderedClass) throws IOException {
+        writer.write(renderedClass);
+    }
+
+    /**
+     * Sorts class names in the order they are written. Outer classes that aren't part of the given names are included,
+     * as the written names of inner classes contain them.
+     */
+    public static List<String> sortClassNames(Collection<String> classNames) {
+        Map<String, List<String>> innerClasses = new HashMap<>();
+        List<String> topLevelClasses = new ArrayList<>();
+
+        Deque<String> toAdd = new ArrayDeque<>(classNames);
+        Set<String> added = new HashSet<>();
+        while (!toAdd.isEmpty()) {
+            String className = toAdd.pop();
+            if (!added.add(className)) {
+                continue;
+            }
+
+            int separator = className.lastIndexOf('$');
+            if (separator == -1) {
+                topLevelClasses.add(className);
+            }
+            else {
+                String outerClass = className.substring(0, separator);
+                innerClasses.computeIfAbsent(outerClass, c -> new ArrayList<>()).add(className);
+                toAdd.push(outerClass);
+            }
+        }
+
+        List<String> sorted = new ArrayList<>(added.size());
+        topLevelClasses.sort(CLASS_ORDER);
+        for (String className : topLevelClasses) {
+            addSorted(className, innerClasses, sorted);
+        }
+
+        return sorted;
+    }
+
+    private static void addSorted(String className, Map<String, List<String>> innerClasses, List<String> sorted) {
+        sorted.add(className);
+
+        List<String> inner = innerClasses.get(className);
+        if (inner != null) {
+            inner.sort(CLASS_ORDER);
+            for (String innerClass : inner) {
+                addSorted(innerClass, innerClasses, sorted);
+            }
+        }
+    }
+
+    /**
+     * A class and its member mappings, members are sorted when the class is rendered.
+     */
+    public static class ClassEntry {
+        private final String name;
+        private final String mappedName;
+        private final List<String[]> methods = new ArrayList<>();
+        private final List<String[]> fields = new ArrayList<>();
+
+        /**
+         * @param mappedName the full mapped name, including the mapped names of outer classes
+         */
+        public ClassEntry(String name, String mappedName) {
+            this.name = name;
+            this.mappedName = mappedName;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public String mappedName() {
+            return mappedName;
+        }
+
+        public void addMethod(String name, String descriptor, String mappedName) {
+            methods.add(new String[] { name, descriptor, mappedName });
+        }
+
+        public void addField(String name, String descriptor, String mappedName) {
+            fields.add(new String[] { name, descriptor, mappedName });
+        }
+
+        public String render() {
+            StringBuilder builder = new StringBuilder(64 + 48 * (methods.size() + fields.size()));
+            builder.append("c\t").append(name).append('\t').append(mappedName).append('\n');
+            renderMembers(builder, 'm', methods);
+            renderMembers(builder, 'f', fields);
+            return builder.toString();
+        }
+
+        private static void renderMembers(StringBuilder builder, char type, List<String[]> members) {
+            members.sort(Comparator.comparing(member -> member[0] + member[1]));
+            for (String[] member : members) {
+                builder.append('\t').append(type).append('\t').append(member[1])
+                        .append('\t').append(member[0]).append('\t').append(member[2]).append('\n');
+            }
+        }
+    }
+}
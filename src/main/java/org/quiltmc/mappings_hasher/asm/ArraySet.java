@@ -0,0 +1,120 @@
+package org.quiltmc.mappings_hasher.asm;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set backed by an array, much smaller than a {@link java.util.HashSet} for the few elements classes usually have.
+ * Lookups are linear, elements can't be removed.
+ *
+ * <p>Large sets are indexed by a hash set while they are built, so adding many elements one by one isn't quadratic.
+ * The index is dropped once the set is {@link #trimToSize() trimmed}, finished classes are only iterated.
+ */
+final class ArraySet<E> extends AbstractSet<E> {
+    private static final Object[] EMPTY = new Object[0];
+    static final int INDEX_THRESHOLD = 16;
+
+    private Object[] elements;
+    private int size;
+    // Only built for lookups in sets larger than the threshold, until the set is trimmed
+    private HashSet<Object> index;
+    private boolean trimmed;
+
+    ArraySet() {
+        this.elements = EMPTY;
+    }
+
+    ArraySet(int capacity) {
+        this.elements = capacity == 0 ? EMPTY : new Object[capacity];
+    }
+
+    @Override
+    public boolean add(E element) {
+        if (contains(element)) {
+            return false;
+        }
+
+        append(element);
+        return true;
+    }
+
+    /**
+     * Adds an element without checking whether it's already contained.
+     */
+    void append(E element) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(4, size * 2));
+        }
+        elements[size++] = element;
+        if (index != null) {
+            index.add(element);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    E get(int index) {
+        return (E) elements[index];
+    }
+
+    void trimToSize() {
+        index = null;
+        trimmed = true;
+        if (size < elements.length) {
+            elements = size == 0 ? EMPTY : Arrays.copyOf(elements, size);
+        }
+    }
+
+    void sort(Comparator<? super E> comparator) {
+        @SuppressWarnings("unchecked")
+        E[] elements = (E[]) this.elements;
+        Arrays.sort(elements, 0, size, comparator);
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        if (size > INDEX_THRESHOLD && !trimmed) {
+            if (index == null) {
+                index = new HashSet<>(Arrays.asList(elements).subList(0, size));
+            }
+            return index.contains(object);
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (elements[i].equals(object)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public E next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+
+                return get(index++);
+            }
+        };
+    }
+}
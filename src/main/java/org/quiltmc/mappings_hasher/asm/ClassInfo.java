@@ -1,32 +1,63 @@
 package org.quiltmc.mappings_hasher.asm;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class ClassInfo {
-    private final String name;
+    private final SymbolTable symbols;
+    private final int id;
+    private final int name;
+    private final int packageName;
     private final int access;
 
-    private final Set<ClassInfo> superClasses = new HashSet<>();
-    private final Set<MethodInfo> methods = new HashSet<>();
-    private final Set<FieldInfo> fields = new HashSet<>();
+    private final ArraySet<ClassInfo> superClasses = new ArraySet<>();
+    private final ArraySet<MethodInfo> methods = new ArraySet<>();
+    private final ArraySet<FieldInfo> fields = new ArraySet<>();
 
-    public ClassInfo(String name, int access) {
-        this.name = name;
+    // The signatures of the methods in the order of the sorted methods, built when the class is finished
+    private long[] methodSignatures;
+
+    // All direct and indirect super classes sorted by id, built when the class is finished
+    private ClassInfo[] ancestors;
+    private int[] ancestorIds;
+
+    /**
+     * @param symbols the table the names of this class and its members are interned in, which has to be shared by all
+     *                classes of the hierarchy
+     */
+    public ClassInfo(SymbolTable symbols, String name, int access) {
+        int index = name.lastIndexOf('/');
+        this.symbols = symbols;
+        this.id = symbols.nextClassId();
+        this.name = symbols.intern(name);
+        this.packageName = symbols.intern(index == -1 ? "" : name.substring(0, index));
         this.access = access;
     }
 
+    /**
+     * A unique id among the class infos sharing this class info's symbol table, ids are assigned in creation order.
+     */
+    public int id() {
+        return id;
+    }
+
     public String name() {
-        return name;
+        return symbols.get(name);
     }
 
     public int access() {
         return access;
     }
 
+    public SymbolTable symbols() {
+        return symbols;
+    }
+
     public String getPackage() {
-        int index = name.lastIndexOf('/');
-        return index == -1 ? "" : name.substring(0, index);
+        return symbols.get(packageName);
+    }
+
+    public boolean isInSamePackage(ClassInfo other) {
+        return packageName == other.packageName;
     }
 
     public Set<ClassInfo> superClasses() {
@@ -41,9 +72,54 @@ public class ClassInfo {
         return fields;
     }
 
+    /**
+     * Looks up a method declared in this class by its name and descriptor.
+     * Only available after this class has been finished.
+     */
+    public MethodInfo getMethod(String name, String descriptor) {
+        int nameId = symbols.find(name);
+        int descriptorId = symbols.find(descriptor);
+        if (nameId == -1 || descriptorId == -1) {
+            return null;
+        }
+
+        return getMethod(nameId, descriptorId);
+    }
+
+    MethodInfo getMethod(int nameId, int descriptorId) {
+        if (methodSignatures == null) {
+            return null;
+        }
+
+        int index = Arrays.binarySearch(methodSignatures, MethodInfo.signature(nameId, descriptorId));
+        return index >= 0 ? methods.get(index) : null;
+    }
+
+    /**
+     * Adds a method without checking for duplicates, class files can't contain duplicate methods.
+     */
+    public void addMethod(MethodInfo method) {
+        methods.append(method);
+    }
+
+    /**
+     * Adds a field without checking for duplicates, class files can't contain duplicate fields.
+     */
+    public void addField(FieldInfo field) {
+        fields.append(field);
+    }
+
     public boolean isSubClassOf(ClassInfo superClass) {
-        return superClass == this || superClasses.contains(superClass)
-                || superClasses.stream().anyMatch(s -> s.isSubClassOf(superClass));
+        if (superClass == this) {
+            return true;
+        }
+
+        if (ancestorIds != null) {
+            return Arrays.binarySearch(ancestorIds, superClass.id) >= 0;
+        }
+
+        // Not finished yet, walk the hierarchy instead
+        return superClasses.contains(superClass) || superClasses.stream().anyMatch(s -> s.isSubClassOf(superClass));
     }
 
     public boolean canInherit(MethodInfo methodInfo) {
@@ -52,30 +128,80 @@ public class ClassInfo {
         }
 
         return methodInfo.isPublic() || methodInfo.isProtected()
-                || methodInfo.owner().getPackage().equals(this.getPackage());
+                || methodInfo.owner().isInSamePackage(this);
     }
 
-    private Set<MethodInfo> getAllMethods() {
-        Set<MethodInfo> methods = new HashSet<>(this.methods);
-        for (ClassInfo superClass : superClasses) {
-            methods.addAll(superClass.getAllMethods());
+    private List<MethodInfo> getAllMethods() {
+        List<MethodInfo> methods = new ArrayList<>(this.methods);
+        for (ClassInfo ancestor : ancestors) {
+            methods.addAll(ancestor.methods);
         }
         return methods;
     }
 
+    private void computeAncestors() {
+        // Super classes are already finished, so their ancestors are known
+        List<ClassInfo> candidates = new ArrayList<>();
+        for (ClassInfo superClass : superClasses) {
+            if (superClass.ancestors == null) {
+                throw new IllegalStateException("Super class " + superClass.name() + " of " + name() + " isn't finished");
+            }
+            if (superClass.symbols != symbols) {
+                throw new IllegalStateException("Super class " + superClass.name() + " of " + name() + " uses another symbol table");
+            }
+
+            candidates.add(superClass);
+            Collections.addAll(candidates, superClass.ancestors);
+        }
+        candidates.sort(Comparator.comparingInt(ClassInfo::id));
+
+        // Remove classes reachable through multiple paths
+        ClassInfo[] ancestors = new ClassInfo[candidates.size()];
+        int[] ancestorIds = new int[candidates.size()];
+        int count = 0;
+        for (ClassInfo candidate : candidates) {
+            if (count == 0 || ancestorIds[count - 1] != candidate.id) {
+                ancestors[count] = candidate;
+                ancestorIds[count] = candidate.id;
+                count++;
+            }
+        }
+
+        this.ancestors = Arrays.copyOf(ancestors, count);
+        this.ancestorIds = Arrays.copyOf(ancestorIds, count);
+    }
+
     public void finish() {
-        Map<String, List<MethodInfo>> visibleMethodsByFullName = new HashMap<>();
+        superClasses.trimToSize();
+        methods.trimToSize();
+        fields.trimToSize();
+        computeAncestors();
+
+        // Methods are sorted by their signature, so they can be looked up by binary search
+        methods.sort(Comparator.comparingLong(MethodInfo::signature));
+        long[] methodSignatures = new long[methods.size()];
+        for (int i = 0; i < methodSignatures.length; i++) {
+            methodSignatures[i] = methods.get(i).signature();
+        }
+        this.methodSignatures = methodSignatures;
+
+        // Super classes are already finished, so their methods' overrides are known
+        for (MethodInfo method : methods) {
+            method.computeOverrides();
+        }
+
+        Map<Long, List<MethodInfo>> visibleMethodsByFullName = new HashMap<>();
         for (MethodInfo method : getAllMethods()) {
             if (canInherit(method)) {
                 visibleMethodsByFullName
-                        .computeIfAbsent(method.name() + method.descriptor(), m -> new ArrayList<>()).add(method);
+                        .computeIfAbsent(method.signature(), m -> new ArrayList<>()).add(method);
             }
         }
 
         for (List<MethodInfo> nameSet : visibleMethodsByFullName.values()) {
             MethodInfo first = nameSet.get(0);
-            for (MethodInfo method : nameSet) {
-                first.mergeNameSetWith(method);
+            for (int i = 1; i < nameSet.size(); i++) {
+                first.mergeNameSetWith(nameSet.get(i));
             }
         }
     }
@@ -1,78 +1,401 @@
 package org.quiltmc.mappings_hasher.asm;
 
 import org.objectweb.asm.*;
+import org.quiltmc.mappings_hasher.util.Metrics;
+import org.quiltmc.mappings_hasher.util.Metrics.Counter;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
 import java.util.function.Predicate;
 import java.util.jar.JarFile;
+import java.util.stream.Collectors;
 
 public class ClassResolver {
-    private final Map<String, ClassReader> classToReader = new HashMap<>();
-    private final Map<String, ClassInfo> classInfoCache = new HashMap<>();
+    static final int READER_FLAGS = ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
 
-    public ClassResolver() { }
+    private final Map<String, ClassSource> classToSource = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, FutureTask<ClassInfo>> classInfoCache = new ConcurrentHashMap<>();
+    // The classes being read by each thread, in the order they were entered, and the class each thread waits for.
+    // A class hierarchy isn't necessarily acyclic in a broken jar, so a cycle has to fail instead of deadlocking.
+    private final ThreadLocal<Set<String>> classesInProgress = ThreadLocal.withInitial(LinkedHashSet::new);
+    private final Map<String, Thread> classReaders = new ConcurrentHashMap<>();
+    private final Map<Thread, String> awaitedClasses = new ConcurrentHashMap<>();
+    private final int parallelism;
+    private final HierarchyCache hierarchyCache;
+    private final PlatformClasses platformClasses;
+    private final Metrics metrics;
+    // The names and descriptors of the classes resolved by this resolver and its forks
+    private final SymbolTable symbols;
+
+    // The resolver this one was forked from, whose libraries are visible to this one, or null
+    private final ClassResolver parent;
+    // The sources of library classes, which are shared with forks unlike the classes of extracted jars
+    private final Map<String, ClassSource> librarySources = new ConcurrentHashMap<>();
+
+    public ClassResolver() {
+        this(1);
+    }
+
+    /**
+     * @param parallelism the number of threads used to extract class information, 1 extracts on the calling thread
+     */
+    public ClassResolver(int parallelism) {
+        this(parallelism, null);
+    }
+
+    /**
+     * @param parallelism the number of threads used to extract class information, 1 extracts on the calling thread
+     * @param hierarchyCache the cache libraries and platform classes are read from, or null to always parse them
+     */
+    public ClassResolver(int parallelism, HierarchyCache hierarchyCache) {
+        this(parallelism, hierarchyCache, PlatformClasses.runtime());
+    }
+
+    /**
+     * @param parallelism the number of threads used to extract class information, 1 extracts on the calling thread
+     * @param hierarchyCache the cache libraries and platform classes are read from, or null to always parse them
+     * @param platformClasses the java platform classes that aren't part of any jar are read from
+     */
+    public ClassResolver(int parallelism, HierarchyCache hierarchyCache, PlatformClasses platformClasses) {
+        this(parallelism, hierarchyCache, platformClasses, new Metrics());
+    }
+
+    /**
+     * @param parallelism the number of threads used to extract class information, 1 extracts on the calling thread
+     * @param hierarchyCache the cache libraries and platform classes are read from, or null to always parse them
+     * @param platformClasses the java platform classes that aren't part of any jar are read from
+     * @param metrics the metrics of the run this resolver is used for
+     */
+    public ClassResolver(int parallelism, HierarchyCache hierarchyCache, PlatformClasses platformClasses, Metrics metrics) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        }
+        if (hierarchyCache != null && !hierarchyCache.platformKey().equals(platformClasses.key())) {
+            throw new IllegalArgumentException("Hierarchy cache of platform " + hierarchyCache.platformKey()
+                    + " can't be used for platform " + platformClasses.key());
+        }
+
+        this.parallelism = parallelism;
+        this.hierarchyCache = hierarchyCache;
+        this.platformClasses = platformClasses;
+        this.metrics = metrics;
+        this.symbols = new SymbolTable();
+        this.parent = null;
+    }
+
+    private ClassResolver(ClassResolver parent) {
+        this.parallelism = parent.parallelism;
+        this.hierarchyCache = parent.hierarchyCache;
+        this.platformClasses = parent.platformClasses;
+        this.metrics = parent.metrics;
+        this.symbols = parent.symbols;
+        this.parent = parent;
+    }
+
+    /**
+     * Creates a resolver for another jar, e.g. the server jar next to the client jar, which shares this resolver's
+     * libraries and hierarchy cache, so library jars are only indexed once.
+     * Classes of jars extracted by either resolver are only visible to that resolver,
+     * libraries added to the fork are only visible to the fork.
+     *
+     * <p>The fork resolves its own class information, also for library and platform classes, which are parsed or
+     * replayed from the hierarchy cache again: method name sets are merged through the classes they are declared in,
+     * so sharing a library class would merge the name sets of both jars. The symbol table is shared though, so the
+     * names in library classes are only interned once.
+     */
+    public ClassResolver fork() {
+        return new ClassResolver(this);
+    }
+
+    public Metrics metrics() {
+        return metrics;
+    }
+
+    public int parallelism() {
+        return parallelism;
+    }
+
+    public SymbolTable symbols() {
+        return symbols;
+    }
 
     public Set<ClassInfo> extractClassInfo(JarFile jar, Predicate<ClassInfo> classFilter) {
-        addJar(jar);
+        return extractClassInfo(Paths.get(jar.getName()), classFilter);
+    }
 
-        Set<ClassInfo> classes = new HashSet<>();
-        jar.stream().forEach(jarEntry -> {
-            if (jarEntry.getName().endsWith(".class")) {
-                String className = jarEntry.getName().substring(0, jarEntry.getName().lastIndexOf('.'));
+    /**
+     * Extracts the class information of all classes in the given jar.
+     * If this resolver is parallel, the class filter may be called from multiple threads at once.
+     */
+    @SuppressWarnings("try")
+    public Set<ClassInfo> extractClassInfo(Path jar, Predicate<ClassInfo> classFilter) {
+        try (Metrics.PhaseTimer ignored = metrics.phase(Metrics.Phase.EXTRACTION)) {
+            List<String> classNames = new ArrayList<>(addJar(jar, Counter.JAR_CLASSES, false).classNames());
+            return extractClassInfo(classNames, classFilter);
+        }
+        finally {
+            // Store the platform classes which were parsed during extraction
+            if (hierarchyCache != null) {
+                hierarchyCache.save();
+            }
+        }
+    }
+
+    private Set<ClassInfo> extractClassInfo(List<String> classNames, Predicate<ClassInfo> classFilter) {
+        if (parallelism == 1) {
+            Set<ClassInfo> classes = new HashSet<>();
+            for (String className : classNames) {
                 ClassInfo info = getClassInfo(className);
                 if (classFilter.test(info)) {
                     classes.add(info);
                 }
             }
-        });
 
-        return classes;
+            return classes;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> classNames.parallelStream()
+                    .map(this::getClassInfo)
+                    .filter(classFilter)
+                    .collect(Collectors.toSet())).get();
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(exception);
+        }
+        catch (ExecutionException exception) {
+            throw rethrow(exception);
+        }
+        finally {
+            pool.shutdown();
+        }
     }
 
     public void addLibrary(JarFile library) {
-        addJar(library);
+        addLibrary(Paths.get(library.getName()));
+    }
+
+    public void addLibrary(Path library) {
+        if (hierarchyCache == null) {
+            addJar(library, Counter.LIBRARY_CLASSES, true);
+            return;
+        }
+
+        try {
+            addLibrary(library, HierarchyCache.sha1(library));
+        }
+        catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Adds a library whose SHA-1 is already known, e.g. from its download metadata.
+     * The SHA-1 is used to look up the library in the hierarchy cache.
+     */
+    public void addLibrary(Path library, String sha1) {
+        if (hierarchyCache == null) {
+            addJar(library, Counter.LIBRARY_CLASSES, true);
+            return;
+        }
+
+        // Cached libraries are replayed from their summaries instead of being parsed, a cached jar isn't opened
+        HierarchyCache.Library cached = hierarchyCache.getLibrary(sha1, library);
+        ClassSource source = (className, visitor) -> {
+            ClassSummary summary = cached.getClass(className, metrics);
+            if (summary == null) {
+                return false;
+            }
+
+            metrics.increment(Counter.LIBRARY_CLASSES);
+            summary.accept(visitor);
+            return true;
+        };
+
+        for (String className : cached.classNames()) {
+            classToSource.put(className, source);
+            librarySources.put(className, source);
+        }
     }
 
-    private void addJar(JarFile jar) {
-        jar.stream().forEach(entry -> {
-            if (entry.getName().endsWith(".class")) {
-                String className = entry.getName().substring(0, entry.getName().lastIndexOf('.'));
+    private JarIndex addJar(Path jar, Counter counter, boolean library) {
+        // Only the jar's index is kept, the classes are read once they are needed
+        JarIndex index = openJar(jar);
+        ClassSource source = (className, visitor) -> {
+            metrics.increment(counter);
+            return index.accept(className, visitor);
+        };
+        for (String className : index.classNames()) {
+            classToSource.put(className, source);
+            if (library) {
+                librarySources.put(className, source);
+            }
+        }
+
+        return index;
+    }
+
+    private static JarIndex openJar(Path jar) {
+        try {
+            return JarIndex.open(jar);
+        }
+        catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private ClassInfo getClassInfo(String name) {
+        // Every class is parsed exactly once: the thread that registers the task runs it,
+        // all other threads requesting the same class wait for its result.
+        // Super classes are resolved while a class is read, so a cyclic hierarchy is detected before waiting.
+        Set<String> inProgress = classesInProgress.get();
+        if (inProgress.contains(name)) {
+            List<String> entered = new ArrayList<>(inProgress);
+            throw cyclicHierarchy(entered.subList(entered.indexOf(name), entered.size()));
+        }
+
+        FutureTask<ClassInfo> task = classInfoCache.get(name);
+        if (task == null) {
+            FutureTask<ClassInfo> newTask = new FutureTask<>(() -> readClassInfo(name));
+            task = classInfoCache.putIfAbsent(name, newTask);
+            if (task == null) {
+                task = newTask;
+                inProgress.add(name);
+                classReaders.put(name, Thread.currentThread());
                 try {
-                    classToReader.put(className, new ClassReader(jar.getInputStream(entry)));
+                    task.run();
                 }
-                catch (IOException exception) {
-                    throw new RuntimeException(exception);
+                finally {
+                    classReaders.remove(name);
+                    inProgress.remove(name);
                 }
             }
-        });
+        }
+
+        try {
+            if (task.isDone()) {
+                return task.get();
+            }
+
+            // The class is read by another thread, which must not be waiting for a class this thread reads
+            awaitedClasses.put(Thread.currentThread(), name);
+            try {
+                checkNotAwaitingItself(name);
+                return task.get();
+            }
+            finally {
+                awaitedClasses.remove(Thread.currentThread());
+            }
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(exception);
+        }
+        catch (ExecutionException exception) {
+            throw rethrow(exception);
+        }
     }
 
-    private ClassInfo getClassInfo(String name) {
-        if (classInfoCache.containsKey(name)) {
-            return classInfoCache.get(name);
+    // Follows the classes the reading threads wait for, a cycle leads back to the current thread.
+    // Each thread registers what it waits for before checking, so the last thread closing a cycle sees all of it.
+    private void checkNotAwaitingItself(String name) {
+        List<String> awaited = new ArrayList<>();
+        String className = name;
+        while (className != null && awaited.size() <= awaitedClasses.size()) {
+            Thread reader = classReaders.get(className);
+            FutureTask<ClassInfo> task = classInfoCache.get(className);
+            if (reader == null || task == null || task.isDone()) {
+                return;
+            }
+
+            if (reader == Thread.currentThread()) {
+                awaited.add(0, className);
+                throw cyclicHierarchy(awaited);
+            }
+            awaited.add(className);
+            className = awaitedClasses.get(reader);
         }
+    }
+
+    // The classes of the cycle, each extending or implementing the next one and the last one the first
+    private static RuntimeException cyclicHierarchy(List<String> cycle) {
+        return new IllegalStateException("Cyclic class hierarchy: " + String.join(" -> ", cycle) + " -> " + cycle.get(0));
+    }
+
+    private ClassInfo readClassInfo(String name) {
+        // Super classes are resolved while visiting, so they are finished before this class is
+        ClassVisitor visitor = new ClassVisitor(this);
 
-        ClassReader reader = classToReader.get(name);
-        if (reader == null) {
+        ClassSource source = classToSource.get(name);
+        if (source == null && parent != null) {
+            source = parent.getLibrarySource(name);
+        }
+        if (source != null) {
             try {
-                // Try to load from class path (for Java Platform)
-                reader = new ClassReader(name);
+                source.accept(name, visitor);
             }
             catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+
+            return visitor.getClassInfo();
+        }
+
+        metrics.increment(Counter.JDK_FALLBACKS);
+        ClassSummary summary = hierarchyCache != null ? hierarchyCache.getPlatformClass(name) : null;
+        if (summary != null) {
+            metrics.increment(Counter.CACHE_HITS);
+            summary.accept(visitor);
+            return visitor.getClassInfo();
+        }
+
+        // Java platform classes
+        ClassSummary.Recorder recorder = hierarchyCache != null ? new ClassSummary.Recorder(visitor) : null;
+        try {
+            if (!platformClasses.accept(name, recorder != null ? recorder : visitor)) {
                 throw new RuntimeException("Class not found: " + name);
             }
         }
+        catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        metrics.increment(Counter.PLATFORM_CLASSES);
+        if (recorder != null) {
+            metrics.increment(Counter.CACHE_MISSES);
+            hierarchyCache.putPlatformClass(recorder.getSummary());
+        }
 
-        ClassVisitor visitor = new ClassVisitor(this);
-        reader.accept(visitor,ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
-        classInfoCache.put(name, visitor.getClassInfo());
         return visitor.getClassInfo();
     }
 
+    private ClassSource getLibrarySource(String name) {
+        ClassSource source = librarySources.get(name);
+        return source == null && parent != null ? parent.getLibrarySource(name) : source;
+    }
+
+    private static RuntimeException rethrow(ExecutionException exception) {
+        Throwable cause = exception.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+
+        return new RuntimeException(cause);
+    }
+
     private static class ClassVisitor extends org.objectweb.asm.ClassVisitor {
         private final ClassResolver resolver;
 
@@ -89,7 +412,7 @@ public class ClassResolver {
 
         @Override
         public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
-            this.classInfo = new ClassInfo(name, access);
+            this.classInfo = new ClassInfo(resolver.symbols, name, access);
 
             // This is only null for java/lang/Object
             if (superName != null) {
@@ -104,7 +427,7 @@ public class ClassResolver {
         @Override
         public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
             FieldInfo fieldInfo = new FieldInfo(this.classInfo, name, descriptor);
-            classInfo.fields().add(fieldInfo);
+            classInfo.addField(fieldInfo);
 
             return null;
         }
@@ -112,7 +435,7 @@ public class ClassResolver {
         @Override
         public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
             MethodInfo methodInfo = new MethodInfo(this.classInfo, name, descriptor, access);
-            this.classInfo.methods().add(methodInfo);
+            this.classInfo.addMethod(methodInfo);
 
             return null;
         }
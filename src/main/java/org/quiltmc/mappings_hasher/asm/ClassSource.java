@@ -0,0 +1,15 @@
+package org.quiltmc.mappings_hasher.asm;
+
+import java.io.IOException;
+
+/**
+ * A source of classes the {@link ClassResolver} can build class information from.
+ */
+interface ClassSource {
+    /**
+     * Passes the given class to the visitor, skipping code, debug information and frames.
+     *
+     * @return false if this source doesn't contain the class
+     */
+    boolean accept(String className, org.objectweb.asm.ClassVisitor visitor) throws IOException;
+}
@@ -0,0 +1,118 @@
+package org.quiltmc.mappings_hasher.asm;
+
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parts of a class file that are needed to build its {@link ClassInfo}.
+ * Summaries can be stored in the {@link HierarchyCache} and replayed instead of parsing the class again.
+ */
+class ClassSummary {
+    final int access;
+    final String name;
+    final String superName; // Null for java/lang/Object
+    final String[] interfaces;
+
+    final String[] fieldNames;
+    final String[] fieldDescriptors;
+
+    final int[] methodAccess;
+    final String[] methodNames;
+    final String[] methodDescriptors;
+
+    ClassSummary(int access, String name, String superName, String[] interfaces,
+                 String[] fieldNames, String[] fieldDescriptors,
+                 int[] methodAccess, String[] methodNames, String[] methodDescriptors) {
+        this.access = access;
+        this.name = name;
+        this.superName = superName;
+        this.interfaces = interfaces;
+        this.fieldNames = fieldNames;
+        this.fieldDescriptors = fieldDescriptors;
+        this.methodAccess = methodAccess;
+        this.methodNames = methodNames;
+        this.methodDescriptors = methodDescriptors;
+    }
+
+    /**
+     * Replays the summary as if the class was read by a {@link org.objectweb.asm.ClassReader}
+     * skipping code, debug information and frames.
+     */
+    void accept(org.objectweb.asm.ClassVisitor visitor) {
+        visitor.visit(0, access, name, null, superName, interfaces);
+
+        for (int i = 0; i < fieldNames.length; i++) {
+            visitor.visitField(0, fieldNames[i], fieldDescriptors[i], null, null);
+        }
+
+        for (int i = 0; i < methodNames.length; i++) {
+            visitor.visitMethod(methodAccess[i], methodNames[i], methodDescriptors[i], null, null);
+        }
+
+        visitor.visitEnd();
+    }
+
+    /**
+     * Records the summary of a visited class, optionally passing all events on to another visitor.
+     */
+    static class Recorder extends org.objectweb.asm.ClassVisitor {
+        private int access;
+        private String name;
+        private String superName;
+        private String[] interfaces;
+
+        private final List<String> fieldNames = new ArrayList<>();
+        private final List<String> fieldDescriptors = new ArrayList<>();
+
+        private final List<Integer> methodAccess = new ArrayList<>();
+        private final List<String> methodNames = new ArrayList<>();
+        private final List<String> methodDescriptors = new ArrayList<>();
+
+        Recorder() {
+            super(Opcodes.ASM9);
+        }
+
+        Recorder(org.objectweb.asm.ClassVisitor next) {
+            super(Opcodes.ASM9, next);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            this.access = access;
+            this.name = name;
+            this.superName = superName;
+            this.interfaces = interfaces == null ? new String[0] : interfaces.clone();
+            super.visit(version, access, name, signature, superName, interfaces);
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            fieldNames.add(name);
+            fieldDescriptors.add(descriptor);
+            return super.visitField(access, name, descriptor, signature, value);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            methodAccess.add(access);
+            methodNames.add(name);
+            methodDescriptors.add(descriptor);
+            return super.visitMethod(access, name, descriptor, signature, exceptions);
+        }
+
+        ClassSummary getSummary() {
+            int[] methodAccess = new int[this.methodAccess.size()];
+            for (int i = 0; i < methodAccess.length; i++) {
+                methodAccess[i] = this.methodAccess.get(i);
+            }
+
+            return new ClassSummary(access, name, superName, interfaces,
+                    fieldNames.toArray(new String[0]), fieldDescriptors.toArray(new String[0]),
+                    methodAccess, methodNames.toArray(new String[0]), methodDescriptors.toArray(new String[0]));
+        }
+    }
+}
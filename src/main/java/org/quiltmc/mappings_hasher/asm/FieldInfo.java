@@ -1,18 +1,14 @@
 package org.quiltmc.mappings_hasher.asm;
 
-
-import java.util.HashSet;
-import java.util.Set;
-
 public class FieldInfo {
     private final ClassInfo owner;
-    private final String name;
-    private final String descriptor;
+    private final int name;
+    private final int descriptor;
 
     public FieldInfo(ClassInfo owner, String name, String descriptor) {
         this.owner = owner;
-        this.name = name;
-        this.descriptor = descriptor;
+        this.name = owner.symbols().intern(name);
+        this.descriptor = owner.symbols().intern(descriptor);
     }
 
     public ClassInfo owner() {
@@ -20,10 +16,24 @@ public class FieldInfo {
     }
 
     public String name() {
-        return name;
+        return owner.symbols().get(name);
     }
 
     public String descriptor() {
+        return owner.symbols().get(descriptor);
+    }
+
+    /**
+     * The id of the name in the {@link SymbolTable} of the owner.
+     */
+    public int nameId() {
+        return name;
+    }
+
+    /**
+     * The id of the descriptor in the {@link SymbolTable} of the owner.
+     */
+    public int descriptorId() {
         return descriptor;
     }
 }
@@ -0,0 +1,498 @@
+package org.quiltmc.mappings_hasher.asm;
+
+import org.quiltmc.mappings_hasher.util.Metrics;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent cache of class summaries, so libraries and platform classes don't need to be parsed on every run.
+ *
+ * <p>Library summaries are stored per jar, keyed by the SHA-1 of the jar. Platform classes are stored per JDK.
+ * Both only contain the classes that were actually requested. Cache files are versioned and checksummed,
+ * stale or corrupt files are rebuilt.
+ *
+ * <p>Cache files are memory-mapped, and summaries are only read from them when their class is requested, like
+ * {@link JarIndex} reads classes. A cached library also stores the names of all classes of its jar, so the jar is
+ * only opened if a class that isn't cached yet is requested.
+ *
+ * <p>The summaries added during a run are also kept in memory, so multiple resolvers can share them.
+ */
+public class HierarchyCache {
+    private static final int MAGIC = 0x514D4843; // "QMHC"
+    private static final int FORMAT_VERSION = 2;
+
+    private final Path directory; // Null if the cache is only kept in memory
+    private final String platformKey;
+
+    private final Map<String, Library> libraries = new ConcurrentHashMap<>();
+    private final SummaryFile platformClasses;
+
+    /**
+     * Creates a cache that is only kept in memory, e.g. to share hierarchies between the resolvers of one run.
+     */
+    public HierarchyCache() {
+        this(null);
+    }
+
+    public HierarchyCache(Path directory) {
+        this(directory, PlatformClasses.runtime().key());
+    }
+
+    /**
+     * @param directory the directory the cache is stored in, or null to only keep it in memory
+     * @param platformKey identifies the java platform the platform classes are read from, see {@link PlatformClasses#key()}
+     */
+    public HierarchyCache(Path directory, String platformKey) {
+        this.directory = directory;
+        this.platformKey = platformKey;
+        this.platformClasses = new SummaryFile(directory != null ? getPlatformFile() : null, platformKey);
+    }
+
+    String platformKey() {
+        return platformKey;
+    }
+
+    /**
+     * Returns the cached classes of the library jar with the given SHA-1.
+     * The jar is only indexed if the cache doesn't know its classes yet.
+     */
+    Library getLibrary(String sha1, Path jar) {
+        return libraries.computeIfAbsent(sha1, key -> {
+            SummaryFile file = new SummaryFile(directory != null ? directory.resolve(sha1 + ".bin") : null, sha1);
+            return new Library(file, jar);
+        });
+    }
+
+    ClassSummary getPlatformClass(String className) {
+        return platformClasses.get(className);
+    }
+
+    void putPlatformClass(ClassSummary summary) {
+        platformClasses.put(summary);
+    }
+
+    /**
+     * Writes the cache files of the libraries and platform classes which classes were added to since they were
+     * last written.
+     */
+    public synchronized void save() {
+        if (directory == null) {
+            return;
+        }
+
+        for (Library library : libraries.values()) {
+            library.file.save(library.classNames);
+        }
+        platformClasses.save(null);
+    }
+
+    public static String sha1(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+
+        try (InputStream stream = Files.newInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int count;
+            while ((count = stream.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+            }
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (byte b : digest.digest()) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    private Path getPlatformFile() {
+        return directory.resolve(platformKey.replaceAll("[^A-Za-z0-9._-]", "_") + ".bin");
+    }
+
+    /**
+     * The classes of a library jar. Summaries are read from the cache file, or parsed from the jar and added to
+     * the cache when they are first requested.
+     */
+    static class Library {
+        private final SummaryFile file;
+        private final Path jar;
+        private final Set<String> classNames;
+        private JarIndex index; // Only opened once a class isn't cached
+
+        private Library(SummaryFile file, Path jar) {
+            this.file = file;
+            this.jar = jar;
+
+            Set<String> classNames = file.classNames();
+            this.classNames = classNames != null ? classNames : openIndex().classNames();
+        }
+
+        Set<String> classNames() {
+            return classNames;
+        }
+
+        /**
+         * Returns the summary of the given class, or null if it isn't part of this library.
+         */
+        ClassSummary getClass(String className, Metrics metrics) throws IOException {
+            if (!classNames.contains(className)) {
+                return null;
+            }
+
+            ClassSummary summary = file.get(className);
+            if (summary != null) {
+                metrics.increment(Metrics.Counter.CACHE_HITS);
+                return summary;
+            }
+
+            ClassSummary.Recorder recorder = new ClassSummary.Recorder();
+            openIndex().accept(className, recorder);
+            summary = recorder.getSummary();
+            file.put(summary);
+            metrics.increment(Metrics.Counter.CACHE_MISSES);
+            return summary;
+        }
+
+        private synchronized JarIndex openIndex() {
+            if (index == null) {
+                try {
+                    index = JarIndex.open(jar);
+                }
+                catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            }
+
+            return index;
+        }
+    }
+
+    /**
+     * The summaries of one cache file, and the summaries added since it was read.
+     *
+     * <p>File layout: magic, format version, key, the length of the index, the index, the CRC-32 of the index and
+     * the summary records. The index lists the known class names with the offset, length and CRC-32 of their record,
+     * an offset of -1 for classes without a record.
+     */
+    private static class SummaryFile {
+        private final Path path; // Null if only kept in memory
+        private final String key;
+        private final Map<String, ClassSummary> added = new ConcurrentHashMap<>();
+        private volatile Contents contents; // Null if there's no valid file
+        private volatile boolean changed;
+
+        private SummaryFile(Path path, String key) {
+            this.path = path;
+            this.key = key;
+            this.contents = path != null ? read(path, key) : null;
+        }
+
+        // The class names known by the file, or null if there's no valid file
+        private Set<String> classNames() {
+            Contents contents = this.contents;
+            return contents != null ? contents.entries.keySet() : null;
+        }
+
+        private ClassSummary get(String className) {
+            ClassSummary summary = added.get(className);
+            if (summary != null) {
+                return summary;
+            }
+
+            Contents contents = this.contents;
+            Entry entry = contents != null ? contents.entries.get(className) : null;
+            if (entry == null || entry.offset == -1) {
+                return null;
+            }
+
+            try {
+                return readSummary(contents.readRecord(entry));
+            }
+            catch (IOException | RuntimeException exception) {
+                // The file is rewritten from the summaries that are requested again
+                System.err.println("Rebuilding hierarchy cache " + path + ": " + exception.getMessage());
+                this.contents = null;
+                changed = true;
+                return null;
+            }
+        }
+
+        private void put(ClassSummary summary) {
+            added.put(summary.name, summary);
+            changed = true;
+        }
+
+        /**
+         * Writes the file if summaries were added, keeping the records of the current file.
+         *
+         * @param classNames the class names to list in the index, or null to list the classes with a summary
+         */
+        private void save(Set<String> classNames) {
+            if (!changed || path == null) {
+                return;
+            }
+            changed = false;
+
+            Contents contents = this.contents;
+            Set<String> names = classNames;
+            if (names == null) {
+                names = new HashSet<>(added.keySet());
+                if (contents != null) {
+                    names.addAll(contents.entries.keySet());
+                }
+            }
+
+            try {
+                ByteArrayOutputStream index = new ByteArrayOutputStream();
+                ByteArrayOutputStream records = new ByteArrayOutputStream();
+                DataOutputStream indexOutput = new DataOutputStream(index);
+                indexOutput.writeInt(names.size());
+                for (String name : names) {
+                    byte[] record = null;
+                    ClassSummary summary = added.get(name);
+                    if (summary != null) {
+                        record = writeSummary(summary);
+                    }
+                    else if (contents != null && contents.entries.containsKey(name) && contents.entries.get(name).offset != -1) {
+                        record = contents.readRecord(contents.entries.get(name));
+                    }
+
+                    indexOutput.writeUTF(name);
+                    indexOutput.writeInt(record != null ? records.size() : -1);
+                    indexOutput.writeInt(record != null ? record.length : 0);
+                    indexOutput.writeInt(record != null ? crc(record, 0, record.length) : 0);
+                    if (record != null) {
+                        records.write(record);
+                    }
+                }
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(index.size() + records.size() + 64);
+                DataOutputStream output = new DataOutputStream(bytes);
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(key);
+                output.writeInt(index.size());
+                index.writeTo(output);
+                output.writeInt(crc(index.toByteArray(), 0, index.size()));
+                records.writeTo(output);
+                output.flush();
+
+                // Write to a temporary file first, so other runs never see a partially written file
+                Files.createDirectories(path.getParent());
+                Path tempFile = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+                try {
+                    Files.write(tempFile, bytes.toByteArray());
+                    Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                finally {
+                    Files.deleteIfExists(tempFile);
+                }
+            }
+            catch (IOException | RuntimeException exception) {
+                // Failing to write the cache isn't fatal, it's rebuilt on the next run
+                System.err.println("Failed to write hierarchy cache " + path + ": " + exception.getMessage());
+            }
+        }
+    }
+
+    // A mapped cache file with a valid index, its records are checked when they are read
+    private static class Contents {
+        private final ByteBuffer records;
+        private final Map<String, Entry> entries;
+
+        private Contents(ByteBuffer records, Map<String, Entry> entries) {
+            this.records = records;
+            this.entries = entries;
+        }
+
+        private byte[] readRecord(Entry entry) throws IOException {
+            // Duplicate the buffer, so concurrent reads don't share a position
+            ByteBuffer view = records.duplicate();
+            view.position(entry.offset);
+            byte[] record = new byte[entry.length];
+            view.get(record);
+            if (crc(record, 0, record.length) != entry.crc) {
+                throw new IOException("Checksum mismatch");
+            }
+
+            return record;
+        }
+    }
+
+    private static class Entry {
+        private final int offset;
+        private final int length;
+        private final int crc;
+
+        private Entry(int offset, int length, int crc) {
+            this.offset = offset;
+            this.length = length;
+            this.crc = crc;
+        }
+    }
+
+    // Returns null if the file doesn't exist or is invalid
+    private static Contents read(Path file, String key) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        try {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("File is too large");
+                }
+
+                // The mapping stays valid after the channel is closed
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+
+            if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IOException("Unknown format");
+            }
+            if (!readUTF(buffer).equals(key)) {
+                throw new IOException("Key mismatch");
+            }
+
+            int indexLength = buffer.getInt();
+            if (indexLength < 0 || indexLength > buffer.remaining() - Integer.BYTES) {
+                throw new IOException("File is truncated");
+            }
+            byte[] index = new byte[indexLength];
+            buffer.get(index);
+            if (buffer.getInt() != crc(index, 0, index.length)) {
+                throw new IOException("Checksum mismatch");
+            }
+
+            ByteBuffer records = buffer.slice();
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(index));
+            int classCount = input.readInt();
+            Map<String, Entry> entries = new HashMap<>(classCount * 2);
+            for (int i = 0; i < classCount; i++) {
+                String name = input.readUTF();
+                Entry entry = new Entry(input.readInt(), input.readInt(), input.readInt());
+                if (entry.offset != -1 && (entry.offset < 0 || entry.length < 0 || entry.offset > records.limit() - entry.length)) {
+                    throw new IOException("File is truncated");
+                }
+                entries.put(name, entry);
+            }
+            if (input.read() != -1) {
+                throw new IOException("Trailing data");
+            }
+
+            return new Contents(records, Collections.unmodifiableMap(entries));
+        }
+        catch (IOException | RuntimeException exception) {
+            System.err.println("Rebuilding hierarchy cache " + file + ": " + exception.getMessage());
+            return null;
+        }
+    }
+
+    // Reads a string written by DataOutput.writeUTF
+    private static String readUTF(ByteBuffer buffer) throws IOException {
+        int length = buffer.getShort() & 0xFFFF;
+        if (length > buffer.remaining()) {
+            throw new IOException("File is truncated");
+        }
+
+        byte[] bytes = new byte[length + 2];
+        bytes[0] = (byte) (length >> 8);
+        bytes[1] = (byte) length;
+        buffer.get(bytes, 2, length);
+        return new DataInputStream(new ByteArrayInputStream(bytes)).readUTF();
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static ClassSummary readSummary(byte[] record) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(record));
+        int access = input.readInt();
+        String name = input.readUTF();
+        String superName = input.readBoolean() ? input.readUTF() : null;
+
+        String[] interfaces = new String[input.readInt()];
+        for (int i = 0; i < interfaces.length; i++) {
+            interfaces[i] = input.readUTF();
+        }
+
+        int fieldCount = input.readInt();
+        String[] fieldNames = new String[fieldCount];
+        String[] fieldDescriptors = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            fieldNames[i] = input.readUTF();
+            fieldDescriptors[i] = input.readUTF();
+        }
+
+        int methodCount = input.readInt();
+        int[] methodAccess = new int[methodCount];
+        String[] methodNames = new String[methodCount];
+        String[] methodDescriptors = new String[methodCount];
+        for (int i = 0; i < methodCount; i++) {
+            methodAccess[i] = input.readInt();
+            methodNames[i] = input.readUTF();
+            methodDescriptors[i] = input.readUTF();
+        }
+
+        if (input.read() != -1) {
+            throw new IOException("Trailing data");
+        }
+
+        return new ClassSummary(access, name, superName, interfaces,
+                fieldNames, fieldDescriptors, methodAccess, methodNames, methodDescriptors);
+    }
+
+    // Each record is self-contained, so it can be read on its own
+    private static byte[] writeSummary(ClassSummary summary) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(summary.access);
+        output.writeUTF(summary.name);
+        output.writeBoolean(summary.superName != null);
+        if (summary.superName != null) {
+            output.writeUTF(summary.superName);
+        }
+
+        output.writeInt(summary.interfaces.length);
+        for (String interfaceName : summary.interfaces) {
+            output.writeUTF(interfaceName);
+        }
+
+        output.writeInt(summary.fieldNames.length);
+        for (int i = 0; i < summary.fieldNames.length; i++) {
+            output.writeUTF(summary.fieldNames[i]);
+            output.writeUTF(summary.fieldDescriptors[i]);
+        }
+
+        output.writeInt(summary.methodNames.length);
+        for (int i = 0; i < summary.methodNames.length; i++) {
+            output.writeInt(summary.methodAccess[i]);
+            output.writeUTF(summary.methodNames[i]);
+            output.writeUTF(summary.methodDescriptors[i]);
+        }
+
+        output.flush();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,277 @@
+package org.quiltmc.mappings_hasher.asm;
+
+import org.objectweb.asm.ClassReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * An index of the class entries of a jar, built from the zip central directory of the memory-mapped file.
+ * The index only stores where each class is located, the class bytes are read when they are requested.
+ */
+class JarIndex implements ClassSource {
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+    private static final int END_SIZE = 22;
+    private static final int ZIP64_END_SIZE = 56;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final Map<String, Entry> classes;
+
+    private JarIndex(Path path, MappedByteBuffer buffer, Map<String, Entry> classes) {
+        this.path = path;
+        this.buffer = buffer;
+        this.classes = classes;
+    }
+
+    public static JarIndex open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Jar is too large to be mapped: " + path);
+            }
+
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        return new JarIndex(path, buffer, readCentralDirectory(path, buffer));
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public Set<String> classNames() {
+        return classes.keySet();
+    }
+
+    public boolean contains(String className) {
+        return classes.containsKey(className);
+    }
+
+    @Override
+    public boolean accept(String className, org.objectweb.asm.ClassVisitor visitor) throws IOException {
+        if (!contains(className)) {
+            return false;
+        }
+
+        // The class bytes are only referenced until the class is visited
+        new ClassReader(readClass(className)).accept(visitor, ClassResolver.READER_FLAGS);
+        return true;
+    }
+
+    /**
+     * Reads the bytes of the given class. The returned array isn't retained by the index.
+     */
+    public byte[] readClass(String className) throws IOException {
+        Entry entry = classes.get(className);
+        if (entry == null) {
+            throw new IOException("Class " + className + " not found in " + path);
+        }
+
+        // Duplicate the buffer, so concurrent reads don't share a position
+        ByteBuffer view = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int localHeader = entry.localHeaderOffset;
+        if (localHeader > view.limit() - 30 || view.getInt(localHeader) != LOCAL_HEADER_SIGNATURE) {
+            throw new IOException("Invalid local header for " + className + " in " + path);
+        }
+
+        // The local header may have a different extra field than the central directory
+        int dataOffset = localHeader + 30 + (view.getShort(localHeader + 26) & 0xFFFF)
+                + (view.getShort(localHeader + 28) & 0xFFFF);
+        if (dataOffset > view.limit() - (entry.method == STORED ? entry.uncompressedSize : entry.compressedSize)) {
+            throw new IOException("Truncated entry for " + className + " in " + path);
+        }
+        view.position(dataOffset);
+
+        if (entry.method == STORED) {
+            byte[] bytes = new byte[entry.uncompressedSize];
+            view.get(bytes);
+            return bytes;
+        }
+
+        // Inflater needs an extra dummy byte when reading raw deflate data
+        byte[] compressed = new byte[entry.compressedSize + 1];
+        view.get(compressed, 0, entry.compressedSize);
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            byte[] bytes = new byte[entry.uncompressedSize];
+            int length = 0;
+            while (length < bytes.length && !inflater.finished()) {
+                int count = inflater.inflate(bytes, length, bytes.length - length);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += count;
+            }
+
+            if (length != bytes.length) {
+                throw new IOException("Truncated entry for " + className + " in " + path);
+            }
+
+            return bytes;
+        }
+        catch (DataFormatException exception) {
+            throw new IOException("Invalid compressed data for " + className + " in " + path, exception);
+        }
+        finally {
+            inflater.end();
+        }
+    }
+
+    private static Map<String, Entry> readCentralDirectory(Path path, ByteBuffer buffer) throws IOException {
+        int end = findEndOfCentralDirectory(path, buffer);
+        long entryCount = buffer.getShort(end + 10) & 0xFFFF;
+        long directoryOffset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+
+        // Zip64: the actual values are stored in the zip64 end of central directory record
+        int locator = end - ZIP64_LOCATOR_SIZE;
+        if (locator >= 0 && buffer.getInt(locator) == ZIP64_LOCATOR_SIGNATURE) {
+            long zip64End = buffer.getLong(locator + 8);
+            if (zip64End < 0 || zip64End > locator - ZIP64_END_SIZE || buffer.getInt((int) zip64End) != ZIP64_END_SIGNATURE) {
+                throw new IOException("Invalid zip64 end of central directory in " + path);
+            }
+            entryCount = buffer.getLong((int) zip64End + 32);
+            directoryOffset = buffer.getLong((int) zip64End + 48);
+        }
+
+        if (directoryOffset > end) {
+            throw new IOException("Invalid central directory offset in " + path);
+        }
+
+        Map<String, Entry> classes = new HashMap<>();
+        int position = (int) directoryOffset;
+        for (long i = 0; i < entryCount; i++) {
+            // Entries end before the end record, their fixed part is 46 bytes long
+            if (position > end - 46 || buffer.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+                throw new IOException("Invalid central directory entry in " + path);
+            }
+
+            int method = buffer.getShort(position + 10) & 0xFFFF;
+            long compressedSize = buffer.getInt(position + 20) & 0xFFFFFFFFL;
+            long uncompressedSize = buffer.getInt(position + 24) & 0xFFFFFFFFL;
+            int nameLength = buffer.getShort(position + 28) & 0xFFFF;
+            int extraLength = buffer.getShort(position + 30) & 0xFFFF;
+            int commentLength = buffer.getShort(position + 32) & 0xFFFF;
+            long localHeaderOffset = buffer.getInt(position + 42) & 0xFFFFFFFFL;
+
+            int extra = position + 46 + nameLength;
+            if (extra + extraLength + commentLength > end) {
+                throw new IOException("Truncated central directory in " + path);
+            }
+
+            String name = readName(buffer, position + 46, nameLength);
+            position = extra + extraLength + commentLength;
+
+            if (!name.endsWith(".class")) {
+                continue;
+            }
+
+            // Zip64: sizes and offsets which don't fit are stored in the extra field
+            if (uncompressedSize == 0xFFFFFFFFL || compressedSize == 0xFFFFFFFFL || localHeaderOffset == 0xFFFFFFFFL) {
+                int field = findZip64ExtraField(buffer, extra, extraLength);
+                if (field == -1) {
+                    throw new IOException("Missing zip64 extra field for " + name + " in " + path);
+                }
+                if (uncompressedSize == 0xFFFFFFFFL) {
+                    uncompressedSize = buffer.getLong(field);
+                    field += 8;
+                }
+                if (compressedSize == 0xFFFFFFFFL) {
+                    compressedSize = buffer.getLong(field);
+                    field += 8;
+                }
+                if (localHeaderOffset == 0xFFFFFFFFL) {
+                    localHeaderOffset = buffer.getLong(field);
+                }
+            }
+
+            if (method != STORED && method != DEFLATED) {
+                throw new IOException("Unsupported compression method " + method + " for " + name + " in " + path);
+            }
+            if (uncompressedSize >= Integer.MAX_VALUE || compressedSize >= Integer.MAX_VALUE || localHeaderOffset > end) {
+                throw new IOException("Invalid entry " + name + " in " + path);
+            }
+
+            String className = name.substring(0, name.lastIndexOf('.'));
+            classes.put(className, new Entry(method, (int) compressedSize, (int) uncompressedSize, (int) localHeaderOffset));
+        }
+
+        return Collections.unmodifiableMap(classes);
+    }
+
+    private static int findEndOfCentralDirectory(Path path, ByteBuffer buffer) throws IOException {
+        // The end record is followed by a variable length comment, so search backwards for its signature
+        int minPosition = Math.max(0, buffer.limit() - END_SIZE - MAX_COMMENT_SIZE);
+        for (int position = buffer.limit() - END_SIZE; position >= minPosition; position--) {
+            if (buffer.getInt(position) == END_SIGNATURE
+                    && position + END_SIZE + (buffer.getShort(position + 20) & 0xFFFF) == buffer.limit()) {
+                return position;
+            }
+        }
+
+        throw new IOException("Missing end of central directory in " + path);
+    }
+
+    private static int findZip64ExtraField(ByteBuffer buffer, int position, int length) {
+        int end = position + length;
+        while (position + 4 <= end) {
+            int id = buffer.getShort(position) & 0xFFFF;
+            int size = buffer.getShort(position + 2) & 0xFFFF;
+            if (id == 0x0001) {
+                return position + 4;
+            }
+            position += 4 + size;
+        }
+
+        return -1;
+    }
+
+    private static String readName(ByteBuffer buffer, int position, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class Entry {
+        private final int method;
+        private final int compressedSize;
+        private final int uncompressedSize;
+        private final int localHeaderOffset;
+
+        private Entry(int method, int compressedSize, int uncompressedSize, int localHeaderOffset) {
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.uncompressedSize = uncompressedSize;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+}
@@ -2,29 +2,33 @@ package org.quiltmc.mappings_hasher.asm;
 
 import org.objectweb.asm.Opcodes;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
 public class MethodInfo {
+    // Name sets are shared across classes, which may be finished on different threads
+    private static final Object NAME_SET_LOCK = new Object();
+
     private final ClassInfo owner;
-    private final String name;
-    private final String descriptor;
+    private final int name;
+    private final int descriptor;
     private final int access;
 
-    private final Set<MethodInfo> overrides;
-    private Set<MethodInfo> nameSet;
+    // Computed when the owner is finished, as the super classes have to be known by then
+    private Set<MethodInfo> overrides;
+
+    // Name sets form a disjoint-set forest, each method points towards the representative of its set.
+    // Additionally, the members of a name set are linked in a circular list, so the set can be listed on demand.
+    private MethodInfo nameSetParent = this;
+    private MethodInfo nextInNameSet = this;
+    private int nameSetSize = 1; // Only up to date for representatives
 
     public MethodInfo(ClassInfo owner, String name, String descriptor, int access) {
         this.owner = owner;
-        this.name = name;
-        this.descriptor = descriptor;
+        this.name = owner.symbols().intern(name);
+        this.descriptor = owner.symbols().intern(descriptor);
         this.access = access;
-
-        // Check which methods this method overrides
-        this.overrides = computeOverrides();
-
-        this.nameSet = new HashSet<>();
-        this.nameSet.add(this);
     }
 
     public ClassInfo owner() {
@@ -32,23 +36,93 @@ public class MethodInfo {
     }
 
     public String name() {
-        return name;
+        return owner.symbols().get(name);
     }
 
     public String descriptor() {
+        return owner.symbols().get(descriptor);
+    }
+
+    /**
+     * The id of the name in the {@link SymbolTable} of the owner.
+     */
+    public int nameId() {
+        return name;
+    }
+
+    /**
+     * The id of the descriptor in the {@link SymbolTable} of the owner.
+     */
+    public int descriptorId() {
         return descriptor;
     }
 
+    // The name and descriptor ids, identifying the method within its class
+    long signature() {
+        return signature(name, descriptor);
+    }
+
+    static long signature(int nameId, int descriptorId) {
+        return (long) nameId << 32 | descriptorId & 0xFFFFFFFFL;
+    }
+
+    /**
+     * The methods this method overrides, directly or indirectly. Only available after the owner has been finished.
+     */
     public Set<MethodInfo> overrides() {
+        if (overrides == null) {
+            throw new IllegalStateException("The overrides of " + getFullName() + " aren't known before its class is finished");
+        }
+
         return overrides;
     }
 
+    /**
+     * Creates a set containing all methods of this method's name set.
+     * Use {@link #nameSetRepresentative()} to check whether methods share a name set.
+     */
     public Set<MethodInfo> nameSet() {
+        ArraySet<MethodInfo> nameSet = new ArraySet<>(nameSetSize());
+        MethodInfo method = this;
+        do {
+            nameSet.append(method);
+            method = method.nextInNameSet;
+        } while (method != this);
+
         return nameSet;
     }
 
+    /**
+     * The next method of this method's name set. Following this from any method visits every member
+     * of the set once, before returning to the method it started at.
+     */
+    public MethodInfo nextInNameSet() {
+        return nextInNameSet;
+    }
+
+    public int nameSetSize() {
+        return nameSetRepresentative().nameSetSize;
+    }
+
+    /**
+     * Returns the method representing this method's name set, which is the same for all methods in the set.
+     * The representative may change when name sets are merged.
+     */
+    public MethodInfo nameSetRepresentative() {
+        // Path halving: every visited method is pointed to its grandparent.
+        // This only moves methods closer to their representative, so it's also safe once merging is done.
+        MethodInfo method = this;
+        while (method.nameSetParent != method) {
+            MethodInfo grandParent = method.nameSetParent.nameSetParent;
+            method.nameSetParent = grandParent;
+            method = grandParent;
+        }
+
+        return method;
+    }
+
     public String getFullName() {
-        return owner.name() + "/" + name + descriptor;
+        return owner.name() + "/" + name() + descriptor();
     }
 
     public boolean isStatic() {
@@ -68,9 +142,26 @@ public class MethodInfo {
     }
 
     public void mergeNameSetWith(MethodInfo methodInfo) {
-        for (MethodInfo method : methodInfo.nameSet) {
-            this.nameSet.add(method);
-            method.nameSet = this.nameSet;
+        synchronized (NAME_SET_LOCK) {
+            MethodInfo representative = this.nameSetRepresentative();
+            MethodInfo otherRepresentative = methodInfo.nameSetRepresentative();
+            if (representative == otherRepresentative) {
+                return;
+            }
+
+            // Union by size: the smaller set is attached to the bigger one
+            if (representative.nameSetSize < otherRepresentative.nameSetSize) {
+                MethodInfo swap = representative;
+                representative = otherRepresentative;
+                otherRepresentative = swap;
+            }
+            otherRepresentative.nameSetParent = representative;
+            representative.nameSetSize += otherRepresentative.nameSetSize;
+
+            // Swapping the successors of two members joins their circular lists
+            MethodInfo next = this.nextInNameSet;
+            this.nextInNameSet = methodInfo.nextInNameSet;
+            methodInfo.nextInNameSet = next;
         }
     }
 
@@ -78,20 +169,24 @@ public class MethodInfo {
         return access;
     }
 
-    private Set<MethodInfo> computeOverrides() {
-        Set<MethodInfo> overrides = new HashSet<>();
+    // Checks which methods this method overrides, called when the owner is finished
+    void computeOverrides() {
+        this.overrides = Collections.emptySet();
 
         // Static methods can't override
         if (this.isStatic()) {
-            return overrides;
+            return;
         }
 
         // Private methods can't override
         if (this.isPrivate()) {
-            return overrides;
+            return;
         }
 
-        // Recursively check super classes
+        Set<MethodInfo> overrides = new HashSet<>();
+
+        // Recursively check super classes, each super class only needs to be checked once
+        Set<ClassInfo> checked = new HashSet<>(owner.superClasses());
         Set<ClassInfo> superToCheck = new HashSet<>(owner.superClasses());
         while (!superToCheck.isEmpty()) {
             Set<ClassInfo> currentSupers = new HashSet<>(superToCheck);
@@ -99,15 +194,13 @@ public class MethodInfo {
 
             for (ClassInfo superClass : currentSupers) {
                 // Check for properly named method in super class
-                MethodInfo superMethod = superClass.methods().stream()
-                        .filter(m -> m.name.equals(name) && m.descriptor.equals(descriptor))
-                        .findFirst().orElse(null);
+                MethodInfo superMethod = superClass.getMethod(name, descriptor);
 
                 // Only allow instance methods
                 if (superMethod != null && !superMethod.isStatic()) {
                     // Can override public and protected methods, and non-private methods in same package
                     if (superMethod.isPublic() || superMethod.isProtected() ||
-                            !superMethod.isPrivate() && owner.getPackage().equals(superClass.getPackage())) {
+                            !superMethod.isPrivate() && owner.isInSamePackage(superClass)) {
                         // Direct override
                         overrides.add(superMethod);
 
@@ -120,10 +213,18 @@ public class MethodInfo {
                 }
 
                 // If no match, check in super classes
-                superToCheck.addAll(superClass.superClasses());
+                for (ClassInfo superSuperClass : superClass.superClasses()) {
+                    if (checked.add(superSuperClass)) {
+                        superToCheck.add(superSuperClass);
+                    }
+                }
             }
         }
 
-        return overrides;
+        if (!overrides.isEmpty()) {
+            ArraySet<MethodInfo> overrideArray = new ArraySet<>(overrides.size());
+            overrides.forEach(overrideArray::append);
+            this.overrides = overrideArray;
+        }
     }
 }
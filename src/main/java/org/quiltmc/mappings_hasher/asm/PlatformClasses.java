@@ -0,0 +1,167 @@
+package org.quiltmc.mappings_hasher.asm;
+
+import org.objectweb.asm.ClassReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * The classes of a java platform, read from the {@code jrt:/} file system of a JDK image (java 9+),
+ * or from the {@code rt.jar} of older JDKs.
+ *
+ * <p>On creation, the packages of the image are indexed by the module containing them, so a class is found with
+ * a single lookup instead of a class loader resource lookup. Parsed classes are cached by the {@link HierarchyCache}
+ * under the {@link #key()} of the platform.
+ */
+public final class PlatformClasses implements ClassSource {
+    private static PlatformClasses runtime;
+
+    private final String key;
+    private final ClassSource source;
+
+    private PlatformClasses(String key, ClassSource source) {
+        this.key = key;
+        this.source = source;
+    }
+
+    /**
+     * The classes of the JDK running this program.
+     */
+    public static synchronized PlatformClasses runtime() {
+        if (runtime == null) {
+            Path javaHome = Paths.get(System.getProperty("java.home"));
+            String key = "jdk-" + System.getProperty("java.vendor") + "-" + System.getProperty("java.runtime.version");
+            try {
+                try {
+                    runtime = new PlatformClasses(key, JrtSource.open(FileSystems.getFileSystem(URI.create("jrt:/"))));
+                }
+                catch (ProviderNotFoundException | FileSystemNotFoundException exception) {
+                    // Java 8, java.home points to the jre directory
+                    runtime = new PlatformClasses(key, JarIndex.open(javaHome.resolve("lib").resolve("rt.jar")));
+                }
+            }
+            catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        return runtime;
+    }
+
+    /**
+     * The classes of the JDK image at the given path, independent of the JDK running this program.
+     */
+    public static PlatformClasses of(Path javaHome) throws IOException {
+        String key = "jdk-" + readKey(javaHome);
+
+        if (Files.exists(javaHome.resolve("lib").resolve("modules"))) {
+            Map<String, String> env = Collections.singletonMap("java.home", javaHome.toString());
+            FileSystem fileSystem;
+            try {
+                fileSystem = FileSystems.newFileSystem(URI.create("jrt:/"), env);
+            }
+            catch (ProviderNotFoundException exception) {
+                // Running on java 8, the image's own jrt file system provider is used instead
+                URLClassLoader loader = new URLClassLoader(new URL[] { javaHome.resolve("lib").resolve("jrt-fs.jar").toUri().toURL() });
+                fileSystem = FileSystems.newFileSystem(URI.create("jrt:/"), env, loader);
+            }
+
+            return new PlatformClasses(key, JrtSource.open(fileSystem));
+        }
+
+        for (Path rtJar : Arrays.asList(javaHome.resolve("lib").resolve("rt.jar"), javaHome.resolve("jre").resolve("lib").resolve("rt.jar"))) {
+            if (Files.exists(rtJar)) {
+                return new PlatformClasses(key, JarIndex.open(rtJar));
+            }
+        }
+
+        throw new IOException("Not a JDK image: " + javaHome);
+    }
+
+    // Identifies the image by the vendor and version in its release file, or its location if it doesn't have one
+    private static String readKey(Path javaHome) throws IOException {
+        Path releaseFile = javaHome.resolve("release");
+        if (!Files.exists(releaseFile)) {
+            releaseFile = javaHome.getParent() != null ? javaHome.getParent().resolve("release") : releaseFile;
+        }
+        if (!Files.exists(releaseFile)) {
+            return javaHome.toAbsolutePath().normalize().toString();
+        }
+
+        Properties release = new Properties();
+        try (InputStream input = Files.newInputStream(releaseFile)) {
+            release.load(input);
+        }
+
+        String vendor = unquote(release.getProperty("IMPLEMENTOR", "unknown"));
+        // Same as the key of the running JDK, if this is its image
+        String version = unquote(release.getProperty("JAVA_RUNTIME_VERSION", release.getProperty("JAVA_VERSION", "unknown")));
+        return vendor + "-" + version;
+    }
+
+    private static String unquote(String value) {
+        return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"") ? value.substring(1, value.length() - 1) : value;
+    }
+
+    /**
+     * Identifies this platform for the {@link HierarchyCache}.
+     */
+    public String key() {
+        return key;
+    }
+
+    @Override
+    public boolean accept(String className, org.objectweb.asm.ClassVisitor visitor) throws IOException {
+        return source.accept(className, visitor);
+    }
+
+    // Classes of a jrt file system, located through the index of packages to modules
+    private static class JrtSource implements ClassSource {
+        private final Path modules;
+        private final Map<String, String> packageToModule;
+
+        private JrtSource(Path modules, Map<String, String> packageToModule) {
+            this.modules = modules;
+            this.packageToModule = packageToModule;
+        }
+
+        static JrtSource open(FileSystem fileSystem) throws IOException {
+            // "/packages/<package>/<module>" links each package to the modules containing it
+            Map<String, String> packageToModule = new HashMap<>();
+            try (DirectoryStream<Path> packages = Files.newDirectoryStream(fileSystem.getPath("/packages"))) {
+                for (Path packageDir : packages) {
+                    try (DirectoryStream<Path> modules = Files.newDirectoryStream(packageDir)) {
+                        for (Path module : modules) {
+                            packageToModule.putIfAbsent(packageDir.getFileName().toString().replace('.', '/'), module.getFileName().toString());
+                        }
+                    }
+                }
+            }
+
+            return new JrtSource(fileSystem.getPath("/modules"), packageToModule);
+        }
+
+        @Override
+        public boolean accept(String className, org.objectweb.asm.ClassVisitor visitor) throws IOException {
+            int index = className.lastIndexOf('/');
+            String module = packageToModule.get(index == -1 ? "" : className.substring(0, index));
+            if (module == null) {
+                return false;
+            }
+
+            Path classFile = modules.resolve(module).resolve(className + ".class");
+            if (!Files.exists(classFile)) {
+                return false;
+            }
+
+            new ClassReader(Files.readAllBytes(classFile)).accept(visitor, ClassResolver.READER_FLAGS);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.quiltmc.mappings_hasher.asm;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interns names and descriptors as int ids, so each distinct string is only stored once.
+ * Most descriptors (e.g. "()V") are shared by a large number of members.
+ *
+ * <p>Each {@link ClassResolver} has its own table, which its forks share, so the symbols of a version are collected
+ * together with its classes. The ids of the classes sharing a table are assigned by the table as well.
+ */
+public final class SymbolTable {
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    // Symbols are stored in fixed size pages, so existing pages never move and can be read without locking.
+    // A symbol is written before its id is published through the id map.
+    private volatile String[][] pages = new String[16][];
+    private int size;
+
+    private final AtomicInteger nextClassId = new AtomicInteger();
+
+    /**
+     * Returns the id of the given symbol, adding it if it isn't known yet.
+     */
+    public int intern(String symbol) {
+        Integer id = ids.get(symbol);
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (this) {
+            id = ids.get(symbol);
+            if (id != null) {
+                return id;
+            }
+
+            int newId = size++;
+            String[][] pages = this.pages;
+            int page = newId >>> PAGE_BITS;
+            if (page == pages.length) {
+                pages = Arrays.copyOf(pages, pages.length * 2);
+            }
+            if (pages[page] == null) {
+                pages[page] = new String[PAGE_SIZE];
+            }
+            pages[page][newId & (PAGE_SIZE - 1)] = symbol;
+            this.pages = pages;
+
+            ids.put(symbol, newId);
+            return newId;
+        }
+    }
+
+    /**
+     * Returns the id of the given symbol, or -1 if it isn't known, without adding it.
+     */
+    public int find(String symbol) {
+        Integer id = ids.get(symbol);
+        return id != null ? id : -1;
+    }
+
+    public String get(int id) {
+        return pages[id >>> PAGE_BITS][id & (PAGE_SIZE - 1)];
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    // Ids of the classes using this table, in creation order
+    int nextClassId() {
+        return nextClassId.getAndIncrement();
+    }
+}
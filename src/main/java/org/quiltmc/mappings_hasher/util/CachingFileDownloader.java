@@ -7,6 +7,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+/**
+ * @deprecated doesn't verify downloads, use {@link DownloadManager} instead
+ */
+@Deprecated
 public class CachingFileDownloader extends FileDownloader {
     private final Path cacheDir;
 
@@ -0,0 +1,348 @@
+package org.quiltmc.mappings_hasher.util;
+
+import org.quiltmc.launchermeta.version.v1.DownloadableFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * Downloads files on a bounded number of threads, verifying their SHA-1 hash while they are downloaded.
+ *
+ * <p>Files are stored as {@code <sha1>/<name>} in the cache directory. Files already in the cache are verified
+ * before they are used and downloaded again if they don't match. Each file is only downloaded once,
+ * even if it's requested multiple times.
+ *
+ * <p>Downloads are written straight into the cache directory through file channels, as {@code <name>.part} files
+ * that are renamed once verified. Interrupted downloads are resumed from their partial file.
+ */
+public class DownloadManager implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+    private static final long TRANSFER_SIZE = 1024 * 1024;
+    private static final int DEFAULT_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MILLIS = 500;
+    private static final int DEFAULT_TIMEOUT_MILLIS = 60 * 1000;
+
+    private final Path cacheDir;
+    private final int attempts;
+    private final int timeoutMillis;
+    private final ExecutorService executor;
+
+    // SHA-1 -> download, files shared by multiple versions are only downloaded once
+    private final ConcurrentMap<String, Future<Path>> downloads = new ConcurrentHashMap<>();
+
+    /**
+     * @param cacheDir the directory downloads are stored in, or null to download into a temporary directory,
+     *                 which is deleted when the JVM exits
+     * @param parallelism the maximum number of files downloaded at the same time
+     */
+    public DownloadManager(Path cacheDir, int parallelism) throws IOException {
+        this(cacheDir, parallelism, DEFAULT_ATTEMPTS);
+    }
+
+    public DownloadManager(Path cacheDir, int parallelism, int attempts) throws IOException {
+        this(cacheDir, parallelism, attempts, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param timeoutMillis the timeout for connecting and for each read, a stalled transfer fails the attempt
+     */
+    public DownloadManager(Path cacheDir, int parallelism, int attempts, int timeoutMillis) throws IOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        }
+        if (attempts < 1) {
+            throw new IllegalArgumentException("Attempts must be at least 1, got " + attempts);
+        }
+        if (timeoutMillis < 1) {
+            throw new IllegalArgumentException("Timeout must be at least 1 ms, got " + timeoutMillis);
+        }
+
+        if (cacheDir == null) {
+            // deleteOnExit can't delete directories that aren't empty, so the whole tree is deleted on exit
+            Path tempDir = Files.createTempDirectory("mappings-hasher");
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteTree(tempDir), "Delete downloads"));
+            cacheDir = tempDir;
+        }
+
+        this.cacheDir = cacheDir;
+        this.attempts = attempts;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "Download");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public Future<Path> submit(DownloadableFile file) {
+        return submit(file.getUrl(), file.getSha1());
+    }
+
+    /**
+     * Starts downloading a file, unless it's already downloaded or being downloaded.
+     * Failed downloads are forgotten, so submitting the file again retries it.
+     */
+    public Future<Path> submit(String url, String sha1) {
+        return downloads.computeIfAbsent(sha1.toLowerCase(Locale.ROOT), s -> executor.submit(() -> {
+            try {
+                return download(url, s);
+            }
+            catch (Exception e) {
+                // The entry is already in the map, removing it waits for computeIfAbsent to finish
+                downloads.remove(s);
+                throw e;
+            }
+        }));
+    }
+
+    public Path download(DownloadableFile file) throws IOException {
+        return get(submit(file));
+    }
+
+    /**
+     * Downloads all files concurrently, the paths are returned in the same order.
+     */
+    public List<Path> downloadAll(List<DownloadableFile> files) throws IOException {
+        List<Future<Path>> futures = new ArrayList<>();
+        for (DownloadableFile file : files) {
+            futures.add(submit(file));
+        }
+
+        List<Path> paths = new ArrayList<>();
+        for (Future<Path> future : futures) {
+            paths.add(get(future));
+        }
+
+        return paths;
+    }
+
+    /**
+     * Waits for a submitted download.
+     */
+    public static Path get(Future<Path> download) throws IOException {
+        try {
+            return download.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while downloading", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private Path download(String url, String sha1) throws IOException, InterruptedException {
+        String fileName = url.substring(url.lastIndexOf('/') + 1);
+        Path filePath = cacheDir.resolve(sha1).resolve(fileName);
+
+        if (Files.exists(filePath)) {
+            if (sha1.equals(sha1(filePath))) {
+                return filePath;
+            }
+
+            System.out.println("Cached file " + filePath + " is corrupt, downloading it again...");
+            Files.delete(filePath);
+        }
+
+        Files.createDirectories(filePath.getParent());
+        IOException failure = null;
+        for (int attempt = 1; attempt <= attempts; attempt++) {
+            try {
+                // Another process may have finished the download in the meantime
+                if (attempt > 1 && Files.exists(filePath) && sha1.equals(sha1(filePath))) {
+                    return filePath;
+                }
+
+                transfer(url, sha1, filePath, timeoutMillis);
+                return filePath;
+            }
+            catch (ClientErrorException e) {
+                // Requesting the file again won't change the answer
+                if (failure != null) {
+                    e.addSuppressed(failure);
+                }
+                throw e;
+            }
+            catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+                else {
+                    failure.addSuppressed(e);
+                }
+
+                if (attempt < attempts) {
+                    System.out.println("Failed to download " + url + " (" + e.getMessage() + "), retrying...");
+                    Thread.sleep(RETRY_DELAY_MILLIS * attempt);
+                }
+            }
+        }
+
+        throw failure;
+    }
+
+    // Downloads into a partial file next to the target, which is only moved into place once it's verified.
+    // Partial files of interrupted downloads are resumed with a range request.
+    private static void transfer(String url, String sha1, Path filePath, int timeoutMillis) throws IOException {
+        Path partFile = filePath.resolveSibling(filePath.getFileName() + ".part");
+        boolean verified = false;
+        try (FileChannel output = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileLock lock = output.tryLock()) {
+            if (lock == null) {
+                throw new IOException(partFile + " is being downloaded by another process");
+            }
+
+            long position = output.size();
+            URLConnection connection = new URL(url).openConnection();
+            connection.setConnectTimeout(timeoutMillis);
+            connection.setReadTimeout(timeoutMillis);
+            if (position > 0) {
+                connection.setRequestProperty("Range", "bytes=" + position + "-");
+            }
+
+            int status = connection instanceof HttpURLConnection ? ((HttpURLConnection) connection).getResponseCode() : HttpURLConnection.HTTP_OK;
+            if (status == HttpURLConnection.HTTP_OK) {
+                // The server sent the whole file
+                position = 0;
+                output.truncate(0);
+            }
+            else if (status != HttpURLConnection.HTTP_PARTIAL || !String.valueOf(connection.getHeaderField("Content-Range")).startsWith("bytes " + position + "-")) {
+                // Also covers unsatisfiable ranges, the next attempt starts over
+                output.truncate(0);
+                if (status >= 400 && status < 500 && status != HTTP_RANGE_NOT_SATISFIABLE) {
+                    throw new ClientErrorException("Server responded with " + status + " for " + url);
+                }
+                throw new IOException("Server responded with " + status + " for " + url);
+            }
+
+            // The hash covers the resumed part as well
+            MessageDigest digest = newDigest();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            for (long read = 0; read < position; ) {
+                buffer.clear();
+                int count = output.read(buffer, read);
+                if (count == -1) {
+                    break;
+                }
+                buffer.flip();
+                digest.update(buffer);
+                read += count;
+            }
+
+            try (ReadableByteChannel input = Channels.newChannel(new DigestInputStream(connection.getInputStream(), digest))) {
+                long count;
+                while ((count = output.transferFrom(input, position, TRANSFER_SIZE)) > 0) {
+                    position += count;
+                }
+            }
+
+            String actualSha1 = toHex(digest.digest());
+            if (!sha1.equals(actualSha1)) {
+                output.truncate(0);
+                throw new IOException("SHA-1 mismatch for " + url + ": expected " + sha1 + ", got " + actualSha1);
+            }
+
+            verified = true;
+        }
+        finally {
+            if (!verified && Files.exists(partFile) && Files.size(partFile) == 0) {
+                Files.deleteIfExists(partFile);
+            }
+        }
+
+        move(partFile, filePath);
+    }
+
+    private static void deleteTree(Path root) {
+        try (Stream<Path> paths = Files.walk(root)) {
+            // Children come after their parents, so they are deleted first in reverse order
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+        catch (IOException | UncheckedIOException e) {
+            System.err.println("Failed to delete downloads in " + root + ": " + e.getMessage());
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static String sha1(Path path) throws IOException {
+        MessageDigest digest = newDigest();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return hex.toString();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    // A request the server rejected, e.g. a missing file, which isn't retried
+    private static class ClientErrorException extends IOException {
+        private ClientErrorException(String message) {
+            super(message);
+        }
+    }
+}
@@ -7,6 +7,10 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
+/**
+ * @deprecated doesn't verify downloads, use {@link DownloadManager} instead
+ */
+@Deprecated
 public class FileDownloader {
     public Path download(DownloadableFile downloadableFile) throws IOException {
         URL url = new URL(downloadableFile.getUrl());
@@ -0,0 +1,224 @@
+package org.quiltmc.mappings_hasher.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The phase timings and counters of a run, e.g. of generating the mappings of one version.
+ *
+ * <p>Phases are recorded as JFR events when running on java 11 or newer, the counters once the run is
+ * {@link #commit() committed}. They can also be written as a JSON report. Recording is thread safe.
+ */
+public class Metrics {
+    public enum Phase {
+        DOWNLOAD,
+        MAPPINGS,
+        LIBRARIES,
+        EXTRACTION,
+        HASHING,
+        WRITE
+    }
+
+    public enum Counter {
+        // Classes read from the jar the mappings are generated for
+        JAR_CLASSES,
+        // Classes read from libraries, parsed or replayed from the hierarchy cache
+        LIBRARY_CLASSES,
+        // Classes parsed from the java platform
+        PLATFORM_CLASSES,
+        // Classes not found in any jar, which are looked up in the java platform
+        JDK_FALLBACKS,
+        // Library and platform classes read from the hierarchy cache, or parsed and added to it
+        CACHE_HITS,
+        CACHE_MISSES,
+        // Raw names hashed into hashed names
+        HASHES,
+        // Classes whose hashed names were reused from a previous result, as their fingerprint didn't change
+        REUSED_CLASSES,
+        // Distinct raw names hashed to the same name within a class or package
+        COLLISIONS
+    }
+
+    // Name set sizes are counted in buckets of powers of two: 1, 2, 3-4, 5-8, ..., the last bucket is open
+    public static final int NAME_SET_BUCKETS = 12;
+
+    private static final EventSink EVENTS = loadEventSink();
+
+    private final String run;
+    private final AtomicLongArray phaseNanos = new AtomicLongArray(Phase.values().length);
+    private final LongAdder[] counters = new LongAdder[Counter.values().length];
+    private final AtomicLongArray nameSetSizes = new AtomicLongArray(NAME_SET_BUCKETS);
+
+    public Metrics() {
+        this("");
+    }
+
+    /**
+     * @param run identifies the run in events and reports, e.g. the version id
+     */
+    public Metrics(String run) {
+        this.run = run;
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+    }
+
+    public String run() {
+        return run;
+    }
+
+    /**
+     * Starts timing a phase, the time until the returned timer is closed is added to the phase.
+     * Phases may be timed multiple times, e.g. for each chunk of classes.
+     *
+     * <p>Timers of the same phase on different threads overlap, their times are summed like CPU time. The
+     * chunks hashed in parallel, or the client and server hashers sharing one run, can take longer than the
+     * wall time of the run.
+     */
+    public PhaseTimer phase(Phase phase) {
+        return new PhaseTimer(phase, EVENTS != null ? EVENTS.beginPhase(run, phase.name()) : null);
+    }
+
+    public void increment(Counter counter) {
+        counters[counter.ordinal()].increment();
+    }
+
+    public void add(Counter counter, long value) {
+        counters[counter.ordinal()].add(value);
+    }
+
+    public void recordNameSetSize(int size) {
+        int bucket = size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+        nameSetSizes.incrementAndGet(Math.min(bucket, NAME_SET_BUCKETS - 1));
+    }
+
+    public long get(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    // Summed over all threads, see phase(Phase)
+    public long getNanos(Phase phase) {
+        return phaseNanos.get(phase.ordinal());
+    }
+
+    /**
+     * The number of name sets whose size is in the given bucket, see {@link #bucketMinSize(int)}.
+     */
+    public long getNameSetCount(int bucket) {
+        return nameSetSizes.get(bucket);
+    }
+
+    public static int bucketMinSize(int bucket) {
+        return bucket == 0 ? 1 : (1 << (bucket - 1)) + 1;
+    }
+
+    // -1 for the open last bucket
+    public static int bucketMaxSize(int bucket) {
+        return bucket == NAME_SET_BUCKETS - 1 ? -1 : 1 << bucket;
+    }
+
+    /**
+     * Records the counters as JFR events, once the run is done.
+     */
+    public void commit() {
+        if (EVENTS != null) {
+            EVENTS.commit(this);
+        }
+    }
+
+    public void writeReport(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeReport(writer);
+        }
+    }
+
+    public void writeReport(Writer writer) throws IOException {
+        writer.write("{\n  \"run\": " + quote(run) + ",\n  \"phaseMillis\": {");
+        for (Phase phase : Phase.values()) {
+            writer.write((phase.ordinal() == 0 ? "\n" : ",\n") + "    " + quote(key(phase))
+                    + ": " + String.format(Locale.ROOT, "%.3f", getNanos(phase) / 1e6));
+        }
+
+        writer.write("\n  },\n  \"counters\": {");
+        for (Counter counter : Counter.values()) {
+            writer.write((counter.ordinal() == 0 ? "\n" : ",\n") + "    " + quote(key(counter)) + ": " + get(counter));
+        }
+
+        writer.write("\n  },\n  \"nameSetSizes\": [");
+        for (int bucket = 0; bucket < NAME_SET_BUCKETS; bucket++) {
+            writer.write((bucket == 0 ? "\n" : ",\n") + "    { \"min\": " + bucketMinSize(bucket)
+                    + ", \"max\": " + (bucketMaxSize(bucket) == -1 ? "null" : String.valueOf(bucketMaxSize(bucket)))
+                    + ", \"count\": " + getNameSetCount(bucket) + " }");
+        }
+        writer.write("\n  ]\n}\n");
+    }
+
+    private static String key(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static String quote(String string) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            }
+            else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            }
+            else {
+                quoted.append(c);
+            }
+        }
+
+        return quoted.append('"').toString();
+    }
+
+    private static EventSink loadEventSink() {
+        try {
+            return (EventSink) Class.forName("org.quiltmc.mappings_hasher.jfr.JfrEventSink").getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException | LinkageError exception) {
+            // Java 8, or the events aren't on the classpath
+            return null;
+        }
+    }
+
+    public final class PhaseTimer implements AutoCloseable {
+        private final Phase phase;
+        private final Runnable event;
+        private final long start = System.nanoTime();
+
+        private PhaseTimer(Phase phase, Runnable event) {
+            this.phase = phase;
+            this.event = event;
+        }
+
+        @Override
+        public void close() {
+            phaseNanos.addAndGet(phase.ordinal(), System.nanoTime() - start);
+            if (event != null) {
+                event.run();
+            }
+        }
+    }
+
+    /**
+     * Records metrics as events, implemented with JFR in a separate source set, as JFR needs java 11.
+     */
+    public interface EventSink {
+        /**
+         * Starts the event of a phase, the returned callback commits it, or null if phase events are disabled.
+         */
+        Runnable beginPhase(String run, String phase);
+
+        void commit(Metrics metrics);
+    }
+}
@@ -0,0 +1,150 @@
+package org.quiltmc.mappings_hasher.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The server jar and its libraries. Since 1.18, the downloadable server jar is a bundler: the actual server jar and
+ * its libraries are nested in {@code META-INF/versions} and {@code META-INF/libraries}, listed in
+ * {@code META-INF/versions.list} and {@code META-INF/libraries.list}.
+ */
+public class ServerBundle {
+    private final Path jar;
+    private final List<Path> libraries;
+
+    private ServerBundle(Path jar, List<Path> libraries) {
+        this.jar = jar;
+        this.libraries = libraries;
+    }
+
+    /**
+     * Unpacks the server jar and its libraries into the given directory, files that were already unpacked are reused
+     * if their SHA-256 matches the list.
+     * Server jars that aren't bundlers are used as they are, their libraries are part of the jar.
+     */
+    public static ServerBundle unpack(Path serverJar, Path directory) throws IOException {
+        try (ZipFile zip = new ZipFile(serverJar.toFile())) {
+            if (zip.getEntry("META-INF/versions.list") == null) {
+                return new ServerBundle(serverJar, Collections.emptyList());
+            }
+
+            List<Path> jars = unpack(zip, "versions", directory);
+            if (jars.size() != 1) {
+                throw new IOException("Expected a single server jar in " + serverJar + ", found " + jars.size());
+            }
+
+            return new ServerBundle(jars.get(0), unpack(zip, "libraries", directory));
+        }
+    }
+
+    // Each line of a list is "<sha256>\t<id>\t<path>", the path is relative to the directory of the list
+    private static List<Path> unpack(ZipFile zip, String kind, Path directory) throws IOException {
+        ZipEntry list = zip.getEntry("META-INF/" + kind + ".list");
+        if (list == null) {
+            return Collections.emptyList();
+        }
+
+        Path kindDirectory = directory.resolve(kind).normalize();
+        List<Path> paths = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(zip.getInputStream(list), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+
+                String[] parts = line.split("\t");
+                if (parts.length != 3) {
+                    throw new IOException("Invalid line in " + list.getName() + ": " + line);
+                }
+
+                ZipEntry entry = zip.getEntry("META-INF/" + kind + "/" + parts[2]);
+                Path target = kindDirectory.resolve(parts[2]).normalize();
+                if (entry == null) {
+                    throw new IOException("Missing bundled file " + parts[2]);
+                }
+                if (!target.startsWith(kindDirectory)) {
+                    throw new IOException("Invalid bundled file path " + parts[2]);
+                }
+
+                // Files of the same size may still differ, e.g. if the bundle was updated in place
+                String sha256 = parts[0];
+                if (!Files.exists(target) || Files.size(target) != entry.getSize() || !sha256.equalsIgnoreCase(sha256(target))) {
+                    // Unpacked next to the target first, so interrupted runs don't leave a truncated file behind
+                    Files.createDirectories(target.getParent());
+                    Path partFile = target.resolveSibling(target.getFileName() + ".part");
+                    MessageDigest digest = newDigest();
+                    try (InputStream input = new DigestInputStream(zip.getInputStream(entry), digest)) {
+                        Files.copy(input, partFile, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    if (!sha256.equalsIgnoreCase(toHex(digest.digest()))) {
+                        Files.delete(partFile);
+                        throw new IOException("Bundled file " + parts[2] + " doesn't match its SHA-256 " + sha256);
+                    }
+                    Files.move(partFile, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                paths.add(target);
+            }
+        }
+
+        return paths;
+    }
+
+    private static String sha256(Path path) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream input = new DigestInputStream(Files.newInputStream(path), digest)) {
+            byte[] buffer = new byte[8192];
+            while (input.read(buffer) != -1) {
+                // Only read for the digest
+            }
+        }
+
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return hex.toString();
+    }
+
+    /**
+     * The jar containing the server classes.
+     */
+    public Path jar() {
+        return jar;
+    }
+
+    /**
+     * The bundled libraries, empty if the server jar isn't a bundler.
+     */
+    public List<Path> libraries() {
+        return libraries;
+    }
+}
@@ -0,0 +1,90 @@
+package org.quiltmc.mappings_hasher;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.quiltmc.mappings_hasher.asm.ClassResolver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.jar.JarOutputStream;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+
+public class ClassResolverTests {
+    private static final Pattern CYCLE = Pattern.compile("Cyclic class hierarchy: (a -> b -> a|b -> a -> b)$");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void rejects_cyclic_super_classes() throws IOException {
+        Path jar = writeJar(tempDir.resolve("cycle.jar"),
+                createClass("a", "b", Opcodes.ACC_PUBLIC),
+                createClass("b", "a", Opcodes.ACC_PUBLIC));
+
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class,
+                    () -> new ClassResolver(1).extractClassInfo(jar, c -> true));
+            Assertions.assertEquals("Cyclic class hierarchy: a -> b -> a", exception.getMessage());
+        });
+    }
+
+    @Test
+    public void rejects_cyclic_interfaces() throws IOException {
+        // The cycle doesn't include the first class that is read
+        Path jar = writeJar(tempDir.resolve("cycle.jar"),
+                createClass("a", "java/lang/Object", Opcodes.ACC_PUBLIC, "b"),
+                createClass("b", "java/lang/Object", Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT, "c"),
+                createClass("c", "java/lang/Object", Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT, "d"),
+                createClass("d", "java/lang/Object", Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT, "b"));
+
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class,
+                    () -> new ClassResolver(1).extractClassInfo(jar, c -> true));
+            Assertions.assertEquals("Cyclic class hierarchy: b -> c -> d -> b", exception.getMessage());
+        });
+    }
+
+    @Test
+    public void rejects_cycles_read_by_several_threads() throws IOException {
+        // Each thread starts with another class of the cycle, so they often wait for each other
+        Path jar = writeJar(tempDir.resolve("cycle.jar"),
+                createClass("a", "b", Opcodes.ACC_PUBLIC),
+                createClass("b", "a", Opcodes.ACC_PUBLIC));
+
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            for (int attempt = 0; attempt < 200; attempt++) {
+                IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class,
+                        () -> new ClassResolver(2).extractClassInfo(jar, c -> true));
+                // Exceptions of other threads may be wrapped by the fork join pool
+                Assertions.assertTrue(CYCLE.matcher(exception.getMessage()).find(), exception.getMessage());
+            }
+        });
+    }
+
+    private static ClassWriter createClass(String name, String superName, int access, String... interfaces) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, access, name, null, superName, interfaces);
+        writer.visitEnd();
+        return writer;
+    }
+
+    private static Path writeJar(Path path, ClassWriter... classes) throws IOException {
+        try (OutputStream output = Files.newOutputStream(path); JarOutputStream jar = new JarOutputStream(output)) {
+            for (ClassWriter writer : classes) {
+                byte[] bytes = writer.toByteArray();
+                jar.putNextEntry(new ZipEntry(new org.objectweb.asm.ClassReader(bytes).getClassName() + ".class"));
+                jar.write(bytes);
+                jar.closeEntry();
+            }
+        }
+
+        return path;
+    }
+}
@@ -0,0 +1,77 @@
+package org.quiltmc.mappings_hasher;
+
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+public class CollisionDetectorTests {
+    @Test
+    public void suffix_value() {
+        Assertions.assertEquals(0, CollisionDetector.suffixValue("C_aaaaaaaa"));
+        Assertions.assertEquals(27, CollisionDetector.suffixValue("net/example/unmapped/C_aaaaaabb"));
+        Assertions.assertEquals(208827064575L, CollisionDetector.suffixValue("m_zzzzzzzz"));
+    }
+
+    @Test
+    public void checks_members_per_class() {
+        CollisionDetector detector = new CollisionDetector();
+
+        CollisionDetector.MemberScope scope = detector.memberScope("a");
+        scope.checkMethod("m_abcdefgh", "m;Foo.tick;");
+        // The same raw name, e.g. methods of one name set
+        scope.checkMethod("m_abcdefgh", "m;Foo.tick;");
+        // Methods and fields are named differently
+        scope.checkField("f_abcdefgh", "f;Foo.count;");
+        scope.checkMethod("m_abcdefgh", "m;Foo.tock;");
+
+        // Another class is another scope
+        scope = detector.memberScope("b");
+        scope.checkMethod("m_abcdefgh", "m;Bar.tock;");
+
+        List<CollisionDetector.Collision> collisions = detector.collisions();
+        Assertions.assertEquals(1, collisions.size());
+        Assertions.assertEquals("class a", collisions.get(0).scope());
+        Assertions.assertEquals("m;Foo.tick;", collisions.get(0).rawName());
+        Assertions.assertEquals("m;Foo.tock;", collisions.get(0).otherRawName());
+    }
+
+    @Test
+    public void checks_classes_per_package() {
+        CollisionDetector detector = new CollisionDetector();
+        detector.checkClass("a", "net/example/unmapped/C_abcdefgh", "Foo");
+        detector.checkClass("b", "net/example/other/C_abcdefgh", "Bar");
+        detector.checkClass("a$a", "C_abcdefgh", "Foo$Inner");
+        detector.checkClass("b$a", "C_abcdefgh", "Bar$Inner");
+        Assertions.assertEquals(0, detector.collisions().size());
+
+        detector.checkClass("c", "net/example/unmapped/C_abcdefgh", "Baz");
+        detector.checkClass("a$b", "C_abcdefgh", "Foo$Other");
+        List<CollisionDetector.Collision> collisions = detector.collisions();
+        Assertions.assertEquals(2, collisions.size());
+        Assertions.assertEquals("package net/example/unmapped", collisions.get(0).scope());
+        Assertions.assertEquals("class a", collisions.get(1).scope());
+    }
+
+    @Test
+    public void large_scopes() {
+        CollisionDetector detector = new CollisionDetector();
+        NameHasher hasher = new NameHasher();
+        for (int round = 0; round < 2; round++) {
+            // Reused scopes start empty
+            CollisionDetector.MemberScope scope = detector.memberScope("a");
+            for (int i = 0; i < 5000; i++) {
+                String rawName = "f;Foo.field" + i + ";";
+                scope.checkField("f_" + hasher.hash(rawName), rawName);
+            }
+        }
+        Assertions.assertEquals(0, detector.collisions().size());
+
+        CollisionDetector.MemberScope scope = detector.memberScope("a");
+        for (int i = 0; i < 5000; i++) {
+            String rawName = "f;Foo.field" + i + ";";
+            scope.checkField("f_" + hasher.hash(rawName), rawName);
+            scope.checkField("f_" + hasher.hash(rawName), "f;Bar.field" + i + ";");
+        }
+        Assertions.assertEquals(5000, detector.collisions().size());
+    }
+}
@@ -0,0 +1,264 @@
+package org.quiltmc.mappings_hasher;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.mappings_hasher.util.DownloadManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+public class DownloadManagerTests {
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    // The number of requests per file that fail before the file is served
+    private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+    // The number of requests per file that are cut off after half of the file
+    private final Map<String, Integer> interruptions = new ConcurrentHashMap<>();
+    // The number of requests per file that stall before sending anything
+    private final Map<String, Integer> stalls = new ConcurrentHashMap<>();
+    private final List<String> ranges = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            int request = requests.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+            byte[] content = files.get(path);
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            if (range != null) {
+                ranges.add(range);
+            }
+
+            if (request <= stalls.getOrDefault(path, 0)) {
+                try {
+                    Thread.sleep(2000);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.close();
+                return;
+            }
+
+            if (content == null || request <= failures.getOrDefault(path, 0)) {
+                exchange.sendResponseHeaders(content == null ? 404 : 500, -1);
+            }
+            else if (request <= interruptions.getOrDefault(path, 0)) {
+                // Failing the exchange closes the connection before the whole (chunked) file is sent
+                exchange.sendResponseHeaders(200, 0);
+                exchange.getResponseBody().write(content, 0, content.length / 2);
+                exchange.getResponseBody().flush();
+                throw new IOException("Interrupted");
+            }
+            else if (range != null) {
+                int start = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+                exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + (content.length - 1) + "/" + content.length);
+                exchange.sendResponseHeaders(206, content.length - start);
+                try (OutputStream output = exchange.getResponseBody()) {
+                    output.write(content, start, content.length - start);
+                }
+            }
+            else {
+                exchange.sendResponseHeaders(200, content.length);
+                try (OutputStream output = exchange.getResponseBody()) {
+                    output.write(content);
+                }
+            }
+            exchange.close();
+        });
+        // Stalled requests don't block the others
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void downloads_each_file_once() throws IOException {
+        List<String> sha1s = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            sha1s.add(serve("/files/library-" + i + ".jar", "library " + i));
+        }
+
+        try (DownloadManager downloads = new DownloadManager(tempDir, 4)) {
+            List<Future<Path>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(downloads.submit(url("/files/library-" + i + ".jar"), sha1s.get(i)));
+                // Requested again, e.g. by another version
+                futures.add(downloads.submit(url("/files/library-" + i + ".jar"), sha1s.get(i)));
+            }
+
+            for (int i = 0; i < 16; i++) {
+                Path path = DownloadManager.get(futures.get(i * 2));
+                Assertions.assertSame(path, DownloadManager.get(futures.get(i * 2 + 1)));
+                Assertions.assertEquals(tempDir.resolve(sha1s.get(i)).resolve("library-" + i + ".jar"), path);
+                Assertions.assertEquals("library " + i, new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+                Assertions.assertEquals(1, requests.get("/files/library-" + i + ".jar").get());
+            }
+        }
+
+        // Verified cached files aren't downloaded again
+        try (DownloadManager downloads = new DownloadManager(tempDir, 4)) {
+            DownloadManager.get(downloads.submit(url("/files/library-0.jar"), sha1s.get(0)));
+            Assertions.assertEquals(1, requests.get("/files/library-0.jar").get());
+        }
+    }
+
+    @Test
+    public void retries_failed_transfers() throws IOException {
+        String sha1 = serve("/client.jar", "client");
+        failures.put("/client.jar", 2);
+
+        try (DownloadManager downloads = new DownloadManager(tempDir, 1, 3)) {
+            Path path = DownloadManager.get(downloads.submit(url("/client.jar"), sha1));
+            Assertions.assertEquals("client", new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+            Assertions.assertEquals(3, requests.get("/client.jar").get());
+        }
+    }
+
+    @Test
+    public void retries_failed_downloads_when_submitted_again() throws IOException {
+        String sha1 = serve("/client.jar", "client");
+        failures.put("/client.jar", 2);
+
+        try (DownloadManager downloads = new DownloadManager(tempDir, 1, 1)) {
+            Assertions.assertThrows(IOException.class, () -> DownloadManager.get(downloads.submit(url("/client.jar"), sha1)));
+            Assertions.assertThrows(IOException.class, () -> DownloadManager.get(downloads.submit(url("/client.jar"), sha1)));
+
+            // Hashes are compared in lower case
+            Path path = DownloadManager.get(downloads.submit(url("/client.jar"), sha1.toUpperCase(Locale.ROOT)));
+            Assertions.assertEquals(tempDir.resolve(sha1).resolve("client.jar"), path);
+            Assertions.assertSame(path, DownloadManager.get(downloads.submit(url("/client.jar"), sha1)));
+            Assertions.assertEquals(3, requests.get("/client.jar").get());
+        }
+    }
+
+    @Test
+    public void fails_missing_files_without_retrying() throws IOException {
+        try (DownloadManager downloads = new DownloadManager(tempDir, 1, 3)) {
+            IOException exception = Assertions.assertThrows(IOException.class,
+                    () -> DownloadManager.get(downloads.submit(url("/missing.jar"), sha1("missing"))));
+            Assertions.assertTrue(exception.getMessage().contains("404"), exception.getMessage());
+            Assertions.assertEquals(1, requests.get("/missing.jar").get());
+        }
+    }
+
+    @Test
+    public void retries_stalled_transfers() throws IOException {
+        String sha1 = serve("/client.jar", "client");
+        stalls.put("/client.jar", 1);
+
+        try (DownloadManager downloads = new DownloadManager(tempDir, 1, 2, 200)) {
+            Path path = DownloadManager.get(downloads.submit(url("/client.jar"), sha1));
+            Assertions.assertEquals("client", new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+            Assertions.assertEquals(2, requests.get("/client.jar").get());
+        }
+    }
+
+    @Test
+    public void resumes_interrupted_transfers() throws IOException {
+        byte[] content = new byte[3 * 1024 * 1024];
+        new Random(0).nextBytes(content);
+        files.put("/client.jar", content);
+        String sha1 = sha1(content);
+        interruptions.put("/client.jar", 1);
+
+        try (DownloadManager downloads = new DownloadManager(tempDir, 1, 2)) {
+            Path path = DownloadManager.get(downloads.submit(url("/client.jar"), sha1));
+            Assertions.assertArrayEquals(content, Files.readAllBytes(path));
+            Assertions.assertEquals(2, requests.get("/client.jar").get());
+        }
+
+        // Only the missing part was requested again
+        Assertions.assertEquals(1, ranges.size());
+        int start = Integer.parseInt(ranges.get(0).substring("bytes=".length(), ranges.get(0).length() - 1));
+        Assertions.assertTrue(start > 0 && start <= content.length / 2, ranges.get(0));
+        Assertions.assertFalse(Files.exists(tempDir.resolve(sha1).resolve("client.jar.part")));
+    }
+
+    @Test
+    public void rejects_mismatching_files() throws IOException {
+        serve("/client.jar", "tampered");
+        String sha1 = sha1("client");
+
+        try (DownloadManager downloads = new DownloadManager(tempDir, 1, 2)) {
+            IOException exception = Assertions.assertThrows(IOException.class,
+                    () -> DownloadManager.get(downloads.submit(url("/client.jar"), sha1)));
+            Assertions.assertTrue(exception.getMessage().contains("SHA-1 mismatch"), exception.getMessage());
+            Assertions.assertEquals(2, requests.get("/client.jar").get());
+        }
+
+        // Neither the file nor partial downloads are left behind
+        try (Stream<Path> cachedFiles = Files.list(tempDir.resolve(sha1))) {
+            Assertions.assertEquals(0, cachedFiles.count());
+        }
+    }
+
+    @Test
+    public void replaces_corrupt_cached_files() throws IOException {
+        String sha1 = serve("/client.jar", "client");
+        Path cachedPath = tempDir.resolve(sha1).resolve("client.jar");
+        Files.createDirectories(cachedPath.getParent());
+        Files.write(cachedPath, "corrupt".getBytes(StandardCharsets.UTF_8));
+
+        try (DownloadManager downloads = new DownloadManager(tempDir, 1)) {
+            Path path = DownloadManager.get(downloads.submit(url("/client.jar"), sha1));
+            Assertions.assertEquals(cachedPath, path);
+            Assertions.assertEquals("client", new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+            Assertions.assertEquals(1, requests.get("/client.jar").get());
+        }
+    }
+
+    private String serve(String path, String content) {
+        files.put(path, content.getBytes(StandardCharsets.UTF_8));
+        return sha1(content);
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static String sha1(String content) {
+        return sha1(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha1(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(content);
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.quiltmc.mappings_hasher;
+
+import org.cadixdev.bombe.type.signature.FieldSignature;
+import org.cadixdev.lorenz.MappingSet;
+import org.junit.jupiter.api.*;
+import org.objectweb.asm.Opcodes;
+import org.quiltmc.mappings_hasher.asm.ClassInfo;
+import org.quiltmc.mappings_hasher.asm.FieldInfo;
+import org.quiltmc.mappings_hasher.asm.MethodInfo;
+import org.quiltmc.mappings_hasher.asm.SymbolTable;
+
+import java.util.*;
+
+public class HashedNameProviderTests {
+    private final SymbolTable symbols = new SymbolTable();
+
+    @Test
+    public void large_name_set() {
+        int interfaceCount = 1000;
+        MappingSet mappings = MappingSet.create();
+        Set<ClassInfo> classes = new HashSet<>();
+
+        // Many interfaces declaring the same method, all implemented by a single class
+        ClassInfo implementation = new ClassInfo(symbols, "c", Opcodes.ACC_PUBLIC);
+        List<MethodInfo> topLevelMethods = new ArrayList<>();
+        for (int i = 0; i < interfaceCount; i++) {
+            ClassInfo anInterface = new ClassInfo(symbols, "i" + i, Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT);
+            MethodInfo method = new MethodInfo(anInterface, "a", "()V", Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT);
+            anInterface.methods().add(method);
+            anInterface.finish();
+
+            implementation.superClasses().add(anInterface);
+            classes.add(anInterface);
+            topLevelMethods.add(method);
+
+            // Numbered backwards, so the name source isn't the first interface
+            mappings.getOrCreateClassMapping(anInterface.name()).setDeobfuscatedName("net/example/Interface" + (interfaceCount - i));
+            mappings.getOrCreateClassMapping(anInterface.name()).createMethodMapping("a", "()V").setDeobfuscatedName("tick");
+        }
+
+        MethodInfo override = new MethodInfo(implementation, "a", "()V", Opcodes.ACC_PUBLIC);
+        implementation.methods().add(override);
+        implementation.finish();
+        classes.add(implementation);
+        mappings.getOrCreateClassMapping(implementation.name()).setDeobfuscatedName("net/example/Implementation");
+        mappings.getOrCreateClassMapping(implementation.name()).createMethodMapping("a", "()V").setDeobfuscatedName("tick");
+
+        Assertions.assertEquals(interfaceCount + 1, override.nameSet().size());
+
+        HashedNameProvider nameProvider = new HashedNameProvider(classes, mappings, "net/example/unmapped");
+
+        // Raw name: "m;Interface1.tick;"
+        for (MethodInfo method : topLevelMethods) {
+            Assertions.assertEquals(Optional.of("m_towaqeuy"), nameProvider.getMethodName(method));
+        }
+        Assertions.assertEquals(Optional.empty(), nameProvider.getMethodName(override));
+    }
+
+    @Test
+    public void reports_all_missing_mappings() {
+        MappingSet mappings = MappingSet.create();
+        Set<ClassInfo> classes = new HashSet<>();
+
+        ClassInfo mapped = new ClassInfo(symbols, "a", Opcodes.ACC_PUBLIC);
+        mapped.methods().add(new MethodInfo(mapped, "a", "()V", Opcodes.ACC_PUBLIC));
+        mapped.methods().add(new MethodInfo(mapped, "b", "()V", Opcodes.ACC_PUBLIC));
+        mapped.fields().add(new FieldInfo(mapped, "a", "I"));
+        mapped.finish();
+        classes.add(mapped);
+        mappings.getOrCreateClassMapping("a").setDeobfuscatedName("net/example/Foo");
+        mappings.getOrCreateClassMapping("a").createMethodMapping("a", "()V").setDeobfuscatedName("tick");
+
+        ClassInfo unmapped = new ClassInfo(symbols, "b", Opcodes.ACC_PUBLIC);
+        unmapped.finish();
+        classes.add(unmapped);
+
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class,
+                () -> new HashedNameProvider(classes, mappings, "net/example/unmapped"));
+        Assertions.assertEquals("Missing mappings for 3 entries:\n\tclass b\n\tfield a/a:I\n\tmethod a/b()V", exception.getMessage());
+    }
+
+    @Test
+    public void names_classes_outside_the_set() {
+        MappingSet mappings = MappingSet.create();
+        ClassInfo provided = new ClassInfo(symbols, "a", Opcodes.ACC_PUBLIC);
+        provided.finish();
+        mappings.getOrCreateClassMapping("a").setDeobfuscatedName("net/example/Foo");
+
+        // E.g. the owners of overridden methods which were filtered out
+        ClassInfo sameSimpleName = new ClassInfo(symbols, "b", Opcodes.ACC_PUBLIC);
+        sameSimpleName.finish();
+        mappings.getOrCreateClassMapping("b").setDeobfuscatedName("net/example/other/Foo");
+        ClassInfo otherSimpleName = new ClassInfo(symbols, "c", Opcodes.ACC_PUBLIC);
+        otherSimpleName.finish();
+        mappings.getOrCreateClassMapping("c").setDeobfuscatedName("net/example/Bar");
+        ClassInfo notObfuscated = new ClassInfo(symbols, "net/example/Api", Opcodes.ACC_PUBLIC);
+        notObfuscated.finish();
+        mappings.getOrCreateClassMapping("net/example/Api").setDeobfuscatedName("net/example/Api");
+
+        HashedNameProvider nameProvider = new HashedNameProvider(Collections.singleton(provided), mappings, "net/example/unmapped");
+        Assertions.assertEquals("Foo", nameProvider.getRawClassName(provided));
+        // Only the provided classes count, so the simple name is still unique
+        Assertions.assertEquals("Foo", nameProvider.getRawClassName(sameSimpleName));
+        Assertions.assertEquals("net/example/Api", nameProvider.getRawClassName(notObfuscated));
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class, () -> nameProvider.getRawClassName(otherSimpleName));
+        Assertions.assertTrue(exception.getMessage().startsWith("Can't name class c (net/example/Bar)"), exception.getMessage());
+    }
+
+    @Test
+    public void includes_descriptors_of_duplicate_names() {
+        MappingSet mappings = MappingSet.create();
+
+        // Outside the provided set, e.g. a filtered out library interface whose method is overridden
+        ClassInfo anInterface = new ClassInfo(symbols, "net/example/Ticker", Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT);
+        MethodInfo interfaceMethod = new MethodInfo(anInterface, "a", "()V", Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT);
+        MethodInfo interfaceOverload = new MethodInfo(anInterface, "b", "(I)V", Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT);
+        anInterface.methods().add(interfaceMethod);
+        anInterface.methods().add(interfaceOverload);
+        anInterface.finish();
+        mappings.getOrCreateClassMapping("net/example/Ticker").setDeobfuscatedName("net/example/Ticker");
+        mappings.getOrCreateClassMapping("net/example/Ticker").createMethodMapping("a", "()V").setDeobfuscatedName("tick");
+        mappings.getOrCreateClassMapping("net/example/Ticker").createMethodMapping("b", "(I)V").setDeobfuscatedName("tick");
+
+        // Overloads and fields that only differ in their descriptor, next to unique names
+        ClassInfo clazz = new ClassInfo(symbols, "b", Opcodes.ACC_PUBLIC);
+        clazz.superClasses().add(anInterface);
+        MethodInfo method = new MethodInfo(clazz, "a", "()V", Opcodes.ACC_PUBLIC);
+        MethodInfo overload = new MethodInfo(clazz, "b", "(I)V", Opcodes.ACC_PUBLIC);
+        MethodInfo unique = new MethodInfo(clazz, "c", "()V", Opcodes.ACC_PUBLIC);
+        clazz.methods().add(method);
+        clazz.methods().add(overload);
+        clazz.methods().add(unique);
+        FieldInfo field = new FieldInfo(clazz, "a", "I");
+        FieldInfo otherField = new FieldInfo(clazz, "b", "J");
+        FieldInfo uniqueField = new FieldInfo(clazz, "c", "I");
+        clazz.fields().add(field);
+        clazz.fields().add(otherField);
+        clazz.fields().add(uniqueField);
+        clazz.finish();
+        mappings.getOrCreateClassMapping("b").setDeobfuscatedName("net/example/Clock");
+        mappings.getOrCreateClassMapping("b").createMethodMapping("a", "()V").setDeobfuscatedName("tick");
+        mappings.getOrCreateClassMapping("b").createMethodMapping("b", "(I)V").setDeobfuscatedName("tick");
+        mappings.getOrCreateClassMapping("b").createMethodMapping("c", "()V").setDeobfuscatedName("reset");
+        mappings.getOrCreateClassMapping("b").createFieldMapping(FieldSignature.of("a", "I")).setDeobfuscatedName("time");
+        mappings.getOrCreateClassMapping("b").createFieldMapping(FieldSignature.of("b", "J")).setDeobfuscatedName("time");
+        mappings.getOrCreateClassMapping("b").createFieldMapping(FieldSignature.of("c", "I")).setDeobfuscatedName("offset");
+
+        HashedNameProvider nameProvider = new HashedNameProvider(Collections.singleton(clazz), mappings, "net/example/unmapped");
+        Assertions.assertEquals("m;Clock.tick;()V", nameProvider.getRawMethodName(method));
+        Assertions.assertEquals("m;Clock.tick;(I)V", nameProvider.getRawMethodName(overload));
+        Assertions.assertEquals("m;Clock.reset;", nameProvider.getRawMethodName(unique));
+        // Fields use their obfuscated descriptor
+        Assertions.assertEquals("f;Clock.time;I", nameProvider.getRawFieldName(field));
+        Assertions.assertEquals("f;Clock.time;J", nameProvider.getRawFieldName(otherField));
+        Assertions.assertEquals("f;Clock.offset;", nameProvider.getRawFieldName(uniqueField));
+
+        // The interface isn't indexed up front, its duplicate names are found when it's first needed
+        Assertions.assertEquals("m;net/example/Ticker.tick;()V", nameProvider.getRawMethodName(interfaceMethod));
+        Assertions.assertEquals("m;net/example/Ticker.tick;(I)V", nameProvider.getRawMethodName(interfaceOverload));
+        Assertions.assertEquals("m;net/example/Ticker.tick;()V", nameProvider.getNameSetRawName(method));
+    }
+}
@@ -0,0 +1,193 @@
+package org.quiltmc.mappings_hasher;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.quiltmc.mappings_hasher.asm.ClassInfo;
+import org.quiltmc.mappings_hasher.asm.ClassResolver;
+import org.quiltmc.mappings_hasher.asm.HierarchyCache;
+import org.quiltmc.mappings_hasher.asm.PlatformClasses;
+import org.quiltmc.mappings_hasher.util.Metrics;
+import org.quiltmc.mappings_hasher.util.Metrics.Counter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.UnaryOperator;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+public class HierarchyCacheTests {
+    @TempDir
+    Path tempDir;
+
+    private Path library;
+    private String sha1;
+
+    @BeforeEach
+    public void writeLibrary() throws IOException {
+        library = writeJar(tempDir.resolve("library.jar"),
+                createClass("lib/Base", "java/lang/Object", "tick"),
+                createClass("lib/Other", "java/lang/Object", "tock"),
+                createClass("lib/Unused", "java/lang/Object", "tick"));
+        sha1 = HierarchyCache.sha1(library);
+    }
+
+    @Test
+    public void round_trip() throws IOException {
+        Path cacheDir = tempDir.resolve("cache");
+        Path jar = writeJar(tempDir.resolve("a.jar"), createClass("a", "lib/Base", "tick"));
+        Path bothJar = writeJar(tempDir.resolve("both.jar"), createClass("a", "lib/Base", "tick"), createClass("b", "lib/Other", "tock"));
+        List<String> expected = Arrays.asList("a extends lib/Base", "a.tick()V overrides lib/Base");
+
+        // Only the requested library classes are parsed and cached
+        Metrics first = new Metrics();
+        Assertions.assertEquals(expected, extract(cacheDir, sha1, jar, first));
+        Assertions.assertEquals(1, first.get(Counter.LIBRARY_CLASSES));
+        Assertions.assertEquals(1, libraryMisses(first));
+        Assertions.assertTrue(Files.exists(cacheDir.resolve(sha1 + ".bin")));
+
+        // Classes that aren't cached yet are added to the cache
+        Metrics second = new Metrics();
+        List<String> both = extract(cacheDir, sha1, bothJar, second);
+        Assertions.assertTrue(both.containsAll(expected) && both.contains("b.tock()V overrides lib/Other"), both::toString);
+        Assertions.assertEquals(1, libraryHits(second));
+        Assertions.assertEquals(1, libraryMisses(second));
+
+        // Cached libraries aren't opened
+        Files.delete(library);
+        Metrics third = new Metrics();
+        Assertions.assertEquals(both, extract(cacheDir, sha1, bothJar, third));
+        Assertions.assertEquals(2, libraryHits(third));
+        Assertions.assertEquals(0, libraryMisses(third));
+    }
+
+    @Test
+    public void rebuilds_stale_files() throws IOException {
+        Map<String, UnaryOperator<byte[]>> corruptions = new LinkedHashMap<>();
+        corruptions.put("version", bytes -> flip(bytes, 7));
+        // The index starts after the magic, version, key and index length
+        corruptions.put("index", bytes -> flip(bytes, 4 + 4 + 2 + sha1.length() + 4 + 1));
+        // The last record is the only one
+        corruptions.put("record", bytes -> flip(bytes, bytes.length - 1));
+        corruptions.put("truncated", bytes -> Arrays.copyOf(bytes, bytes.length - 1));
+        corruptions.put("half", bytes -> Arrays.copyOf(bytes, bytes.length / 2));
+        corruptions.put("header", bytes -> Arrays.copyOf(bytes, 6));
+        corruptions.put("empty", bytes -> new byte[0]);
+
+        Path jar = writeJar(tempDir.resolve("a.jar"), createClass("a", "lib/Base", "tick"));
+        for (Map.Entry<String, UnaryOperator<byte[]>> corruption : corruptions.entrySet()) {
+            Path cacheDir = tempDir.resolve(corruption.getKey());
+            List<String> expected = extract(cacheDir, sha1, jar, new Metrics());
+
+            Path file = cacheDir.resolve(sha1 + ".bin");
+            Files.write(file, corruption.getValue().apply(Files.readAllBytes(file)));
+            Metrics stale = new Metrics();
+            Assertions.assertEquals(expected, extract(cacheDir, sha1, jar, stale), corruption.getKey());
+            Assertions.assertEquals(0, libraryHits(stale), corruption.getKey());
+            Assertions.assertEquals(1, libraryMisses(stale), corruption.getKey());
+
+            Metrics rebuilt = new Metrics();
+            Assertions.assertEquals(expected, extract(cacheDir, sha1, jar, rebuilt), corruption.getKey());
+            Assertions.assertEquals(1, libraryHits(rebuilt), corruption.getKey());
+        }
+    }
+
+    @Test
+    public void rebuilds_files_of_other_jars() throws IOException {
+        Path cacheDir = tempDir.resolve("cache");
+        Path jar = writeJar(tempDir.resolve("a.jar"), createClass("a", "lib/Base", "tick"));
+        List<String> expected = extract(cacheDir, sha1, jar, new Metrics());
+
+        // A file stored under the wrong SHA-1
+        String otherSha1 = "0123456789abcdef0123456789abcdef01234567";
+        Files.copy(cacheDir.resolve(sha1 + ".bin"), cacheDir.resolve(otherSha1 + ".bin"));
+        Metrics stale = new Metrics();
+        Assertions.assertEquals(expected, extract(cacheDir, otherSha1, jar, stale));
+        Assertions.assertEquals(0, libraryHits(stale));
+        Assertions.assertEquals(1, libraryMisses(stale));
+
+        Metrics rebuilt = new Metrics();
+        Assertions.assertEquals(expected, extract(cacheDir, otherSha1, jar, rebuilt));
+        Assertions.assertEquals(1, libraryHits(rebuilt));
+    }
+
+    @Test
+    public void shares_libraries_in_memory() throws IOException {
+        HierarchyCache cache = new HierarchyCache();
+        Path jar = writeJar(tempDir.resolve("a.jar"), createClass("a", "lib/Base", "tick"));
+
+        Metrics first = new Metrics();
+        ClassResolver resolver = new ClassResolver(1, cache, PlatformClasses.runtime(), first);
+        resolver.addLibrary(library, sha1);
+        resolver.extractClassInfo(jar, c -> true);
+        Assertions.assertEquals(1, libraryMisses(first));
+
+        Metrics second = new Metrics();
+        resolver = new ClassResolver(1, cache, PlatformClasses.runtime(), second);
+        resolver.addLibrary(library, sha1);
+        resolver.extractClassInfo(jar, c -> true);
+        Assertions.assertEquals(1, libraryHits(second));
+        Assertions.assertEquals(0, libraryMisses(second));
+    }
+
+    private List<String> extract(Path cacheDir, String sha1, Path jar, Metrics metrics) {
+        HierarchyCache cache = new HierarchyCache(cacheDir, PlatformClasses.runtime().key());
+        ClassResolver resolver = new ClassResolver(1, cache, PlatformClasses.runtime(), metrics);
+        resolver.addLibrary(library, sha1);
+        return describe(resolver.extractClassInfo(jar, c -> true));
+    }
+
+    // Platform classes are cached as well, each platform class that is parsed is a miss
+    private static long libraryHits(Metrics metrics) {
+        return metrics.get(Counter.CACHE_HITS) - (metrics.get(Counter.JDK_FALLBACKS) - metrics.get(Counter.PLATFORM_CLASSES));
+    }
+
+    private static long libraryMisses(Metrics metrics) {
+        return metrics.get(Counter.CACHE_MISSES) - metrics.get(Counter.PLATFORM_CLASSES);
+    }
+
+    private static byte[] flip(byte[] bytes, int index) {
+        byte[] flipped = bytes.clone();
+        flipped[index] ^= 0x10;
+        return flipped;
+    }
+
+    private static ClassWriter createClass(String name, String superName, String methodName) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, superName, null);
+        writer.visitMethod(Opcodes.ACC_PUBLIC, methodName, "()V", null, null).visitEnd();
+        writer.visitEnd();
+        return writer;
+    }
+
+    private static Path writeJar(Path path, ClassWriter... classes) throws IOException {
+        try (OutputStream output = Files.newOutputStream(path); JarOutputStream jar = new JarOutputStream(output)) {
+            for (ClassWriter writer : classes) {
+                byte[] bytes = writer.toByteArray();
+                jar.putNextEntry(new ZipEntry(new org.objectweb.asm.ClassReader(bytes).getClassName() + ".class"));
+                jar.write(bytes);
+                jar.closeEntry();
+            }
+        }
+
+        return path;
+    }
+
+    private static List<String> describe(Set<ClassInfo> classes) {
+        List<String> lines = new ArrayList<>();
+        for (ClassInfo classInfo : classes) {
+            for (ClassInfo superClass : classInfo.superClasses()) {
+                lines.add(classInfo.name() + " extends " + superClass.name());
+            }
+            classInfo.methods().forEach(method -> method.overrides().forEach(override ->
+                    lines.add(classInfo.name() + "." + method.name() + method.descriptor() + " overrides " + override.owner().name())));
+        }
+
+        Collections.sort(lines);
+        return lines;
+    }
+}
@@ -0,0 +1,63 @@
+package org.quiltmc.mappings_hasher;
+
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+public class MainTests {
+    // From oldest to newest, like the reversed version manifest
+    private static final List<String> MANIFEST_IDS = Arrays.asList("1.16.5", "21w03a", "1.17", "1.17.1-pre1", "1.17.1", "1.18");
+
+    @Test
+    public void selects_version_lists() {
+        Assertions.assertEquals(Collections.singletonList("1.17"), Main.selectVersions(MANIFEST_IDS, "1.17"));
+        // Listed versions keep their order
+        Assertions.assertEquals(Arrays.asList("1.18", "1.16.5", "21w03a"), Main.selectVersions(MANIFEST_IDS, "1.18, 1.16.5,21w03a"));
+    }
+
+    @Test
+    public void selects_version_ranges() {
+        Assertions.assertEquals(Arrays.asList("21w03a", "1.17", "1.17.1-pre1", "1.17.1"), Main.selectVersions(MANIFEST_IDS, "21w03a..1.17.1"));
+        // Backwards ranges are generated from oldest to newest as well
+        Assertions.assertEquals(Arrays.asList("21w03a", "1.17", "1.17.1-pre1", "1.17.1"), Main.selectVersions(MANIFEST_IDS, "1.17.1 .. 21w03a"));
+        Assertions.assertEquals(Collections.singletonList("1.18"), Main.selectVersions(MANIFEST_IDS, "1.18..1.18"));
+        Assertions.assertEquals(MANIFEST_IDS, Main.selectVersions(MANIFEST_IDS, "1.16.5..1.18"));
+    }
+
+    @Test
+    public void rejects_invalid_versions() {
+        Map<String, String> invalid = new LinkedHashMap<>();
+        invalid.put("1.19", "Version 1.19 doesn't exist...");
+        invalid.put("1.17,1.19", "Version 1.19 doesn't exist...");
+        invalid.put("1.17..1.19", "Version 1.19 doesn't exist...");
+        invalid.put("", "Missing version id");
+        invalid.put("1.17,", "Missing version id");
+        invalid.put("1.17,,1.18", "Missing version id");
+        invalid.put("1.17..", "Missing version id");
+        invalid.put("..1.17", "Missing version id");
+        invalid.put("1.17,1.18,1.17", "Version 1.17 is listed twice");
+        invalid.put("1.16.5..1.17..1.18", "Invalid version range 1.16.5..1.17..1.18, expected <first>..<last>");
+        invalid.put("1.16.5..1.17,1.18", "Invalid version range 1.16.5..1.17,1.18, expected <first>..<last>");
+
+        for (Map.Entry<String, String> entry : invalid.entrySet()) {
+            RuntimeException exception = Assertions.assertThrows(RuntimeException.class, () -> Main.selectVersions(MANIFEST_IDS, entry.getKey()));
+            Assertions.assertEquals(entry.getValue(), exception.getMessage());
+        }
+    }
+
+    @Test
+    public void names_batch_files_by_version() {
+        Path outDir = Paths.get("mappings");
+        Assertions.assertEquals(outDir.resolve("hashed-1.17.1-pre1.tiny"), Main.batchOutFile(outDir, "1.17.1-pre1", false));
+        Assertions.assertEquals(outDir.resolve("hashed-1.17.1-pre1-server.tiny"), Main.batchOutFile(outDir, "1.17.1-pre1", true));
+
+        // Each selected version gets its own files
+        Set<Path> files = new HashSet<>();
+        for (String id : Main.selectVersions(MANIFEST_IDS, "1.16.5..1.18")) {
+            Assertions.assertTrue(files.add(Main.batchOutFile(outDir, id, false)), id);
+            Assertions.assertTrue(files.add(Main.batchOutFile(outDir, id, true)), id);
+        }
+    }
+}
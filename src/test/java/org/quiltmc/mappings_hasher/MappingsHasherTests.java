@@ -0,0 +1,455 @@
+package org.quiltmc.mappings_hasher;
+
+import org.cadixdev.bombe.type.signature.FieldSignature;
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.model.ClassMapping;
+import org.cadixdev.lorenz.model.FieldMapping;
+import org.cadixdev.lorenz.model.MethodMapping;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.quiltmc.mappings_hasher.asm.ClassResolver;
+import org.quiltmc.mappings_hasher.asm.PlatformClasses;
+import org.quiltmc.mappings_hasher.util.Metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+public class MappingsHasherTests {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void incremental_matches_full() throws IOException {
+        TestVersion first = new TestVersion();
+        first.addClass("a", "net/example/Foo", Opcodes.ACC_PUBLIC, "java/lang/Object")
+                .method("a", "()V", "tick")
+                .method("b", "(La;)V", "copy")
+                .field("a", "I", "count");
+        first.addClass("b", "net/example/Bar", Opcodes.ACC_PUBLIC, "a")
+                .method("a", "()V", "tick")
+                .field("a", "I", "count");
+        first.addClass("c", "net/example/Tickable", Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT, "java/lang/Object")
+                .method("a", "()V", "tick");
+        first.addClass("d", "net/example/Baz", Opcodes.ACC_PUBLIC, "java/lang/Object", "c")
+                .method("a", "()V", "tick")
+                .method("b", "()V", "reset");
+        first.addClass("e", "net/example/Unchanged", Opcodes.ACC_PUBLIC, "java/lang/Object")
+                .method("a", "(Le;)Z", "equalTo")
+                .method("b", "(I)Z", "equalTo")
+                .field("a", "I", "value")
+                .field("b", "J", "value");
+        first.addClass("e$a", "net/example/Unchanged$Inner", Opcodes.ACC_PUBLIC, "java/lang/Object")
+                .method("a", "()Le;", "outer");
+        first.addClass("net/example/Api", "net/example/Api", Opcodes.ACC_PUBLIC, "java/lang/Object")
+                .method("run", "()V", "run");
+
+        // All obfuscated names are shuffled, as they would be in the next version
+        TestVersion second = new TestVersion();
+        // Changed mapping: renamed field
+        second.addClass("f", "net/example/Foo", Opcodes.ACC_PUBLIC, "java/lang/Object")
+                .method("b", "()V", "tick")
+                .method("a", "(Lf;)V", "copy")
+                .field("b", "I", "amount");
+        second.addClass("g", "net/example/Bar", Opcodes.ACC_PUBLIC, "f")
+                .method("b", "()V", "tick")
+                .field("a", "I", "count");
+        second.addClass("h", "net/example/Tickable", Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT, "java/lang/Object")
+                .method("b", "()V", "tick");
+        // Changed name set: Baz now extends Foo, so Foo.tick and Tickable.tick share a name set
+        second.addClass("i", "net/example/Baz", Opcodes.ACC_PUBLIC, "f", "h")
+                .method("b", "()V", "tick")
+                .method("c", "()V", "reset");
+        second.addClass("a", "net/example/Unchanged", Opcodes.ACC_PUBLIC, "java/lang/Object")
+                .method("b", "(La;)Z", "equalTo")
+                .method("a", "(I)Z", "equalTo")
+                .field("b", "I", "value")
+                .field("a", "J", "value");
+        second.addClass("a$a", "net/example/Unchanged$Inner", Opcodes.ACC_PUBLIC, "java/lang/Object")
+                .method("a", "()La;", "outer");
+        // Changed simple name collision: Bar needs its full name now
+        second.addClass("j", "net/example/other/Bar", Opcodes.ACC_PUBLIC, "java/lang/Object");
+        second.addClass("net/example/Api", "net/example/Api", Opcodes.ACC_PUBLIC, "java/lang/Object")
+                .method("run", "()V", "run");
+
+        HashedMappings firstResult = first.hasher().generate(first.writeJar(tempDir.resolve("first.jar")), c -> true, null);
+
+        Path secondJar = second.writeJar(tempDir.resolve("second.jar"));
+        HashedMappings full = second.hasher().generate(secondJar, c -> true, null);
+        HashedMappings incremental = second.hasher().generate(secondJar, c -> true, firstResult);
+        Assertions.assertEquals(dump(full.mappings()), dump(incremental.mappings()));
+        // Without records
+        Assertions.assertEquals(dump(full.mappings()), dump(second.hasher().generate(secondJar, c -> true)));
+
+        // Only the classes whose inputs didn't change are reused
+        Assertions.assertSame(firstResult.getClassRecord("net/example/Unchanged"), incremental.getClassRecord("net/example/Unchanged"));
+        Assertions.assertSame(firstResult.getClassRecord("net/example/Unchanged$Inner"), incremental.getClassRecord("net/example/Unchanged$Inner"));
+        Assertions.assertSame(firstResult.getClassRecord("net/example/Api"), incremental.getClassRecord("net/example/Api"));
+        // Baz.tick is in a changed name set, but overrides don't get a mapping of their own
+        Assertions.assertSame(firstResult.getClassRecord("net/example/Baz"), incremental.getClassRecord("net/example/Baz"));
+        for (String className : Arrays.asList("net/example/Foo", "net/example/Bar", "net/example/Tickable")) {
+            Assertions.assertNotSame(firstResult.getClassRecord(className), incremental.getClassRecord(className), className);
+        }
+
+        // Regenerating the same version reuses everything, only the fingerprints are compared and nothing is hashed
+        ClassResolver resolver = new ClassResolver(1);
+        HashedMappings same = new MappingsHasher(second.mappings, "net/example/unmapped", resolver).generate(secondJar, c -> true, incremental);
+        Assertions.assertEquals(dump(full.mappings()), dump(same.mappings()));
+        Assertions.assertSame(incremental.getClassRecord("net/example/Foo"), same.getClassRecord("net/example/Foo"));
+        Assertions.assertEquals(0, resolver.metrics().get(Metrics.Counter.HASHES));
+        Assertions.assertEquals(resolver.metrics().get(Metrics.Counter.JAR_CLASSES), resolver.metrics().get(Metrics.Counter.REUSED_CLASSES));
+    }
+
+    @Test
+    public void reuses_synthetic_versions() throws IOException {
+        // Synthetic classes may map several methods to the same name and descriptor, those classes are hashed again
+        SyntheticVersion version = SyntheticVersion.generate(500, 5);
+        Path jar = version.writeJar(tempDir.resolve("version.jar"));
+        ClassResolver firstResolver = new ClassResolver(1);
+        HashedMappings first = new MappingsHasher(version.mappings(), "net/example/unmapped", firstResolver).generate(jar, c -> true, null);
+
+        ClassResolver secondResolver = new ClassResolver(1);
+        HashedMappings second = new MappingsHasher(version.mappings(), "net/example/unmapped", secondResolver).generate(jar, c -> true, first);
+        Assertions.assertEquals(dump(first.mappings()), dump(second.mappings()));
+        Assertions.assertEquals(0, firstResolver.metrics().get(Metrics.Counter.REUSED_CLASSES));
+        Assertions.assertTrue(secondResolver.metrics().get(Metrics.Counter.REUSED_CLASSES) > 0);
+        Assertions.assertTrue(secondResolver.metrics().get(Metrics.Counter.HASHES) < firstResolver.metrics().get(Metrics.Counter.HASHES));
+    }
+
+    @Test
+    public void streaming_matches_mapping_set() throws IOException {
+        TestVersion version = new TestVersion();
+        version.addClass("a", "net/example/Outer", Opcodes.ACC_PUBLIC, "java/lang/Object")
+                .method("a", "()V", "tick")
+                .field("a", "I", "count");
+        version.addClass("a$a", "net/example/Outer$Inner", Opcodes.ACC_PUBLIC, "a")
+                .method("a", "()V", "tick")
+                .method("b", "(La;)La$a;", "wrap");
+        version.addClass("a$a$1", "net/example/Outer$Inner$1", Opcodes.ACC_PUBLIC, "java/lang/Object");
+        version.addClass("net/example/Api", "net/example/Api", Opcodes.ACC_PUBLIC, "java/lang/Object")
+                .method("run", "()V", "run");
+        version.addClass("net/example/Api$1", "net/example/Api$1", Opcodes.ACC_PUBLIC, "net/example/Api")
+                .field("a", "Lnet/example/Api;", "api");
+        version.addClass("b", "net/example/Other", Opcodes.ACC_PUBLIC, "java/lang/Object")
+                .field("a", "J", "value")
+                .field("b", "I", "value");
+        Path jar = version.writeJar(tempDir.resolve("version.jar"));
+
+        // Write the mapping set in the same format
+        StringWriter expected = new StringWriter();
+        TinyWriter tinyWriter = new TinyWriter(expected, "official", "hashed");
+        Map<String, TinyWriter.ClassEntry> entries = new HashMap<>();
+        for (ClassMapping<?, ?> classMapping : version.hasher().generate(jar, c -> true).getTopLevelClassMappings()) {
+            addEntries(classMapping, entries);
+        }
+        for (String className : TinyWriter.sortClassNames(entries.keySet())) {
+            tinyWriter.write(entries.get(className));
+        }
+
+        for (int parallelism : new int[] { 1, 4 }) {
+            StringWriter actual = new StringWriter();
+            version.hasher().generate(jar, c -> true, actual, parallelism);
+            Assertions.assertEquals(expected.toString(), actual.toString());
+        }
+    }
+
+    @Test
+    public void reports_hash_collisions() throws IOException {
+        // "f;Foo.field87312;" and "f;Foo.field633463;" are both hashed to efepudtc
+        TestVersion version = new TestVersion();
+        version.addClass("a", "net/example/Foo", Opcodes.ACC_PUBLIC, "java/lang/Object")
+                .field("a", "I", "field87312")
+                .field("b", "I", "field633463")
+                .field("c", "I", "count");
+        version.addClass("b", "net/example/Bar", Opcodes.ACC_PUBLIC, "java/lang/Object")
+                .field("a", "I", "field87312");
+        Path jar = version.writeJar(tempDir.resolve("version.jar"));
+
+        MappingsHasher streaming = version.hasher();
+        streaming.generate(jar, c -> true, new StringWriter(), 2);
+        MappingsHasher mappingSet = version.hasher();
+        mappingSet.generate(jar, c -> true);
+
+        for (MappingsHasher hasher : new MappingsHasher[] { streaming, mappingSet }) {
+            List<CollisionDetector.Collision> collisions = hasher.getCollisions();
+            Assertions.assertEquals(1, collisions.size());
+            Assertions.assertEquals("class a", collisions.get(0).scope());
+            Assertions.assertEquals("f_efepudtc", collisions.get(0).hashedName());
+            Assertions.assertEquals(new HashSet<>(Arrays.asList("f;Foo.field87312;", "f;Foo.field633463;")),
+                    new HashSet<>(Arrays.asList(collisions.get(0).rawName(), collisions.get(0).otherRawName())));
+        }
+    }
+
+    @Test
+    public void parallel_hashing_matches_sequential() throws IOException {
+        SyntheticVersion version = SyntheticVersion.generate(new SyntheticVersion.Shape()
+                .classCount(3000)
+                .overrideFamilySize(16)
+                .collisionPercent(20), 3);
+        Path jar = version.writeJar(tempDir.resolve("version.jar"));
+
+        StringWriter sequential = new StringWriter();
+        new MappingsHasher(version.mappings(), "net/example/unmapped").generate(jar, c -> true, sequential, 1);
+        StringWriter parallel = new StringWriter();
+        new MappingsHasher(version.mappings(), "net/example/unmapped", 4).generate(jar, c -> true, parallel, 4);
+        Assertions.assertEquals(sequential.toString(), parallel.toString());
+
+        MappingSet sequentialSet = new MappingsHasher(version.mappings(), "net/example/unmapped").generate(jar, c -> true);
+        MappingSet parallelSet = new MappingsHasher(version.mappings(), "net/example/unmapped", 4).generate(jar, c -> true);
+        Assertions.assertEquals(dump(sequentialSet), dump(parallelSet));
+    }
+
+    @Test
+    public void keeps_symbols_per_resolver() throws IOException {
+        SyntheticVersion version = SyntheticVersion.generate(500, 4);
+        Path jar = version.writeJar(tempDir.resolve("version.jar"));
+        ClassResolver resolver = new ClassResolver(1);
+        new MappingsHasher(version.mappings(), "net/example/unmapped", resolver).generate(jar, c -> true);
+        int size = resolver.symbols().size();
+        Assertions.assertTrue(size > 0);
+
+        // Forks share the table, hashing the same jar again adds no symbols
+        ClassResolver fork = resolver.fork();
+        Assertions.assertSame(resolver.symbols(), fork.symbols());
+        new MappingsHasher(version.mappings(), "net/example/unmapped", fork).generate(jar, c -> true);
+        Assertions.assertEquals(size, resolver.symbols().size());
+
+        // Other resolvers start with their own empty table, e.g. for the next version in batch mode
+        ClassResolver other = new ClassResolver(1);
+        Assertions.assertNotSame(resolver.symbols(), other.symbols());
+        Assertions.assertEquals(0, other.symbols().size());
+    }
+
+    @Test
+    public void forks_match_separate_hashers() throws Exception {
+        // Both jars use the same obfuscated names for different classes, like the client and server jars
+        SyntheticVersion client = SyntheticVersion.generate(800, 1);
+        SyntheticVersion server = SyntheticVersion.generate(400, 2);
+        Path clientJar = client.writeJar(tempDir.resolve("client.jar"));
+        Path serverJar = server.writeJar(tempDir.resolve("server.jar"));
+
+        StringWriter expectedClient = new StringWriter();
+        new MappingsHasher(client.mappings(), "net/example/unmapped").generate(clientJar, c -> true, expectedClient, 1);
+        StringWriter expectedServer = new StringWriter();
+        new MappingsHasher(server.mappings(), "net/example/unmapped").generate(serverJar, c -> true, expectedServer, 1);
+
+        MappingsHasher clientHasher = new MappingsHasher(client.mappings(), "net/example/unmapped", 2);
+        MappingsHasher serverHasher = clientHasher.fork(new LorenzMappingsTable(server.mappings()));
+        StringWriter actualClient = new StringWriter();
+        StringWriter actualServer = new StringWriter();
+        Thread serverThread = new Thread(() -> {
+            try {
+                serverHasher.generate(serverJar, c -> true, actualServer, 2);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        serverThread.start();
+        clientHasher.generate(clientJar, c -> true, actualClient, 2);
+        serverThread.join();
+
+        Assertions.assertEquals(expectedClient.toString(), actualClient.toString());
+        Assertions.assertEquals(expectedServer.toString(), actualServer.toString());
+    }
+
+    @Test
+    public void forks_keep_library_name_sets_apart() throws Exception {
+        // One letter names are hashed even if they aren't obfuscated, so the name set of lib/Axis.x is named
+        TestVersion client = new TestVersion();
+        client.addClass("lib/Axis", "lib/Axis", Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT, "java/lang/Object")
+                .method("x", "()D", "x");
+        client.addClass("a", "net/example/Vec", Opcodes.ACC_PUBLIC, "java/lang/Object", "lib/Axis")
+                .method("x", "()D", "x");
+        client.addClass("e", "net/example/Coordinate", Opcodes.ACC_PUBLIC, "java/lang/Object")
+                .method("x", "()D", "x");
+        // Merges the name sets of Coordinate.x and lib/Axis.x
+        client.addClass("c", "net/example/Pos", Opcodes.ACC_PUBLIC, "e", "lib/Axis");
+
+        // The server reuses obfuscated names for other classes, like the server jar does
+        TestVersion server = new TestVersion();
+        server.addClass("lib/Axis", "lib/Axis", Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT, "java/lang/Object")
+                .method("x", "()D", "x");
+        server.addClass("a", "net/example/Point", Opcodes.ACC_PUBLIC, "java/lang/Object", "lib/Axis")
+                .method("x", "()D", "x");
+        server.addClass("b", "net/example/Aaa", Opcodes.ACC_PUBLIC, "java/lang/Object")
+                .method("x", "()D", "x");
+        server.addClass("d", "net/example/Sub", Opcodes.ACC_PUBLIC, "b", "lib/Axis");
+        // If the client's Coordinate.x was in the server's name set, it would be named after A0.x
+        server.addClass("e", "net/example/A0", Opcodes.ACC_PUBLIC, "java/lang/Object")
+                .method("x", "()D", "x");
+
+        Path library = client.writeJar(tempDir.resolve("library.jar"), name -> name.startsWith("lib/"));
+        Path clientJar = client.writeJar(tempDir.resolve("client.jar"), name -> !name.startsWith("lib/"));
+        Path serverJar = server.writeJar(tempDir.resolve("server.jar"), name -> !name.startsWith("lib/"));
+
+        MappingsHasher expectedClientHasher = client.hasher();
+        expectedClientHasher.addLibrary(library);
+        StringWriter expectedClient = new StringWriter();
+        expectedClientHasher.generate(clientJar, c -> true, expectedClient, 1);
+        MappingsHasher expectedServerHasher = server.hasher();
+        expectedServerHasher.addLibrary(library);
+        StringWriter expectedServer = new StringWriter();
+        expectedServerHasher.generate(serverJar, c -> true, expectedServer, 1);
+
+        MappingsHasher clientHasher = new MappingsHasher(client.mappings, "net/example/unmapped", 2);
+        clientHasher.addLibrary(library);
+        MappingsHasher serverHasher = clientHasher.fork(new LorenzMappingsTable(server.mappings));
+        StringWriter actualClient = new StringWriter();
+        StringWriter actualServer = new StringWriter();
+        Thread serverThread = new Thread(() -> {
+            try {
+                serverHasher.generate(serverJar, c -> true, actualServer, 2);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        serverThread.start();
+        clientHasher.generate(clientJar, c -> true, actualClient, 2);
+        serverThread.join();
+
+        Assertions.assertEquals(expectedClient.toString(), actualClient.toString());
+        Assertions.assertEquals(expectedServer.toString(), actualServer.toString());
+    }
+
+    @Test
+    public void forks_share_hashes() throws IOException {
+        // The server classes are a subset of the client classes
+        SyntheticVersion client = SyntheticVersion.generate(800, 1);
+        SyntheticVersion server = SyntheticVersion.generate(400, 1);
+        Path clientJar = client.writeJar(tempDir.resolve("client.jar"));
+        Path serverJar = server.writeJar(tempDir.resolve("server.jar"));
+
+        Metrics metrics = new Metrics();
+        MappingsHasher clientHasher = new MappingsHasher(client.mappings(), "net/example/unmapped",
+                new ClassResolver(1, null, PlatformClasses.runtime(), metrics));
+        MappingsHasher serverHasher = clientHasher.fork(new LorenzMappingsTable(server.mappings()));
+        clientHasher.generate(clientJar, c -> true, new StringWriter(), 1);
+        long clientHashes = metrics.get(Metrics.Counter.HASHES);
+
+        StringWriter expectedServer = new StringWriter();
+        new MappingsHasher(server.mappings(), "net/example/unmapped").generate(serverJar, c -> true, expectedServer, 1);
+        StringWriter actualServer = new StringWriter();
+        serverHasher.generate(serverJar, c -> true, actualServer, 1);
+        Assertions.assertEquals(expectedServer.toString(), actualServer.toString());
+
+        // Only raw names the client doesn't have are hashed for the server
+        long serverHashes = metrics.get(Metrics.Counter.HASHES) - clientHashes;
+        Assertions.assertTrue(serverHashes < clientHashes / 4, serverHashes + " server hashes, " + clientHashes + " client hashes");
+    }
+
+    private static void addEntries(ClassMapping<?, ?> classMapping, Map<String, TinyWriter.ClassEntry> entries) {
+        TinyWriter.ClassEntry entry = new TinyWriter.ClassEntry(classMapping.getFullObfuscatedName(), classMapping.getFullDeobfuscatedName());
+        for (MethodMapping methodMapping : classMapping.getMethodMappings()) {
+            entry.addMethod(methodMapping.getObfuscatedName(), methodMapping.getObfuscatedDescriptor(), methodMapping.getDeobfuscatedName());
+        }
+        for (FieldMapping fieldMapping : classMapping.getFieldMappings()) {
+            entry.addField(fieldMapping.getObfuscatedName(), fieldMapping.getType().get().toString(), fieldMapping.getDeobfuscatedName());
+        }
+        entries.put(entry.name(), entry);
+
+        for (ClassMapping<?, ?> innerClassMapping : classMapping.getInnerClassMappings()) {
+            addEntries(innerClassMapping, entries);
+        }
+    }
+
+    private static List<String> dump(MappingSet mappings) {
+        List<String> lines = new ArrayList<>();
+        for (ClassMapping<?, ?> classMapping : mappings.getTopLevelClassMappings()) {
+            dump(classMapping, lines);
+        }
+
+        Collections.sort(lines);
+        return lines;
+    }
+
+    private static void dump(ClassMapping<?, ?> classMapping, List<String> lines) {
+        lines.add(classMapping.getFullObfuscatedName() + " -> " + classMapping.getFullDeobfuscatedName());
+        for (MethodMapping methodMapping : classMapping.getMethodMappings()) {
+            lines.add(methodMapping.getFullObfuscatedName() + methodMapping.getObfuscatedDescriptor() + " -> " + methodMapping.getDeobfuscatedName());
+        }
+        for (FieldMapping fieldMapping : classMapping.getFieldMappings()) {
+            lines.add(fieldMapping.getFullObfuscatedName() + " -> " + fieldMapping.getDeobfuscatedName());
+        }
+        for (ClassMapping<?, ?> innerClassMapping : classMapping.getInnerClassMappings()) {
+            dump(innerClassMapping, lines);
+        }
+    }
+
+    // A set of generated classes and their mappings
+    private static class TestVersion {
+        private final MappingSet mappings = MappingSet.create();
+        private final Map<String, ClassWriter> classes = new LinkedHashMap<>();
+
+        TestClass addClass(String name, String deobfuscatedName, int access, String superName, String... interfaces) {
+            ClassWriter writer = new ClassWriter(0);
+            writer.visit(Opcodes.V1_8, access, name, null, superName, interfaces);
+            classes.put(name, writer);
+
+            ClassMapping<?, ?> classMapping = mappings.getOrCreateClassMapping(name);
+            classMapping.setDeobfuscatedName(deobfuscatedName);
+            return new TestClass(writer, classMapping, access);
+        }
+
+        MappingsHasher hasher() {
+            return new MappingsHasher(mappings, "net/example/unmapped");
+        }
+
+        Path writeJar(Path path) throws IOException {
+            return writeJar(path, name -> true);
+        }
+
+        // Each class can only be written once
+        Path writeJar(Path path, Predicate<String> classFilter) throws IOException {
+            try (OutputStream output = Files.newOutputStream(path); JarOutputStream jar = new JarOutputStream(output)) {
+                for (Map.Entry<String, ClassWriter> entry : classes.entrySet()) {
+                    if (!classFilter.test(entry.getKey())) {
+                        continue;
+                    }
+
+                    entry.getValue().visitEnd();
+                    jar.putNextEntry(new ZipEntry(entry.getKey() + ".class"));
+                    jar.write(entry.getValue().toByteArray());
+                    jar.closeEntry();
+                }
+            }
+
+            return path;
+        }
+    }
+
+    private static class TestClass {
+        private final ClassWriter writer;
+        private final ClassMapping<?, ?> mapping;
+        private final int classAccess;
+
+        TestClass(ClassWriter writer, ClassMapping<?, ?> mapping, int classAccess) {
+            this.writer = writer;
+            this.mapping = mapping;
+            this.classAccess = classAccess;
+        }
+
+        TestClass method(String name, String descriptor, String deobfuscatedName) {
+            int access = (classAccess & Opcodes.ACC_INTERFACE) != 0 ? Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT : Opcodes.ACC_PUBLIC;
+            writer.visitMethod(access, name, descriptor, null, null).visitEnd();
+            mapping.createMethodMapping(name, descriptor).setDeobfuscatedName(deobfuscatedName);
+            return this;
+        }
+
+        TestClass field(String name, String descriptor, String deobfuscatedName) {
+            writer.visitField(Opcodes.ACC_PUBLIC, name, descriptor, null, null).visitEnd();
+            mapping.createFieldMapping(FieldSignature.of(name, descriptor)).setDeobfuscatedName(deobfuscatedName);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.quiltmc.mappings_hasher;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.mappings_hasher.asm.ClassResolver;
+import org.quiltmc.mappings_hasher.asm.HierarchyCache;
+import org.quiltmc.mappings_hasher.asm.PlatformClasses;
+import org.quiltmc.mappings_hasher.util.Metrics;
+import org.quiltmc.mappings_hasher.util.Metrics.Counter;
+import org.quiltmc.mappings_hasher.util.Metrics.Phase;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+
+public class MetricsTests {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void counts_generation() throws IOException {
+        SyntheticVersion version = SyntheticVersion.generate(500, 0);
+        Path jar = version.writeJar(tempDir.resolve("version.jar"));
+        HierarchyCache hierarchyCache = new HierarchyCache();
+
+        Metrics first = generate(version, jar, hierarchyCache, "first");
+        Assertions.assertEquals(version.classes().size(), first.get(Counter.JAR_CLASSES));
+        Assertions.assertEquals(0, first.get(Counter.LIBRARY_CLASSES));
+        // At least java/lang/Object
+        Assertions.assertTrue(first.get(Counter.JDK_FALLBACKS) >= 1);
+        Assertions.assertEquals(first.get(Counter.JDK_FALLBACKS), first.get(Counter.PLATFORM_CLASSES));
+        Assertions.assertEquals(first.get(Counter.PLATFORM_CLASSES), first.get(Counter.CACHE_MISSES));
+        Assertions.assertEquals(0, first.get(Counter.CACHE_HITS));
+        Assertions.assertTrue(first.get(Counter.HASHES) > version.classes().size());
+        for (Phase phase : new Phase[] { Phase.EXTRACTION, Phase.HASHING, Phase.WRITE }) {
+            Assertions.assertTrue(first.getNanos(phase) > 0, phase.name());
+        }
+        Assertions.assertEquals(0, first.getNanos(Phase.DOWNLOAD));
+
+        // Overridden methods share a name set
+        long nameSets = 0;
+        for (int bucket = 0; bucket < Metrics.NAME_SET_BUCKETS; bucket++) {
+            nameSets += first.getNameSetCount(bucket);
+        }
+        Assertions.assertTrue(nameSets > 0);
+        Assertions.assertTrue(first.getNameSetCount(0) < nameSets);
+
+        // The platform classes parsed by the first run are cached
+        Metrics second = generate(version, jar, hierarchyCache, "second");
+        Assertions.assertEquals(0, second.get(Counter.PLATFORM_CLASSES));
+        Assertions.assertEquals(first.get(Counter.JDK_FALLBACKS), second.get(Counter.CACHE_HITS));
+        Assertions.assertEquals(first.get(Counter.HASHES), second.get(Counter.HASHES));
+    }
+
+    @SuppressWarnings("try")
+    @Test
+    public void writes_report() throws IOException {
+        Metrics metrics = new Metrics("1.17.1 \"test\"");
+        try (Metrics.PhaseTimer ignored = metrics.phase(Phase.MAPPINGS)) {
+            metrics.add(Counter.HASHES, 42);
+        }
+        metrics.recordNameSetSize(1);
+        metrics.recordNameSetSize(3);
+        metrics.recordNameSetSize(4);
+        metrics.recordNameSetSize(100000);
+        metrics.commit();
+
+        StringWriter report = new StringWriter();
+        metrics.writeReport(report);
+        String json = report.toString();
+        Assertions.assertTrue(json.contains("\"run\": \"1.17.1 \\\"test\\\"\""), json);
+        Assertions.assertTrue(json.contains("\"download\": 0.000"), json);
+        Assertions.assertTrue(json.contains("\"hashes\": 42"), json);
+        Assertions.assertTrue(json.contains("{ \"min\": 1, \"max\": 1, \"count\": 1 }"), json);
+        Assertions.assertTrue(json.contains("{ \"min\": 2, \"max\": 2, \"count\": 0 }"), json);
+        Assertions.assertTrue(json.contains("{ \"min\": 3, \"max\": 4, \"count\": 2 }"), json);
+        Assertions.assertTrue(json.contains("{ \"min\": 1025, \"max\": null, \"count\": 1 }"), json);
+        Assertions.assertTrue(metrics.getNanos(Phase.MAPPINGS) > 0);
+    }
+
+    private static Metrics generate(SyntheticVersion version, Path jar, HierarchyCache hierarchyCache, String run) throws IOException {
+        Metrics metrics = new Metrics(run);
+        ClassResolver classResolver = new ClassResolver(2, hierarchyCache, PlatformClasses.runtime(), metrics);
+        new MappingsHasher(version.mappings(), "net/example/unmapped", classResolver)
+                .generate(jar, c -> true, new StringWriter(), 2);
+        return metrics;
+    }
+}
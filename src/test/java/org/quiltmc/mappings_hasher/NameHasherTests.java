@@ -0,0 +1,102 @@
+package org.quiltmc.mappings_hasher;
+
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+public class NameHasherTests {
+    private final NameHasher hasher = new NameHasher();
+
+    @Test
+    public void golden_1_17_1() throws IOException, URISyntaxException {
+        Set<String> entries = readEntries(Paths.get(getClass().getResource("/mappings/hashed-1.17.1.tiny").toURI()));
+
+        // Classes: "c <obfuscated> <hashed>"
+        assertEntry(entries, "c\tdvp\tnet/minecraft/unmapped/C_", "Minecraft");
+        assertEntry(entries, "c\tbzq\tnet/minecraft/unmapped/C_", "Blocks");
+        assertEntry(entries, "c\tatg\tnet/minecraft/unmapped/C_", "Entity");
+        assertEntry(entries, "c\tgg\tnet/minecraft/unmapped/C_", "BlockPos");
+        assertEntry(entries, "c\tgl\tnet/minecraft/unmapped/C_", "Direction");
+
+        // Fields: "<owner> f <descriptor> <obfuscated> <hashed>"
+        assertEntry(entries, "bzq\tf\tLbzp;\tb\tf_", "f;Blocks.STONE;");
+        assertEntry(entries, "gl\tf\tLgl;\tb\tf_", "f;Direction.UP;");
+        assertEntry(entries, "ahb\tf\tF\ta\tf_", "f;Mth.PI;");
+
+        // Methods: "<owner> m <descriptor> <obfuscated> <hashed>"
+        assertEntry(entries, "ahb\tm\t(F)F\ta\tm_", "m;Mth.sin;");
+        assertEntry(entries, "dvp\tm\t()Ldvp;\tC\tm_", "m;Minecraft.getInstance;");
+        assertEntry(entries, "atg\tm\t()V\tk\tm_", "m;Entity.tick;");
+    }
+
+    @Test
+    public void matches_big_integer_encoding() throws NoSuchAlgorithmException {
+        List<String> rawNames = Arrays.asList("", "a", "Minecraft", "m;Mth.sin;", "f;Blocks.STONE;",
+                "m;net/example/Outer$Inner.method;(Ljava/lang/String;)V", "\u00dcn\u00efc\u00f6d\u00e9", "\u4e16\u754c", "\ud83d\ude00", "\ud83d");
+
+        for (String rawName : rawNames) {
+            Assertions.assertEquals(bigIntegerHash(rawName), hasher.hash(rawName), "Hash of " + rawName);
+        }
+    }
+
+    @Test
+    public void batch_matches_single() {
+        List<String> rawNames = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rawNames.add("m;Class" + i + ".method" + (i * 31 % 97) + ";");
+        }
+
+        List<String> hashes = hasher.hashAll(rawNames);
+        Assertions.assertEquals(rawNames.size(), hashes.size());
+        for (int i = 0; i < rawNames.size(); i++) {
+            Assertions.assertEquals(hasher.hash(rawNames.get(i)), hashes.get(i));
+        }
+    }
+
+    private void assertEntry(Set<String> entries, String prefix, String rawName) {
+        String entry = prefix + hasher.hash(rawName);
+        Assertions.assertTrue(entries.contains(entry), "Missing " + entry + " for raw name " + rawName);
+    }
+
+    // Class lines as is, member lines prefixed with their owner
+    private static Set<String> readEntries(Path tiny) throws IOException {
+        Set<String> entries = new HashSet<>();
+        String owner = null;
+        for (String line : Files.readAllLines(tiny)) {
+            if (line.startsWith("c\t")) {
+                entries.add(line);
+                owner = line.split("\t")[1];
+            }
+            else if (line.startsWith("\t") && owner != null) {
+                entries.add(owner + line);
+            }
+        }
+
+        return entries;
+    }
+
+    // The original encoding, using BigInteger arithmetic
+    private static String bigIntegerHash(String string) throws NoSuchAlgorithmException {
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(string.getBytes(StandardCharsets.UTF_8));
+        BigInteger bigInteger = new BigInteger(hash);
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < NameHasher.DIGITS; i++) {
+            int digit = bigInteger.mod(BigInteger.valueOf(26)).intValue();
+            bigInteger = bigInteger.divide(BigInteger.valueOf(26));
+
+            builder.insert(0, (char) ('a' + digit));
+        }
+
+        return builder.toString();
+    }
+}
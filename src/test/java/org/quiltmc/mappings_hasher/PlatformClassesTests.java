@@ -0,0 +1,67 @@
+package org.quiltmc.mappings_hasher;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.quiltmc.mappings_hasher.asm.ClassInfo;
+import org.quiltmc.mappings_hasher.asm.ClassResolver;
+import org.quiltmc.mappings_hasher.asm.HierarchyCache;
+import org.quiltmc.mappings_hasher.asm.PlatformClasses;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+public class PlatformClassesTests {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void jdk_image_matches_runtime() throws IOException {
+        Path jar = tempDir.resolve("list.jar");
+        try (OutputStream output = Files.newOutputStream(jar); JarOutputStream jarOutput = new JarOutputStream(output)) {
+            ClassWriter writer = new ClassWriter(0);
+            writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "a", null, "java/util/AbstractList", new String[] { "java/util/RandomAccess" });
+            writer.visitMethod(Opcodes.ACC_PUBLIC, "size", "()I", null, null).visitEnd();
+            writer.visitEnd();
+            jarOutput.putNextEntry(new ZipEntry("a.class"));
+            jarOutput.write(writer.toByteArray());
+            jarOutput.closeEntry();
+        }
+
+        PlatformClasses image = PlatformClasses.of(Paths.get(System.getProperty("java.home")));
+        Assertions.assertEquals(PlatformClasses.runtime().key(), image.key());
+
+        List<String> fromRuntime = describe(new ClassResolver(1).extractClassInfo(jar, c -> true));
+        List<String> fromImage = describe(new ClassResolver(1, null, image).extractClassInfo(jar, c -> true));
+        Assertions.assertEquals(fromRuntime, fromImage);
+        Assertions.assertTrue(fromImage.contains("a extends java/util/AbstractList"), fromImage::toString);
+        Assertions.assertTrue(fromImage.contains("a.size()I overrides java/util/AbstractCollection"), fromImage::toString);
+
+        // Platform classes are cached under the key of the image
+        HierarchyCache cache = new HierarchyCache(tempDir.resolve("hierarchy"), image.key());
+        Assertions.assertEquals(fromImage, describe(new ClassResolver(1, cache, image).extractClassInfo(jar, c -> true)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new ClassResolver(1, new HierarchyCache(null, "jdk-other"), image));
+    }
+
+    private static List<String> describe(Set<ClassInfo> classes) {
+        List<String> lines = new ArrayList<>();
+        for (ClassInfo classInfo : classes) {
+            for (ClassInfo superClass : classInfo.superClasses()) {
+                lines.add(classInfo.name() + " extends " + superClass.name());
+            }
+            classInfo.methods().forEach(method -> method.overrides().forEach(override ->
+                    lines.add(classInfo.name() + "." + method.name() + method.descriptor() + " overrides " + override.owner().name())));
+        }
+
+        Collections.sort(lines);
+        return lines;
+    }
+}
@@ -0,0 +1,152 @@
+package org.quiltmc.mappings_hasher;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.mappings_hasher.MappingsTable.ClassEntry;
+import org.quiltmc.mappings_hasher.MappingsTable.MemberEntry;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProGuardMappingsTests {
+    private static final String MAPPINGS = String.join("\n",
+            "# {\"id\":\"sourceFile\",\"fileName\":\"Example.java\"}",
+            "net.example.Example -> a:",
+            "    int count -> a",
+            "    net.example.Example$Inner[] inners -> b",
+            "    # {\"id\":\"com.android.tools.r8.synthesized\"}",
+            "    1:3:void <init>() -> <init>",
+            "    4:4:net.example.Example$Inner wrap(java.lang.String,int[]) -> a",
+            "    5:5:void tick():10:10 -> b",
+            "    6:6:void inlined():20:20 -> c",
+            "    6:6:void net.example.Other.inlined():30:30 -> c",
+            "    long value -> a",
+            "net.example.Example$Inner -> a$a:",
+            "    net.example.Example outer -> a",
+            "    void tick() -> a",
+            "    void tick(int) -> a",
+            "net.example.Api -> net.example.Api:",
+            "    void run() -> run",
+            "");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void reads_mappings() throws IOException {
+        for (int parallelism : new int[] { 1, 4 }) {
+            MappingsTable mappings = read(MAPPINGS, parallelism);
+
+            ClassEntry example = mappings.getClass("a");
+            Assertions.assertEquals("a", example.obfuscatedName());
+            Assertions.assertEquals("net/example/Example", example.deobfuscatedName());
+            Assertions.assertEquals("net/example/Example", example.fullDeobfuscatedName());
+            assertMember(example.getField("a", "I"), "a", "count", "I", "I");
+            assertMember(example.getField("b", "[La$a;"), "b", "inners", "[La$a;", "[Lnet/example/Example$Inner;");
+            assertMember(example.getField("a", "J"), "a", "value", "J", "J");
+            assertMember(example.getMethod("<init>", "()V"), "<init>", "<init>", "()V", "()V");
+            assertMember(example.getMethod("a", "(Ljava/lang/String;[I)La$a;"), "a", "wrap",
+                    "(Ljava/lang/String;[I)La$a;", "(Ljava/lang/String;[I)Lnet/example/Example$Inner;");
+            assertMember(example.getMethod("b", "()V"), "b", "tick", "()V", "()V");
+            Assertions.assertNull(example.getMethod("a", "()V"));
+            Assertions.assertNull(example.getField("c", "I"));
+
+            // Inlined code isn't a method of the class
+            Assertions.assertEquals("inlined", example.getMethod("c", "()V").deobfuscatedName());
+            Assertions.assertEquals(4, example.methods().size());
+            Assertions.assertEquals(3, example.fields().size());
+
+            ClassEntry inner = mappings.getClass("a$a");
+            Assertions.assertEquals("a", inner.obfuscatedName());
+            Assertions.assertEquals("Inner", inner.deobfuscatedName());
+            Assertions.assertEquals("net/example/Example$Inner", inner.fullDeobfuscatedName());
+            assertMember(inner.getField("a", "La;"), "a", "outer", "La;", "Lnet/example/Example;");
+            assertMember(inner.getMethod("a", "(I)V"), "a", "tick", "(I)V", "(I)V");
+
+            ClassEntry api = mappings.getClass("net/example/Api");
+            Assertions.assertEquals("net/example/Api", api.deobfuscatedName());
+            assertMember(api.getMethod("run", "()V"), "run", "run", "()V", "()V");
+
+            Assertions.assertNull(mappings.getClass("b"));
+        }
+    }
+
+    @Test
+    public void parallel_matches_sequential() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append("net.example.Class").append(i).append(" -> c").append(i).append(":\n");
+            for (int j = 0; j < i % 7; j++) {
+                text.append("    net.example.Class").append((i + j) % 500).append(" field").append(j).append(" -> f").append(j).append('\n');
+                text.append("    ").append(j).append(':').append(j).append(":void method").append(j)
+                        .append("(net.example.Class").append(j).append(") -> m").append(j).append('\n');
+            }
+        }
+
+        Assertions.assertEquals(dump(read(text.toString(), 1)), dump(read(text.toString(), 8)));
+    }
+
+    @Test
+    public void keeps_last_duplicate() throws IOException {
+        MappingsTable mappings = read("net.example.Example -> a:\n    void first() -> a\n    void second() -> a\n", 1);
+
+        Assertions.assertEquals("second", mappings.getClass("a").getMethod("a", "()V").deobfuscatedName());
+        Assertions.assertEquals(1, mappings.getClass("a").methods().size());
+    }
+
+    @Test
+    public void proguard_matches_mapping_set() throws IOException {
+        SyntheticVersion version = SyntheticVersion.generate(new SyntheticVersion.Shape()
+                .classCount(2000)
+                .hierarchyDepth(4)
+                .diamondPercent(50)
+                .overrideFamilySize(8)
+                .collisionPercent(20), 1);
+        Path jar = version.writeJar(tempDir.resolve("version.jar"));
+        MappingsTable proGuard = ProGuardMappings.read(version.writeProGuard(tempDir.resolve("version.txt")));
+
+        StringWriter expected = new StringWriter();
+        new MappingsHasher(version.mappings(), "net/example/unmapped")
+                .generate(jar, c -> true, expected, 1);
+        StringWriter actual = new StringWriter();
+        new MappingsHasher(proGuard, "net/example/unmapped", 1)
+                .generate(jar, c -> true, actual, 1);
+        Assertions.assertEquals(expected.toString(), actual.toString());
+    }
+
+    private MappingsTable read(String text, int parallelism) throws IOException {
+        Path path = tempDir.resolve("mappings-" + parallelism + ".txt");
+        Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+        return ProGuardMappings.read(path, parallelism);
+    }
+
+    private static List<String> dump(MappingsTable mappings) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            ClassEntry entry = mappings.getClass("c" + i);
+            lines.add(entry.fullDeobfuscatedName());
+            for (MemberEntry member : entry.methods()) {
+                lines.add(member.obfuscatedName() + member.obfuscatedDescriptor() + " " + member.deobfuscatedName() + member.deobfuscatedDescriptor());
+            }
+            for (MemberEntry member : entry.fields()) {
+                lines.add(member.obfuscatedName() + member.obfuscatedDescriptor() + " " + member.deobfuscatedName() + member.deobfuscatedDescriptor());
+            }
+        }
+
+        return lines;
+    }
+
+    private static void assertMember(MemberEntry member, String obfuscatedName, String deobfuscatedName,
+            String obfuscatedDescriptor, String deobfuscatedDescriptor) {
+        Assertions.assertNotNull(member, obfuscatedName + obfuscatedDescriptor);
+        Assertions.assertEquals(obfuscatedName, member.obfuscatedName());
+        Assertions.assertEquals(deobfuscatedName, member.deobfuscatedName());
+        Assertions.assertEquals(obfuscatedDescriptor, member.obfuscatedDescriptor());
+        Assertions.assertEquals(deobfuscatedDescriptor, member.deobfuscatedDescriptor());
+    }
+}
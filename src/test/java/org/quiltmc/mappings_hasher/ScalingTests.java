@@ -0,0 +1,95 @@
+package org.quiltmc.mappings_hasher;
+
+import org.cadixdev.lorenz.MappingSet;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.mappings_hasher.asm.ClassResolver;
+import org.quiltmc.mappings_hasher.asm.HierarchyCache;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Measures time and heap, which depend on the machine, so these only run on demand: ./gradlew scalingTest
+@Tag("scaling")
+public class ScalingTests {
+    // Each size is twice the previous one, like the client jar growing over the years
+    private static final int[] CLASS_COUNTS = { 1500, 3000, 6000 };
+    private static final int RUNS = 3;
+    // Allowed growth per doubling of the class count, linear growth is 2, quadratic growth is 4
+    private static final double MAX_TIME_GROWTH = 3.0;
+    private static final double MAX_HEAP_GROWTH = 2.6;
+
+    @TempDir
+    Path tempDir;
+
+    // Platform classes are only parsed once, so they don't count towards the smallest size
+    private final HierarchyCache hierarchyCache = new HierarchyCache();
+
+    @Test
+    public void generation_scales_linearly() throws IOException {
+        long[] times = new long[CLASS_COUNTS.length];
+        long[] heaps = new long[CLASS_COUNTS.length];
+
+        // Warm up the JIT and the hierarchy cache
+        measure(SyntheticVersion.generate(CLASS_COUNTS[0], 0), "warmup");
+
+        for (int i = 0; i < CLASS_COUNTS.length; i++) {
+            SyntheticVersion version = SyntheticVersion.generate(CLASS_COUNTS[i], 0);
+            long[] measurement = measure(version, "size-" + CLASS_COUNTS[i]);
+            times[i] = measurement[0];
+            heaps[i] = measurement[1];
+        }
+
+        for (int i = 1; i < CLASS_COUNTS.length; i++) {
+            double timeGrowth = (double) times[i] / times[i - 1];
+            double heapGrowth = (double) heaps[i] / heaps[i - 1];
+            Assertions.assertTrue(timeGrowth <= MAX_TIME_GROWTH,
+                    "Time grew by " + timeGrowth + " from " + CLASS_COUNTS[i - 1] + " to " + CLASS_COUNTS[i] + " classes");
+            Assertions.assertTrue(heapGrowth <= MAX_HEAP_GROWTH,
+                    "Heap grew by " + heapGrowth + " from " + CLASS_COUNTS[i - 1] + " to " + CLASS_COUNTS[i] + " classes");
+        }
+    }
+
+    // The fastest of a few runs in nanoseconds, and the largest heap retained by the generated mappings in bytes
+    private long[] measure(SyntheticVersion version, String name) throws IOException {
+        Path jar = version.writeJar(tempDir.resolve(name + ".jar"));
+        Path mappingsFile = version.writeProGuard(tempDir.resolve(name + ".txt"));
+
+        long bestTime = Long.MAX_VALUE;
+        long retainedHeap = 0;
+        for (int run = 0; run < RUNS; run++) {
+            long[] measurement = measureRun(jar, mappingsFile);
+            bestTime = Math.min(bestTime, measurement[0]);
+            // One-off allocations of the JVM between runs only inflate the heap before a run, never the retained heap
+            retainedHeap = Math.max(retainedHeap, measurement[1]);
+        }
+
+        return new long[] { bestTime, retainedHeap };
+    }
+
+    // A separate frame, so the result of a run isn't reachable anymore when the next run starts
+    private long[] measureRun(Path jar, Path mappingsFile) throws IOException {
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        MappingsTable mappings = ProGuardMappings.read(mappingsFile);
+        MappingSet result = new MappingsHasher(mappings, "net/example/unmapped", new ClassResolver(1, hierarchyCache))
+                .generate(jar, c -> true);
+        long time = System.nanoTime() - start;
+
+        long retainedHeap = usedHeap() - heapBefore;
+        Assertions.assertNotNull(result.getClassMapping("a").orElse(null));
+        return new long[] { time, retainedHeap };
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // A single collection may leave garbage behind
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+
+        return used;
+    }
+}
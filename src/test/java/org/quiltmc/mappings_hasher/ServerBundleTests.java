@@ -0,0 +1,95 @@
+package org.quiltmc.mappings_hasher;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.mappings_hasher.util.ServerBundle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ServerBundleTests {
+    private static final byte[] SERVER = "server classes".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LIBRARY = "library classes".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void unpacks_bundled_jars() throws IOException {
+        Path bundle = writeBundle(sha256(SERVER));
+        Path directory = tempDir.resolve("unpacked");
+
+        ServerBundle unpacked = ServerBundle.unpack(bundle, directory);
+        Assertions.assertEquals(directory.resolve("versions/1.18/server-1.18.jar"), unpacked.jar());
+        Assertions.assertArrayEquals(SERVER, Files.readAllBytes(unpacked.jar()));
+        Assertions.assertEquals(Collections.singletonList(directory.resolve("libraries/com/example/lib/1.0/lib-1.0.jar")), unpacked.libraries());
+        Assertions.assertArrayEquals(LIBRARY, Files.readAllBytes(unpacked.libraries().get(0)));
+    }
+
+    @Test
+    public void replaces_changed_files_of_the_same_size() throws IOException {
+        Path bundle = writeBundle(sha256(SERVER));
+        Path directory = tempDir.resolve("unpacked");
+        Path jar = ServerBundle.unpack(bundle, directory).jar();
+
+        // Same size, different content
+        byte[] changed = SERVER.clone();
+        changed[0] ^= 1;
+        Files.write(jar, changed);
+
+        Assertions.assertEquals(jar, ServerBundle.unpack(bundle, directory).jar());
+        Assertions.assertArrayEquals(SERVER, Files.readAllBytes(jar));
+    }
+
+    @Test
+    public void rejects_files_not_matching_the_list() throws IOException {
+        Path bundle = writeBundle(sha256(LIBRARY));
+        Path directory = tempDir.resolve("unpacked");
+
+        IOException exception = Assertions.assertThrows(IOException.class, () -> ServerBundle.unpack(bundle, directory));
+        Assertions.assertEquals("Bundled file 1.18/server-1.18.jar doesn't match its SHA-256 " + sha256(LIBRARY), exception.getMessage());
+        Assertions.assertFalse(Files.exists(directory.resolve("versions/1.18/server-1.18.jar")));
+        Assertions.assertFalse(Files.exists(directory.resolve("versions/1.18/server-1.18.jar.part")));
+    }
+
+    private Path writeBundle(String serverSha256) throws IOException {
+        Path bundle = tempDir.resolve("server.jar");
+        try (OutputStream output = Files.newOutputStream(bundle); ZipOutputStream zip = new ZipOutputStream(output)) {
+            write(zip, "META-INF/versions.list", (serverSha256 + "\t1.18\t1.18/server-1.18.jar\n").getBytes(StandardCharsets.UTF_8));
+            write(zip, "META-INF/versions/1.18/server-1.18.jar", SERVER);
+            write(zip, "META-INF/libraries.list", (sha256(LIBRARY) + "\tcom.example:lib:1.0\tcom/example/lib/1.0/lib-1.0.jar\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            write(zip, "META-INF/libraries/com/example/lib/1.0/lib-1.0.jar", LIBRARY);
+        }
+
+        return bundle;
+    }
+
+    private static void write(ZipOutputStream zip, String name, byte[] content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content);
+        zip.closeEntry();
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
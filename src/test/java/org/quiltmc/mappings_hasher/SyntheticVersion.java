@@ -0,0 +1,541 @@
+package org.quiltmc.mappings_hasher;
+
+import org.cadixdev.bombe.type.signature.FieldSignature;
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.model.ClassMapping;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * A generated, obfuscated version with mappings, shaped like a game jar: obfuscated class and member names,
+ * class hierarchies with overrides, interface diamonds, inner classes, overloads, simple class names shared
+ * by multiple packages, and a few non-obfuscated classes. The same shape and seed always generate the same version.
+ */
+public final class SyntheticVersion {
+    private static final String[] METHOD_NAMES = { "tick", "update", "get", "set", "create", "read", "write", "apply",
+            "test", "run", "size", "isEmpty", "copy", "reset", "render", "load", "save", "close" };
+    private static final String[] FIELD_NAMES = { "count", "value", "name", "size", "level", "parent", "owner", "id" };
+    private static final String[] PRIMITIVE_TYPES = { "I", "J", "Z", "F", "Ljava/lang/String;" };
+    private static final int PACKAGE_COUNT = 20;
+    // Random picks of a super class or interface before giving up, e.g. because all families are full
+    private static final int PICK_ATTEMPTS = 3;
+
+    private final List<ClassSpec> classes = new ArrayList<>();
+    private final Map<String, ClassSpec> classesByName = new HashMap<>();
+
+    private SyntheticVersion() {
+    }
+
+    /**
+     * The tunable shape of a generated version, the defaults are close to the client jar.
+     */
+    public static final class Shape {
+        private int classCount = 1000;
+        private int hierarchyDepth = 8;
+        private int diamondPercent = 20;
+        private int overrideFamilySize = 64;
+        private int collisionPercent = 5;
+
+        public Shape classCount(int classCount) {
+            this.classCount = classCount;
+            return this;
+        }
+
+        /**
+         * The maximum number of generated classes in a chain of super classes.
+         */
+        public Shape hierarchyDepth(int hierarchyDepth) {
+            this.hierarchyDepth = hierarchyDepth;
+            return this;
+        }
+
+        /**
+         * The percentage of interfaces extending two interfaces with a common super interface.
+         */
+        public Shape diamondPercent(int diamondPercent) {
+            this.diamondPercent = diamondPercent;
+            return this;
+        }
+
+        /**
+         * The maximum number of classes extending or implementing a class or interface, directly or indirectly.
+         * This bounds the number of methods overriding the same method.
+         */
+        public Shape overrideFamilySize(int overrideFamilySize) {
+            this.overrideFamilySize = overrideFamilySize;
+            return this;
+        }
+
+        /**
+         * The percentage of classes with the same simple name as a class in another package.
+         */
+        public Shape collisionPercent(int collisionPercent) {
+            this.collisionPercent = collisionPercent;
+            return this;
+        }
+    }
+
+    public static SyntheticVersion generate(int classCount, long seed) {
+        return generate(new Shape().classCount(classCount), seed);
+    }
+
+    public static SyntheticVersion generate(Shape shape, long seed) {
+        return new Generator(shape, new Random(seed)).generate();
+    }
+
+    private static class Generator {
+        private final Shape shape;
+        private final Random random;
+        private final SyntheticVersion version = new SyntheticVersion();
+
+        private final List<ClassSpec> interfaces = new ArrayList<>();
+        // Interface -> interfaces extending it, interfaces extended by at least two are the tops of diamonds
+        private final Map<ClassSpec, List<ClassSpec>> subInterfaces = new HashMap<>();
+        private final List<ClassSpec> diamondTops = new ArrayList<>();
+        // Classes that may still be extended without exceeding the hierarchy depth
+        private final List<ClassSpec> extendableClasses = new ArrayList<>();
+        private final Map<ClassSpec, Integer> depths = new HashMap<>();
+        // Class or interface -> all its super classes and interfaces, including itself
+        private final Map<ClassSpec, Set<ClassSpec>> ancestors = new HashMap<>();
+        // Class or interface -> number of classes and interfaces extending or implementing it
+        private final Map<ClassSpec, Integer> familySizes = new HashMap<>();
+        private final List<ClassSpec> topLevelClasses = new ArrayList<>();
+        private final Map<ClassSpec, Integer> innerClassCounts = new HashMap<>();
+        private final Set<String> deobfuscatedNames = new HashSet<>();
+        private int obfuscatedIndex = 0;
+
+        Generator(Shape shape, Random random) {
+            this.shape = shape;
+            this.random = random;
+        }
+
+        SyntheticVersion generate() {
+            for (int i = 0; i < shape.classCount; i++) {
+                int kind = random.nextInt(100);
+
+                ClassSpec spec;
+                if (kind < 2) {
+                    // Not obfuscated, e.g. entry points
+                    String name = "net/example/api/Api" + i;
+                    spec = new ClassSpec(name, name, Opcodes.ACC_PUBLIC, "java/lang/Object", new String[0]);
+                    spec.methods.add(new MemberSpec("run", "()V", "run"));
+                }
+                else if (kind < 17) {
+                    spec = generateInterface(i);
+                }
+                else {
+                    spec = generateClass(i, kind < 27);
+                }
+
+                deobfuscatedNames.add(spec.deobfuscatedName);
+                version.classes.add(spec);
+                version.classesByName.put(spec.name, spec);
+            }
+
+            return version;
+        }
+
+        private ClassSpec generateInterface(int index) {
+            List<ClassSpec> superInterfaces = new ArrayList<>();
+            if (!diamondTops.isEmpty() && random.nextInt(100) < shape.diamondPercent) {
+                // Two interfaces extending the same interface
+                List<ClassSpec> sides = subInterfaces.get(diamondTops.get(random.nextInt(diamondTops.size())));
+                int first = random.nextInt(sides.size());
+                int second = (first + 1 + random.nextInt(sides.size() - 1)) % sides.size();
+                if (hasRoom(sides.get(first)) && hasRoom(sides.get(second))) {
+                    superInterfaces.add(sides.get(first));
+                    superInterfaces.add(sides.get(second));
+                }
+            }
+            else if (random.nextBoolean()) {
+                ClassSpec superInterface = pick(interfaces);
+                if (superInterface != null) {
+                    superInterfaces.add(superInterface);
+                }
+            }
+
+            String[] interfaceNames = superInterfaces.stream().map(c -> c.name).toArray(String[]::new);
+            ClassSpec spec = new ClassSpec(letters(obfuscatedIndex++), topLevelName(index, "Interface"),
+                    Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT, "java/lang/Object", interfaceNames);
+
+            // Redeclare some inherited methods, e.g. to narrow their documentation
+            Map<String, MemberSpec> inherited = new LinkedHashMap<>();
+            for (ClassSpec superInterface : superInterfaces) {
+                version.collectMethods(superInterface, inherited, new HashSet<>());
+            }
+            for (MemberSpec method : inherited.values()) {
+                if (random.nextInt(3) == 0) {
+                    spec.methods.add(method.copy());
+                }
+            }
+            addNewMethods(spec, 1 + random.nextInt(5), inherited.keySet());
+
+            for (ClassSpec superInterface : superInterfaces) {
+                List<ClassSpec> sides = subInterfaces.computeIfAbsent(superInterface, s -> new ArrayList<>());
+                sides.add(spec);
+                if (sides.size() == 2) {
+                    diamondTops.add(superInterface);
+                }
+            }
+            register(spec, superInterfaces);
+            interfaces.add(spec);
+            topLevelClasses.add(spec);
+            return spec;
+        }
+
+        private ClassSpec generateClass(int index, boolean inner) {
+            String name;
+            String deobfuscatedName;
+            if (inner && !topLevelClasses.isEmpty()) {
+                ClassSpec outer = topLevelClasses.get(random.nextInt(topLevelClasses.size()));
+                int innerIndex = innerClassCounts.merge(outer, 1, Integer::sum) - 1;
+                name = outer.name + "$" + letters(innerIndex);
+                deobfuscatedName = outer.deobfuscatedName + "$Inner" + innerIndex;
+            }
+            else {
+                name = letters(obfuscatedIndex++);
+                deobfuscatedName = topLevelName(index, "Class");
+            }
+
+            // Super classes and interfaces are always generated before their sub classes
+            ClassSpec superClass = random.nextBoolean() ? null : pick(extendableClasses);
+
+            List<ClassSpec> implemented = new ArrayList<>();
+            for (int j = random.nextInt(3); j > 0; j--) {
+                ClassSpec anInterface = pick(interfaces);
+                if (anInterface != null && !implemented.contains(anInterface)) {
+                    implemented.add(anInterface);
+                }
+            }
+
+            String[] interfaceNames = implemented.stream().map(c -> c.name).toArray(String[]::new);
+            ClassSpec spec = new ClassSpec(name, deobfuscatedName, Opcodes.ACC_PUBLIC,
+                    superClass != null ? superClass.name : "java/lang/Object", interfaceNames);
+            spec.methods.add(new MemberSpec("<init>", "()V", "<init>"));
+            Set<String> signatures = new HashSet<>();
+            if (random.nextInt(10) == 0) {
+                // Overrides a platform method
+                spec.methods.add(new MemberSpec("toString", "()Ljava/lang/String;", "toString"));
+                signatures.add("toString()Ljava/lang/String;");
+            }
+
+            // Implement all interface methods and override some super class methods
+            Map<String, MemberSpec> inherited = new LinkedHashMap<>();
+            Set<ClassSpec> visited = new HashSet<>();
+            for (ClassSpec anInterface : implemented) {
+                version.collectMethods(anInterface, inherited, visited);
+            }
+            for (MemberSpec method : inherited.values()) {
+                if (signatures.add(method.signature())) {
+                    spec.methods.add(method.copy());
+                }
+            }
+            version.collectMethods(superClass, inherited, visited);
+            for (MemberSpec method : inherited.values()) {
+                if (!method.name.equals("<init>") && signatures.add(method.signature()) && random.nextInt(3) == 0) {
+                    spec.methods.add(method.copy());
+                }
+            }
+
+            // New methods must not accidentally override inherited ones
+            signatures.addAll(inherited.keySet());
+            addNewMethods(spec, 2 + random.nextInt(9), signatures);
+            for (int j = random.nextInt(7); j > 0; j--) {
+                String descriptor = randomType();
+                spec.fields.add(new MemberSpec(letters(spec.fields.size()), descriptor,
+                        FIELD_NAMES[random.nextInt(FIELD_NAMES.length)] + (random.nextInt(4) == 0 ? "" : j)));
+            }
+
+            List<ClassSpec> supers = new ArrayList<>(implemented);
+            if (superClass != null) {
+                supers.add(superClass);
+            }
+            register(spec, supers);
+
+            int depth = superClass != null ? depths.get(superClass) + 1 : 1;
+            depths.put(spec, depth);
+            if (depth < shape.hierarchyDepth) {
+                extendableClasses.add(spec);
+            }
+            if (!name.contains("$")) {
+                topLevelClasses.add(spec);
+            }
+            return spec;
+        }
+
+        // A new deobfuscated name, or the simple name of an existing class in another package
+        private String topLevelName(int index, String prefix) {
+            if (!topLevelClasses.isEmpty() && random.nextInt(100) < shape.collisionPercent) {
+                String existing = topLevelClasses.get(random.nextInt(topLevelClasses.size())).deobfuscatedName;
+                String name = "net/example/p" + random.nextInt(PACKAGE_COUNT) + existing.substring(existing.lastIndexOf('/'));
+                if (!deobfuscatedNames.contains(name)) {
+                    return name;
+                }
+            }
+
+            return "net/example/p" + random.nextInt(PACKAGE_COUNT) + "/" + prefix + index;
+        }
+
+        // A random class or interface that may still be extended, or null if none was found
+        private ClassSpec pick(List<ClassSpec> candidates) {
+            for (int attempt = 0; attempt < PICK_ATTEMPTS && !candidates.isEmpty(); attempt++) {
+                ClassSpec candidate = candidates.get(random.nextInt(candidates.size()));
+                if (hasRoom(candidate)) {
+                    return candidate;
+                }
+            }
+
+            return null;
+        }
+
+        private boolean hasRoom(ClassSpec spec) {
+            for (ClassSpec ancestor : ancestors.get(spec)) {
+                if (familySizes.getOrDefault(ancestor, 0) >= shape.overrideFamilySize) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private void register(ClassSpec spec, List<ClassSpec> supers) {
+            Set<ClassSpec> specAncestors = new LinkedHashSet<>();
+            specAncestors.add(spec);
+            for (ClassSpec superSpec : supers) {
+                specAncestors.addAll(ancestors.get(superSpec));
+            }
+            for (ClassSpec ancestor : specAncestors) {
+                if (ancestor != spec) {
+                    familySizes.merge(ancestor, 1, Integer::sum);
+                }
+            }
+            ancestors.put(spec, specAncestors);
+        }
+
+        // Adds methods with new obfuscated names, deobfuscated names are reused to get overloads
+        private void addNewMethods(ClassSpec spec, int count, Set<String> inherited) {
+            int nameIndex = 0;
+            while (count > 0) {
+                String name = letters(nameIndex++);
+                String descriptor = "(" + (random.nextBoolean() ? "" : randomType()) + ")" + (random.nextBoolean() ? "V" : randomType());
+                if (inherited.contains(name + descriptor)) {
+                    continue;
+                }
+
+                spec.methods.add(new MemberSpec(name, descriptor, METHOD_NAMES[random.nextInt(METHOD_NAMES.length)]));
+                count--;
+            }
+        }
+
+        private String randomType() {
+            if (version.classes.isEmpty() || random.nextBoolean()) {
+                return PRIMITIVE_TYPES[random.nextInt(PRIMITIVE_TYPES.length)];
+            }
+
+            return "L" + version.classes.get(random.nextInt(version.classes.size())).name + ";";
+        }
+    }
+
+    // Obfuscated names: a, b, ..., z, aa, ab, ...
+    private static String letters(int index) {
+        StringBuilder name = new StringBuilder();
+        do {
+            name.insert(0, (char) ('a' + index % 26));
+            index = index / 26 - 1;
+        } while (index >= 0);
+
+        return name.toString();
+    }
+
+    // Adds the methods of a class and all its super classes and interfaces by their signature, the first one wins
+    private void collectMethods(ClassSpec spec, Map<String, MemberSpec> methods, Set<ClassSpec> visited) {
+        if (spec == null || !visited.add(spec)) {
+            return;
+        }
+
+        for (MemberSpec method : spec.methods) {
+            methods.putIfAbsent(method.signature(), method);
+        }
+        collectMethods(classesByName.get(spec.superName), methods, visited);
+        for (String anInterface : spec.interfaces) {
+            collectMethods(classesByName.get(anInterface), methods, visited);
+        }
+    }
+
+    /**
+     * The generated classes, super classes and interfaces come before the classes extending them.
+     */
+    public List<ClassSpec> classes() {
+        return classes;
+    }
+
+    /**
+     * The mappings from obfuscated to deobfuscated names.
+     */
+    public MappingSet mappings() {
+        MappingSet mappings = MappingSet.create();
+        for (ClassSpec spec : classes) {
+            ClassMapping<?, ?> classMapping = mappings.getOrCreateClassMapping(spec.name);
+            classMapping.setDeobfuscatedName(spec.deobfuscatedName);
+            for (MemberSpec method : spec.methods) {
+                classMapping.createMethodMapping(method.name, method.descriptor).setDeobfuscatedName(method.deobfuscatedName);
+            }
+            for (MemberSpec field : spec.fields) {
+                classMapping.createFieldMapping(FieldSignature.of(field.name, field.descriptor)).setDeobfuscatedName(field.deobfuscatedName);
+            }
+        }
+
+        return mappings;
+    }
+
+    public Path writeJar(Path path) throws IOException {
+        try (OutputStream output = Files.newOutputStream(path); JarOutputStream jar = new JarOutputStream(output)) {
+            for (ClassSpec spec : classes) {
+                jar.putNextEntry(new ZipEntry(spec.name + ".class"));
+                jar.write(spec.toBytes());
+                jar.closeEntry();
+            }
+        }
+
+        return path;
+    }
+
+    /**
+     * Writes the mappings in the ProGuard format, like the mappings published for the game.
+     */
+    public Path writeProGuard(Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("# {\"id\":\"com.android.tools.r8.mapping\",\"version\":\"2.0\"}\n");
+            for (ClassSpec spec : classes) {
+                writer.write(spec.deobfuscatedName.replace('/', '.') + " -> " + spec.name.replace('/', '.') + ":\n");
+                for (MemberSpec field : spec.fields) {
+                    writer.write("    " + toJavaType(field.descriptor) + " " + field.deobfuscatedName + " -> " + field.name + "\n");
+                }
+
+                int line = 1;
+                for (MemberSpec method : spec.methods) {
+                    // Abstract methods don't have line numbers
+                    String lines = (spec.access & Opcodes.ACC_INTERFACE) != 0 ? "" : line + ":" + (line + 2) + ":";
+                    line += 3;
+
+                    StringJoiner parameters = new StringJoiner(",", "(", ")");
+                    int end = method.descriptor.indexOf(')');
+                    for (int i = 1; i < end; i = typeEnd(method.descriptor, i)) {
+                        parameters.add(toJavaType(method.descriptor.substring(i, typeEnd(method.descriptor, i))));
+                    }
+                    writer.write("    " + lines + toJavaType(method.descriptor.substring(end + 1)) + " "
+                            + method.deobfuscatedName + parameters + " -> " + method.name + "\n");
+                }
+            }
+        }
+
+        return path;
+    }
+
+    private static int typeEnd(String descriptor, int start) {
+        int end = start;
+        while (descriptor.charAt(end) == '[') {
+            end++;
+        }
+
+        return descriptor.charAt(end) == 'L' ? descriptor.indexOf(';', end) + 1 : end + 1;
+    }
+
+    // Deobfuscated java syntax of a type descriptor
+    private String toJavaType(String descriptor) {
+        int dimensions = 0;
+        while (descriptor.charAt(dimensions) == '[') {
+            dimensions++;
+        }
+
+        String type;
+        switch (descriptor.charAt(dimensions)) {
+            case 'V': type = "void"; break;
+            case 'Z': type = "boolean"; break;
+            case 'B': type = "byte"; break;
+            case 'C': type = "char"; break;
+            case 'S': type = "short"; break;
+            case 'I': type = "int"; break;
+            case 'J': type = "long"; break;
+            case 'F': type = "float"; break;
+            case 'D': type = "double"; break;
+            default:
+                String className = descriptor.substring(dimensions + 1, descriptor.length() - 1);
+                ClassSpec spec = classesByName.get(className);
+                type = (spec != null ? spec.deobfuscatedName : className).replace('/', '.');
+        }
+
+        StringBuilder javaType = new StringBuilder(type);
+        for (int i = 0; i < dimensions; i++) {
+            javaType.append("[]");
+        }
+
+        return javaType.toString();
+    }
+
+    public static final class ClassSpec {
+        public final String name;
+        public final String deobfuscatedName;
+        public final int access;
+        public final String superName;
+        public final String[] interfaces;
+        public final List<MemberSpec> methods = new ArrayList<>();
+        public final List<MemberSpec> fields = new ArrayList<>();
+
+        private ClassSpec(String name, String deobfuscatedName, int access, String superName, String[] interfaces) {
+            this.name = name;
+            this.deobfuscatedName = deobfuscatedName;
+            this.access = access;
+            this.superName = superName;
+            this.interfaces = interfaces;
+        }
+
+        public int methodAccess() {
+            return (access & Opcodes.ACC_INTERFACE) != 0 ? Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT : Opcodes.ACC_PUBLIC;
+        }
+
+        public byte[] toBytes() {
+            ClassWriter writer = new ClassWriter(0);
+            writer.visit(Opcodes.V1_8, access, name, null, superName, interfaces);
+            for (MemberSpec method : methods) {
+                writer.visitMethod(methodAccess(), method.name, method.descriptor, null, null).visitEnd();
+            }
+            for (MemberSpec field : fields) {
+                writer.visitField(Opcodes.ACC_PUBLIC, field.name, field.descriptor, null, null).visitEnd();
+            }
+            writer.visitEnd();
+            return writer.toByteArray();
+        }
+    }
+
+    public static final class MemberSpec {
+        public final String name;
+        public final String descriptor;
+        public final String deobfuscatedName;
+
+        private MemberSpec(String name, String descriptor, String deobfuscatedName) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.deobfuscatedName = deobfuscatedName;
+        }
+
+        String signature() {
+            return name + descriptor;
+        }
+
+        // The same member declared by another class, i.e. an override
+        MemberSpec copy() {
+            return new MemberSpec(name, descriptor, deobfuscatedName);
+        }
+    }
+}
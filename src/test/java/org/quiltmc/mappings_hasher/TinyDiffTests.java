@@ -0,0 +1,189 @@
+package org.quiltmc.mappings_hasher;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.mappings_hasher.TinyDiff.Change;
+import org.quiltmc.mappings_hasher.TinyDiff.Kind;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+public class TinyDiffTests {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void reports_changes() throws IOException {
+        String oldMappings = "tiny\t2\t0\tofficial\thashed\n"
+                + "\tsorted\n"
+                + "c\tb\tC_aaaaaaaa\n"
+                + "\tm\t()V\ta\tm_aaaaaaaa\n"
+                + "\tm\t()V\tb\tm_bbbbbbbb\n"
+                + "\tf\tI\ta\tf_aaaaaaaa\n"
+                + "c\tb$a\tC_aaaaaaaa$C_bbbbbbbb\n"
+                + "\tf\tI\ta\tf_cccccccc\n"
+                + "c\tc\tC_cccccccc\n"
+                + "\tm\t()V\ta\tm_cccccccc\n"
+                + "\t\tc\ta comment\n"
+                + "\tf\tJ\ta\tf_dddddddd\n"
+                + "c\taa\tC_dddddddd\n";
+        String newMappings = "tiny\t2\t0\tofficial\thashed\n"
+                + "c\ta\tC_eeeeeeee\n"
+                + "\tm\t()V\ta\tm_eeeeeeee\n"
+                + "c\tb\tC_aaaaaaaa\n"
+                + "\tm\t()V\ta\tm_aaaaaaaa\n"
+                + "\tm\t(I)V\tb\tm_ffffffff\n"
+                + "\tf\tI\ta\tf_gggggggg\n"
+                + "c\tb$a\tC_aaaaaaaa$C_hhhhhhhh\n"
+                + "\tf\tI\ta\tf_cccccccc\n"
+                + "c\taa\tC_dddddddd\n";
+
+        StringWriter report = new StringWriter();
+        TinyDiff.Summary summary = diff(oldMappings, newMappings, report, "official");
+        Assertions.assertEquals("+\tc\ta\tC_eeeeeeee\n"
+                + "-\tm\tb\t()V\tb\tm_bbbbbbbb\n"
+                + "+\tm\tb\t(I)V\tb\tm_ffffffff\n"
+                + "~\tf\tb\tI\ta\tf_aaaaaaaa\tf_gggggggg\n"
+                + "~\tc\tb$a\tC_aaaaaaaa$C_bbbbbbbb\tC_aaaaaaaa$C_hhhhhhhh\n"
+                + "-\tc\tc\tC_cccccccc\n", report.toString());
+
+        Assertions.assertEquals(1, summary.get(Kind.CLASS, Change.ADDED));
+        Assertions.assertEquals(1, summary.get(Kind.CLASS, Change.REMOVED));
+        Assertions.assertEquals(1, summary.get(Kind.CLASS, Change.RENAMED));
+        Assertions.assertEquals(2, summary.get(Kind.CLASS, Change.UNCHANGED));
+        // Members of added and removed classes are counted
+        Assertions.assertEquals(2, summary.get(Kind.METHOD, Change.ADDED));
+        Assertions.assertEquals(2, summary.get(Kind.METHOD, Change.REMOVED));
+        Assertions.assertEquals(1, summary.get(Kind.METHOD, Change.UNCHANGED));
+        Assertions.assertEquals(1, summary.get(Kind.FIELD, Change.REMOVED));
+        Assertions.assertEquals(1, summary.get(Kind.FIELD, Change.RENAMED));
+        Assertions.assertEquals(1, summary.get(Kind.FIELD, Change.UNCHANGED));
+        Assertions.assertTrue(summary.hasChanges());
+        Assertions.assertEquals("classes: 1 added, 1 removed, 1 renamed, 2 unchanged\n"
+                + "methods: 2 added, 2 removed, 0 renamed, 1 unchanged\n"
+                + "fields: 0 added, 1 removed, 1 renamed, 1 unchanged\n", summary.toString());
+    }
+
+    @Test
+    public void matches_versions_by_hashed_names() throws IOException {
+        // The next version reassigns the obfuscated names, and adds a class
+        String oldMappings = "tiny\t2\t0\tofficial\thashed\n"
+                + "c\ta\tC_aaaaaaaa\n"
+                + "\tm\t()V\ta\tm_aaaaaaaa\n"
+                + "\tm\t(La;)V\tb\tm_bbbbbbbb\n"
+                + "c\tb\tC_bbbbbbbb\n"
+                + "\tf\tI\ta\tf_aaaaaaaa\n";
+        String newMappings = "tiny\t2\t0\tofficial\thashed\n"
+                + "c\ta\tC_bbbbbbbb\n"
+                + "\tf\tI\tb\tf_aaaaaaaa\n"
+                + "c\tb\tC_aaaaaaaa\n"
+                + "\tm\t()V\ta\tm_aaaaaaaa\n"
+                + "\tm\t(Lb;)V\tc\tm_bbbbbbbb\n"
+                + "c\tc\tC_cccccccc\n";
+
+        // Matched by obfuscated names, every hashed name seems to change
+        TinyDiff.Summary byObfuscated = diff(oldMappings, newMappings, null, "official");
+        Assertions.assertEquals(2, byObfuscated.get(Kind.CLASS, Change.RENAMED));
+        Assertions.assertEquals(2, byObfuscated.get(Kind.METHOD, Change.ADDED) + byObfuscated.get(Kind.METHOD, Change.RENAMED));
+
+        // Matched by hashed names, only the added class is reported, moved obfuscated names aren't changes
+        StringWriter report = new StringWriter();
+        TinyDiff.Summary byHashed = diff(oldMappings, newMappings, report, null);
+        Assertions.assertEquals("+\tc\tC_cccccccc\tc\n", report.toString());
+        Assertions.assertEquals("classes: 1 added, 0 removed, 0 renamed, 2 unchanged\n"
+                + "methods: 0 added, 0 removed, 0 renamed, 2 unchanged\n"
+                + "fields: 0 added, 0 removed, 0 renamed, 1 unchanged\n", byHashed.toString());
+
+        // Naming the second namespace is the same as the default
+        Assertions.assertEquals(byHashed.toString(), diff(oldMappings, newMappings, null, "hashed").toString());
+        IOException exception = Assertions.assertThrows(IOException.class, () -> TinyDiff.diff(new BufferedReader(new StringReader(oldMappings)),
+                new BufferedReader(new StringReader(newMappings)), null, "named"));
+        Assertions.assertTrue(exception.getMessage().contains("named"), exception.getMessage());
+    }
+
+    @Test
+    public void matches_writer_order() {
+        List<String> classNames = Arrays.asList("b", "aa", "a$b", "a$aa", "a$b$a", "a", "net/example/Api$1", "c$a",
+                "net/example/Api", "net/example/Api$10", "net/example/Api$2", "b$a$a");
+        List<String> sorted = TinyWriter.sortClassNames(classNames);
+        for (int i = 1; i < sorted.size(); i++) {
+            Assertions.assertTrue(TinyDiff.compareClassNames(sorted.get(i - 1), sorted.get(i)) < 0, sorted.get(i - 1) + ", " + sorted.get(i));
+            Assertions.assertTrue(TinyDiff.compareClassNames(sorted.get(i), sorted.get(i - 1)) > 0, sorted.get(i) + ", " + sorted.get(i - 1));
+        }
+    }
+
+    @Test
+    public void rejects_unsorted_classes() throws IOException {
+        String mappings = "tiny\t2\t0\tofficial\thashed\n"
+                + "c\taa\tC_aaaaaaaa\n"
+                + "c\tb\tC_bbbbbbbb\n";
+        IOException exception = Assertions.assertThrows(IOException.class, () -> diff(mappings, mappings, null, "official"));
+        Assertions.assertTrue(exception.getMessage().contains("aren't sorted"), exception.getMessage());
+
+        // Matched by hashed names, the classes are sorted anyway
+        Assertions.assertFalse(diff(mappings, mappings, null, null).hasChanges());
+    }
+
+    @Test
+    public void rejects_duplicate_keys() {
+        // The duplicates end up in different runs
+        String mappings = "tiny\t2\t0\tofficial\thashed\n"
+                + "c\ta\tC_aaaaaaaa\n"
+                + "c\tb\tC_bbbbbbbb\n"
+                + "c\tc\tC_aaaaaaaa\n";
+        IOException exception = Assertions.assertThrows(IOException.class, () -> TinyDiff.diff(new BufferedReader(new StringReader(mappings)),
+                new BufferedReader(new StringReader(mappings)), null, null, 2));
+        Assertions.assertEquals("Multiple classes of the old file are mapped to C_aaaaaaaa", exception.getMessage());
+    }
+
+    @Test
+    public void diffs_generated_mappings() throws IOException {
+        SyntheticVersion version = SyntheticVersion.generate(1000, 4);
+        Path jar = version.writeJar(tempDir.resolve("version.jar"));
+        Path oldFile = tempDir.resolve("old.tiny");
+        Path newFile = tempDir.resolve("new.tiny");
+        try (Writer writer = Files.newBufferedWriter(oldFile)) {
+            new MappingsHasher(version.mappings(), "net/example/unmapped").generate(jar, c -> true, writer, 1);
+        }
+        try (Writer writer = Files.newBufferedWriter(newFile)) {
+            new MappingsHasher(version.mappings(), "net/example/other").generate(jar, c -> true, writer, 1);
+        }
+
+        TinyDiff.Summary same = TinyDiff.diff(oldFile, oldFile, null);
+        Assertions.assertFalse(same.hasChanges());
+        Assertions.assertEquals(Files.readAllLines(oldFile).stream().filter(line -> line.startsWith("c\t")).count(), same.get(Kind.CLASS, Change.UNCHANGED));
+
+        // Hashed classes move to the other package, with their inner classes
+        TinyDiff.Summary moved = TinyDiff.diff(oldFile, newFile, null, "official");
+        long movedClasses = Files.readAllLines(oldFile).stream().filter(line -> line.matches("c\t[^\t]+\tnet/example/unmapped/.*")).count();
+        Assertions.assertTrue(movedClasses > 0);
+        Assertions.assertEquals(movedClasses, moved.get(Kind.CLASS, Change.RENAMED));
+        Assertions.assertEquals(0, moved.get(Kind.METHOD, Change.RENAMED) + moved.get(Kind.FIELD, Change.RENAMED));
+
+        // Sorting the hashed names in many small runs gives the same report as sorting them at once
+        String movedReport = diffFiles(oldFile, newFile, Integer.MAX_VALUE);
+        Assertions.assertEquals(movedReport, diffFiles(oldFile, newFile, 7));
+        Assertions.assertEquals(movedClasses, movedReport.split("\n").length / 2);
+        Assertions.assertTrue(movedReport.startsWith("+\t") || movedReport.startsWith("-\t"), movedReport);
+    }
+
+    private static String diffFiles(Path oldFile, Path newFile, int runSize) throws IOException {
+        StringWriter report = new StringWriter();
+        try (BufferedReader oldReader = Files.newBufferedReader(oldFile); BufferedReader newReader = Files.newBufferedReader(newFile)) {
+            TinyDiff.diff(oldReader, newReader, report, null, runSize);
+        }
+
+        return report.toString();
+    }
+
+    private static TinyDiff.Summary diff(String oldMappings, String newMappings, StringWriter report, String keyNamespace) throws IOException {
+        return TinyDiff.diff(new BufferedReader(new StringReader(oldMappings)), new BufferedReader(new StringReader(newMappings)),
+                report, keyNamespace);
+    }
+}
@@ -0,0 +1,54 @@
+package org.quiltmc.mappings_hasher;
+
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+public class TinyWriterTests {
+    @Test
+    public void matches_golden_order() throws IOException, URISyntaxException {
+        Path goldenPath = Paths.get(getClass().getResource("/mappings/hashed-1.17.1.tiny").toURI());
+        List<String> golden = Files.readAllLines(goldenPath);
+
+        // Read the classes of the golden file
+        Map<String, TinyWriter.ClassEntry> entries = new HashMap<>();
+        TinyWriter.ClassEntry entry = null;
+        for (String line : golden.subList(1, golden.size())) {
+            String[] parts = line.split("\t");
+            if (parts[0].equals("c")) {
+                entry = new TinyWriter.ClassEntry(parts[1], parts[2]);
+                entries.put(entry.name(), entry);
+            }
+            else if (parts[1].equals("m")) {
+                entry.addMethod(parts[3], parts[2], parts[4]);
+            }
+            else {
+                entry.addField(parts[3], parts[2], parts[4]);
+            }
+        }
+
+        // Write them in a different order
+        List<String> classNames = new ArrayList<>(entries.keySet());
+        Collections.shuffle(classNames, new Random(0));
+
+        StringWriter writer = new StringWriter();
+        TinyWriter tinyWriter = new TinyWriter(writer, "official", "hashed");
+        for (String className : TinyWriter.sortClassNames(classNames)) {
+            tinyWriter.write(entries.get(className));
+        }
+
+        Assertions.assertLinesMatch(golden, Arrays.asList(writer.toString().split("\n")), "Written mappings don't match the golden file");
+    }
+
+    @Test
+    public void includes_missing_outer_classes() {
+        List<String> sorted = TinyWriter.sortClassNames(Arrays.asList("b$a$c", "aa", "b$a", "a$bb", "a$c"));
+        Assertions.assertEquals(Arrays.asList("a", "a$c", "a$bb", "b", "b$a", "b$a$c", "aa"), sorted);
+    }
+}
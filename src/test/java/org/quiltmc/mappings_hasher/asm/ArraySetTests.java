@@ -0,0 +1,107 @@
+package org.quiltmc.mappings_hasher.asm;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+public class ArraySetTests {
+    @Test
+    public void behaves_like_a_set() {
+        ArraySet<String> set = new ArraySet<>();
+        Assertions.assertTrue(set.isEmpty());
+        Assertions.assertFalse(set.iterator().hasNext());
+
+        Assertions.assertTrue(set.add("a"));
+        Assertions.assertTrue(set.add("b"));
+        Assertions.assertFalse(set.add("a"));
+        Assertions.assertFalse(set.add(new String("b".toCharArray())));
+        Assertions.assertEquals(2, set.size());
+        Assertions.assertTrue(set.contains("a"));
+        Assertions.assertFalse(set.contains("c"));
+        Assertions.assertFalse(set.contains(null));
+
+        // Equal to other sets with the same elements, in any order
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("b", "a")), set);
+        Assertions.assertEquals(set, new HashSet<>(Arrays.asList("b", "a")));
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("a", "b")).hashCode(), set.hashCode());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> set.remove("a"));
+    }
+
+    @Test
+    public void keeps_insertion_order() {
+        ArraySet<Integer> set = new ArraySet<>(0);
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 100; i++) {
+            int element = random.nextInt(50);
+            if (set.add(element)) {
+                expected.add(element);
+            }
+        }
+
+        Assertions.assertEquals(expected, new ArrayList<>(set));
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(expected.get(i), set.get(i));
+        }
+
+        Iterator<Integer> iterator = set.iterator();
+        for (int i = 0; i < expected.size(); i++) {
+            iterator.next();
+        }
+        Assertions.assertFalse(iterator.hasNext());
+        Assertions.assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    public void appends_trims_and_sorts() {
+        ArraySet<String> set = new ArraySet<>(10);
+        for (String element : new String[] { "d", "b", "c", "a" }) {
+            set.append(element);
+        }
+
+        set.trimToSize();
+        Assertions.assertEquals(Arrays.asList("d", "b", "c", "a"), new ArrayList<>(set));
+
+        set.sort(Comparator.naturalOrder());
+        Assertions.assertEquals(Arrays.asList("a", "b", "c", "d"), new ArrayList<>(set));
+
+        // Still grows after being trimmed
+        set.append("e");
+        Assertions.assertEquals(5, set.size());
+        Assertions.assertEquals("e", set.get(4));
+
+        ArraySet<String> empty = new ArraySet<>(4);
+        empty.trimToSize();
+        empty.sort(Comparator.naturalOrder());
+        Assertions.assertEquals(0, empty.size());
+        Assertions.assertTrue(empty.add("a"));
+        Assertions.assertEquals(Collections.singleton("a"), empty);
+    }
+
+    @Test
+    public void indexes_large_sets() {
+        ArraySet<Integer> set = new ArraySet<>();
+        for (int i = 0; i < 10000; i++) {
+            Assertions.assertTrue(set.add(i));
+        }
+        // Duplicates are found once the set is larger than the threshold
+        for (int i = 0; i < 10000; i += 7) {
+            Assertions.assertFalse(set.add(i));
+        }
+        Assertions.assertEquals(10000, set.size());
+
+        // Appended elements are added to the index too
+        set.append(10000);
+        Assertions.assertTrue(set.contains(10000));
+        Assertions.assertFalse(set.add(10000));
+        Assertions.assertFalse(set.contains(-1));
+
+        // Trimmed sets are searched linearly
+        set.trimToSize();
+        Assertions.assertTrue(set.contains(5000));
+        Assertions.assertFalse(set.contains(-1));
+        set.append(-1);
+        Assertions.assertTrue(set.contains(-1));
+        Assertions.assertEquals(10002, set.size());
+    }
+}
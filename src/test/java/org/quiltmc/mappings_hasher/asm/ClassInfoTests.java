@@ -0,0 +1,271 @@
+package org.quiltmc.mappings_hasher.asm;
+
+import org.junit.jupiter.api.*;
+import org.objectweb.asm.Opcodes;
+
+import java.util.*;
+
+public class ClassInfoTests {
+    private static final int INTERFACE = Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT;
+    private static final int[] METHOD_ACCESS = { Opcodes.ACC_PUBLIC, Opcodes.ACC_PROTECTED, 0, Opcodes.ACC_PRIVATE,
+            Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC };
+
+    private final SymbolTable symbols = new SymbolTable();
+
+    @Test
+    public void finds_methods_by_signature() {
+        ClassInfo clazz = new ClassInfo(symbols, "a", Opcodes.ACC_PUBLIC);
+        MethodInfo tick = addMethod(clazz, "tick", "()V", Opcodes.ACC_PUBLIC);
+        MethodInfo tickInt = addMethod(clazz, "tick", "(I)V", Opcodes.ACC_PUBLIC);
+        MethodInfo tock = addMethod(clazz, "tock", "()V", Opcodes.ACC_STATIC);
+
+        // The index is built when the class is finished
+        Assertions.assertNull(clazz.getMethod("tick", "()V"));
+        clazz.finish();
+
+        Assertions.assertSame(tick, clazz.getMethod("tick", "()V"));
+        Assertions.assertSame(tickInt, clazz.getMethod("tick", "(I)V"));
+        Assertions.assertSame(tock, clazz.getMethod("tock", "()V"));
+        Assertions.assertNull(clazz.getMethod("tock", "(I)V"));
+        Assertions.assertNull(clazz.getMethod("tick", "(J)V"));
+        // Names that were never interned can't belong to any method
+        Assertions.assertNull(clazz.getMethod("neverDeclaredAnywhere", "()V"));
+        Assertions.assertEquals(new HashSet<>(Arrays.asList(tick, tickInt, tock)), clazz.methods());
+    }
+
+    @Test
+    public void overrides_through_interface_diamonds() {
+        // Interfaces b and c both extend a, only c redeclares the method
+        ClassInfo a = new ClassInfo(symbols, "a", INTERFACE);
+        MethodInfo aTick = addMethod(a, "tick", "()V", Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT);
+        a.finish();
+        ClassInfo b = new ClassInfo(symbols, "b", INTERFACE);
+        b.superClasses().add(a);
+        b.finish();
+        ClassInfo c = new ClassInfo(symbols, "c", INTERFACE);
+        c.superClasses().add(a);
+        MethodInfo cTick = addMethod(c, "tick", "()V", Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT);
+        c.finish();
+
+        // d implements both, closing the diamond
+        ClassInfo d = new ClassInfo(symbols, "d", Opcodes.ACC_PUBLIC);
+        d.superClasses().add(b);
+        d.superClasses().add(c);
+        MethodInfo dTick = addMethod(d, "tick", "()V", Opcodes.ACC_PUBLIC);
+        d.finish();
+
+        Assertions.assertEquals(Collections.emptySet(), aTick.overrides());
+        Assertions.assertEquals(Collections.singleton(aTick), cTick.overrides());
+        Assertions.assertEquals(new HashSet<>(Arrays.asList(aTick, cTick)), dTick.overrides());
+        Assertions.assertEquals(new HashSet<>(Arrays.asList(aTick, cTick, dTick)), dTick.nameSet());
+    }
+
+    @Test
+    public void overrides_package_private_methods_in_same_package() {
+        ClassInfo base = new ClassInfo(symbols, "p/Base", Opcodes.ACC_PUBLIC);
+        MethodInfo baseTick = addMethod(base, "tick", "()V", 0);
+        base.finish();
+
+        // A subclass in another package can't see the package private method
+        ClassInfo other = new ClassInfo(symbols, "q/Other", Opcodes.ACC_PUBLIC);
+        other.superClasses().add(base);
+        MethodInfo otherTick = addMethod(other, "tick", "()V", 0);
+        other.finish();
+
+        // Back in the package of the base class, the method of the other package is skipped
+        ClassInfo sub = new ClassInfo(symbols, "p/Sub", Opcodes.ACC_PUBLIC);
+        sub.superClasses().add(other);
+        MethodInfo subTick = addMethod(sub, "tick", "()V", Opcodes.ACC_PUBLIC);
+        sub.finish();
+
+        Assertions.assertEquals(Collections.emptySet(), otherTick.overrides());
+        Assertions.assertEquals(Collections.singleton(baseTick), subTick.overrides());
+        Assertions.assertEquals(new HashSet<>(Arrays.asList(baseTick, subTick)), subTick.nameSet());
+        Assertions.assertEquals(Collections.singleton(otherTick), otherTick.nameSet());
+    }
+
+    @Test
+    public void overrides_match_linear_search() {
+        for (ClassInfo clazz : createHierarchy(new Random(1))) {
+            for (MethodInfo method : clazz.methods()) {
+                Assertions.assertEquals(findOverrides(method), method.overrides(), method.getFullName());
+            }
+        }
+    }
+
+    @Test
+    public void sub_classes_match_hierarchy_walk() {
+        List<ClassInfo> classes = createHierarchy(new Random(2));
+        for (ClassInfo clazz : classes) {
+            for (ClassInfo superClass : classes) {
+                Assertions.assertEquals(isSubClassOf(clazz, superClass), clazz.isSubClassOf(superClass),
+                        clazz.name() + " extends " + superClass.name());
+            }
+        }
+    }
+
+    @Test
+    public void name_sets_match_inherited_methods() {
+        List<ClassInfo> classes = createHierarchy(new Random(3));
+
+        // Merges the visible methods of each class, collecting all methods through every path
+        Map<MethodInfo, Set<MethodInfo>> expected = new HashMap<>();
+        for (ClassInfo clazz : classes) {
+            Map<String, List<MethodInfo>> visibleMethods = new HashMap<>();
+            for (MethodInfo method : getAllMethods(clazz)) {
+                boolean visible = !method.isStatic() && !method.isPrivate() && isSubClassOf(clazz, method.owner())
+                        && (method.isPublic() || method.isProtected() || method.owner().getPackage().equals(clazz.getPackage()));
+                if (visible) {
+                    visibleMethods.computeIfAbsent(method.name() + method.descriptor(), k -> new ArrayList<>()).add(method);
+                }
+            }
+
+            for (List<MethodInfo> methods : visibleMethods.values()) {
+                Set<MethodInfo> merged = new HashSet<>();
+                for (MethodInfo method : methods) {
+                    merged.addAll(expected.getOrDefault(method, Collections.singleton(method)));
+                }
+                merged.forEach(method -> expected.put(method, merged));
+            }
+        }
+
+        for (ClassInfo clazz : classes) {
+            for (MethodInfo method : clazz.methods()) {
+                Assertions.assertEquals(expected.getOrDefault(method, Collections.singleton(method)), method.nameSet(),
+                        method.getFullName());
+            }
+        }
+    }
+
+    @Test
+    public void rejects_overrides_before_finish() {
+        ClassInfo clazz = new ClassInfo(symbols, "a", Opcodes.ACC_PUBLIC);
+        MethodInfo tick = addMethod(clazz, "tick", "()V", Opcodes.ACC_PUBLIC);
+        MethodInfo create = addMethod(clazz, "create", "()V", Opcodes.ACC_STATIC);
+
+        IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class, tick::overrides);
+        Assertions.assertEquals("The overrides of a/tick()V aren't known before its class is finished", exception.getMessage());
+        Assertions.assertThrows(IllegalStateException.class, create::overrides);
+
+        clazz.finish();
+        Assertions.assertEquals(Collections.emptySet(), tick.overrides());
+        Assertions.assertEquals(Collections.emptySet(), create.overrides());
+    }
+
+    @Test
+    public void walks_unfinished_classes() {
+        ClassInfo a = new ClassInfo(symbols, "a", INTERFACE);
+        a.finish();
+        ClassInfo b = new ClassInfo(symbols, "b", INTERFACE);
+        b.superClasses().add(a);
+        ClassInfo c = new ClassInfo(symbols, "c", Opcodes.ACC_PUBLIC);
+        c.superClasses().add(b);
+
+        Assertions.assertTrue(c.isSubClassOf(a));
+        Assertions.assertTrue(c.isSubClassOf(c));
+        Assertions.assertFalse(a.isSubClassOf(c));
+    }
+
+    @Test
+    public void rejects_unfinished_super_classes() {
+        ClassInfo a = new ClassInfo(symbols, "a", INTERFACE);
+        ClassInfo b = new ClassInfo(symbols, "b", Opcodes.ACC_PUBLIC);
+        b.superClasses().add(a);
+
+        IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class, b::finish);
+        Assertions.assertEquals("Super class a of b isn't finished", exception.getMessage());
+    }
+
+    @Test
+    public void rejects_super_classes_of_other_tables() {
+        ClassInfo a = new ClassInfo(new SymbolTable(), "a", INTERFACE);
+        a.finish();
+        ClassInfo b = new ClassInfo(symbols, "b", Opcodes.ACC_PUBLIC);
+        b.superClasses().add(a);
+
+        IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class, b::finish);
+        Assertions.assertEquals("Super class a of b uses another symbol table", exception.getMessage());
+
+        // Ids are only unique within a table
+        Assertions.assertEquals(0, a.id());
+        Assertions.assertEquals(0, b.id());
+        Assertions.assertEquals(1, new ClassInfo(symbols, "c", Opcodes.ACC_PUBLIC).id());
+    }
+
+    private static boolean isSubClassOf(ClassInfo clazz, ClassInfo superClass) {
+        return clazz == superClass || clazz.superClasses().stream().anyMatch(s -> isSubClassOf(s, superClass));
+    }
+
+    private static List<MethodInfo> getAllMethods(ClassInfo clazz) {
+        List<MethodInfo> methods = new ArrayList<>(clazz.methods());
+        for (ClassInfo superClass : clazz.superClasses()) {
+            methods.addAll(getAllMethods(superClass));
+        }
+        return methods;
+    }
+
+    // The overrides as found by searching the methods of each super class
+    private static Set<MethodInfo> findOverrides(MethodInfo method) {
+        Set<MethodInfo> overrides = new HashSet<>();
+        if (method.isStatic() || method.isPrivate()) {
+            return overrides;
+        }
+
+        Set<ClassInfo> superToCheck = new HashSet<>(method.owner().superClasses());
+        while (!superToCheck.isEmpty()) {
+            Set<ClassInfo> currentSupers = new HashSet<>(superToCheck);
+            superToCheck.clear();
+
+            for (ClassInfo superClass : currentSupers) {
+                MethodInfo superMethod = superClass.methods().stream()
+                        .filter(m -> m.name().equals(method.name()) && m.descriptor().equals(method.descriptor()))
+                        .findFirst().orElse(null);
+
+                if (superMethod != null && !superMethod.isStatic() && (superMethod.isPublic() || superMethod.isProtected()
+                        || !superMethod.isPrivate() && method.owner().getPackage().equals(superClass.getPackage()))) {
+                    overrides.add(superMethod);
+                    overrides.addAll(superMethod.overrides());
+                    continue;
+                }
+
+                superToCheck.addAll(superClass.superClasses());
+            }
+        }
+
+        return overrides;
+    }
+
+    /**
+     * Creates finished classes in two packages, each extending up to three earlier classes, so there are many diamonds.
+     */
+    private List<ClassInfo> createHierarchy(Random random) {
+        List<ClassInfo> classes = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            ClassInfo clazz = new ClassInfo(symbols, (random.nextBoolean() ? "p/" : "q/") + "c" + i,
+                    random.nextInt(3) == 0 ? INTERFACE : Opcodes.ACC_PUBLIC);
+            for (int j = random.nextInt(Math.min(i, 3) + 1); j > 0; j--) {
+                clazz.superClasses().add(classes.get(random.nextInt(i)));
+            }
+
+            // Few names, so methods with the same signature are common
+            for (String name : new String[] { "a", "b", "c" }) {
+                for (String descriptor : new String[] { "()V", "(I)V" }) {
+                    if (random.nextInt(3) == 0) {
+                        addMethod(clazz, name, descriptor, METHOD_ACCESS[random.nextInt(METHOD_ACCESS.length)]);
+                    }
+                }
+            }
+
+            clazz.finish();
+            classes.add(clazz);
+        }
+
+        return classes;
+    }
+
+    private static MethodInfo addMethod(ClassInfo clazz, String name, String descriptor, int access) {
+        MethodInfo method = new MethodInfo(clazz, name, descriptor, access);
+        clazz.addMethod(method);
+        return method;
+    }
+}
@@ -0,0 +1,225 @@
+package org.quiltmc.mappings_hasher.asm;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.UnaryOperator;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+public class JarIndexTests {
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void reads_stored_and_deflated_entries() throws IOException {
+        Random random = new Random(1);
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        // Compressible and incompressible contents
+        classes.put("a", repeat("class a", 1000));
+        byte[] noise = new byte[5000];
+        random.nextBytes(noise);
+        classes.put("net/example/B", noise);
+        classes.put("net/example/B$Inner", repeat("inner", 3));
+        classes.put("empty", new byte[0]);
+
+        for (int method : new int[] { ZipEntry.STORED, ZipEntry.DEFLATED }) {
+            Path jar = writeJar(tempDir.resolve("jar-" + method + ".jar"), classes, method, null);
+            JarIndex index = JarIndex.open(jar);
+
+            // Only classes are indexed, not the manifest or resources
+            Assertions.assertEquals(classes.keySet(), index.classNames());
+            assertMatchesJarFile(index, jar, classes.keySet());
+            Assertions.assertArrayEquals(new byte[0], index.readClass("empty"));
+            Assertions.assertFalse(index.contains("resource"));
+            Assertions.assertThrows(IOException.class, () -> index.readClass("missing"));
+        }
+    }
+
+    @Test
+    public void reads_zip64() throws IOException {
+        // More entries than the end of central directory record can count
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        for (int i = 0; i < 70000; i++) {
+            classes.put("c" + i, ("class " + i).getBytes(StandardCharsets.UTF_8));
+        }
+        Path jar = writeJar(tempDir.resolve("zip64.jar"), classes, ZipEntry.DEFLATED, null);
+
+        JarIndex index = JarIndex.open(jar);
+        Assertions.assertEquals(classes.size(), index.classNames().size());
+        assertMatchesJarFile(index, jar, Arrays.asList("c0", "c65535", "c65536", "c69999"));
+    }
+
+    @Test
+    public void reads_trailing_comment() throws IOException {
+        Map<String, byte[]> classes = Collections.singletonMap("a", repeat("class a", 10));
+        // The comment contains the signature of the end record, which must not be mistaken for the record
+        String comment = "Built by a test PK\u0005\u0006 " + new String(repeat("-", 2000), StandardCharsets.UTF_8);
+        Path jar = writeJar(tempDir.resolve("comment.jar"), classes, ZipEntry.DEFLATED, comment);
+
+        JarIndex index = JarIndex.open(jar);
+        Assertions.assertEquals(classes.keySet(), index.classNames());
+        assertMatchesJarFile(index, jar, classes.keySet());
+    }
+
+    @Test
+    public void rejects_corrupt_central_directory() throws IOException {
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        classes.put("a", repeat("class a", 100));
+        classes.put("b", repeat("class b", 100));
+        byte[] bytes = Files.readAllBytes(writeJar(tempDir.resolve("valid.jar"), classes, ZipEntry.DEFLATED, null));
+        int end = findEnd(bytes);
+        int directory = order(bytes).getInt(end + 16);
+
+        Map<String, UnaryOperator<byte[]>> corruptions = new LinkedHashMap<>();
+        corruptions.put("missing end", b -> Arrays.copyOf(b, b.length - 10));
+        corruptions.put("empty", b -> new byte[0]);
+        corruptions.put("signature", b -> {
+            b[directory] ^= 1;
+            return b;
+        });
+        corruptions.put("offset", b -> {
+            order(b).putInt(end + 16, b.length);
+            return b;
+        });
+        // More entries than the central directory holds
+        corruptions.put("count", b -> {
+            order(b).putShort(end + 10, (short) 100);
+            return b;
+        });
+        // The end record directly after the first few bytes of the central directory
+        corruptions.put("truncated", b -> {
+            byte[] truncated = Arrays.copyOf(b, directory + 20 + b.length - end);
+            System.arraycopy(b, end, truncated, directory + 20, b.length - end);
+            return truncated;
+        });
+        // The name of an entry reaching into the end record
+        corruptions.put("name", b -> {
+            order(b).putShort(directory + 28, (short) 1000);
+            return b;
+        });
+
+        for (Map.Entry<String, UnaryOperator<byte[]>> corruption : corruptions.entrySet()) {
+            Path jar = tempDir.resolve(corruption.getKey().replace(' ', '-') + ".jar");
+            Files.write(jar, corruption.getValue().apply(bytes.clone()));
+            Assertions.assertThrows(IOException.class, () -> JarIndex.open(jar), corruption.getKey());
+        }
+
+        // Entries are only checked when they are read
+        Path jar = tempDir.resolve("size.jar");
+        byte[] wrongSize = bytes.clone();
+        order(wrongSize).putInt(findEntry(bytes, directory, "a.class") + 20, Integer.MAX_VALUE - 1);
+        Files.write(jar, wrongSize);
+        JarIndex index = JarIndex.open(jar);
+        Assertions.assertThrows(IOException.class, () -> index.readClass("a"));
+        Assertions.assertArrayEquals(classes.get("b"), index.readClass("b"));
+    }
+
+    private static void assertMatchesJarFile(JarIndex index, Path jar, Collection<String> classNames) throws IOException {
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            for (String className : classNames) {
+                try (InputStream stream = jarFile.getInputStream(jarFile.getEntry(className + ".class"))) {
+                    Assertions.assertArrayEquals(readAll(stream), index.readClass(className), className);
+                }
+            }
+        }
+    }
+
+    private static Path writeJar(Path path, Map<String, byte[]> classes, int method, String comment) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        try (OutputStream output = Files.newOutputStream(path); JarOutputStream jar = new JarOutputStream(output, manifest)) {
+            jar.putNextEntry(new ZipEntry("resource"));
+            jar.write(repeat("resource", 10));
+            jar.closeEntry();
+
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                ZipEntry zipEntry = new ZipEntry(entry.getKey() + ".class");
+                if (method == ZipEntry.STORED) {
+                    // Stored entries need their size and checksum up front
+                    CRC32 crc = new CRC32();
+                    crc.update(entry.getValue());
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(entry.getValue().length);
+                    zipEntry.setCompressedSize(entry.getValue().length);
+                    zipEntry.setCrc(crc.getValue());
+                }
+
+                jar.putNextEntry(zipEntry);
+                jar.write(entry.getValue());
+                jar.closeEntry();
+            }
+
+            if (comment != null) {
+                jar.setComment(comment);
+            }
+        }
+
+        return path;
+    }
+
+    private static int findEnd(byte[] bytes) {
+        ByteBuffer buffer = order(bytes);
+        for (int position = bytes.length - 22; position >= 0; position--) {
+            if (buffer.getInt(position) == END_SIGNATURE) {
+                return position;
+            }
+        }
+
+        throw new AssertionError("No end of central directory");
+    }
+
+    private static int findEntry(byte[] bytes, int directory, String name) {
+        ByteBuffer buffer = order(bytes);
+        int position = directory;
+        while (buffer.getInt(position) == CENTRAL_HEADER_SIGNATURE) {
+            int nameLength = buffer.getShort(position + 28) & 0xFFFF;
+            if (new String(bytes, position + 46, nameLength, StandardCharsets.UTF_8).equals(name)) {
+                return position;
+            }
+            position += 46 + nameLength + (buffer.getShort(position + 30) & 0xFFFF) + (buffer.getShort(position + 32) & 0xFFFF);
+        }
+
+        throw new AssertionError("No central directory entry for " + name);
+    }
+
+    private static ByteBuffer order(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static byte[] repeat(String string, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(string);
+        }
+
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readAll(InputStream stream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = stream.read(buffer)) != -1) {
+            bytes.write(buffer, 0, count);
+        }
+
+        return bytes.toByteArray();
+    }
+}
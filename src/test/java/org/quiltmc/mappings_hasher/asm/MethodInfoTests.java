@@ -0,0 +1,121 @@
+package org.quiltmc.mappings_hasher.asm;
+
+import org.junit.jupiter.api.*;
+import org.objectweb.asm.Opcodes;
+
+import java.util.*;
+
+public class MethodInfoTests {
+    private final List<MethodInfo> methods = new ArrayList<>();
+    // The name sets as merged by copying hash sets, which the disjoint-set forest has to match
+    private final Map<MethodInfo, Set<MethodInfo>> expected = new HashMap<>();
+
+    @BeforeEach
+    public void createMethods() {
+        ClassInfo owner = new ClassInfo(new SymbolTable(), "a", Opcodes.ACC_PUBLIC);
+        for (int i = 0; i < 200; i++) {
+            MethodInfo method = new MethodInfo(owner, "m" + i, "()V", Opcodes.ACC_PUBLIC);
+            methods.add(method);
+            expected.put(method, new HashSet<>(Collections.singleton(method)));
+        }
+    }
+
+    @Test
+    public void starts_with_singletons() {
+        for (MethodInfo method : methods) {
+            Assertions.assertSame(method, method.nameSetRepresentative());
+            Assertions.assertSame(method, method.nextInNameSet());
+            Assertions.assertEquals(Collections.singleton(method), method.nameSet());
+            Assertions.assertEquals(1, method.nameSetSize());
+        }
+    }
+
+    @Test
+    public void merges_chains() {
+        // Each method is merged with the previous one, in both directions
+        for (int i = 1; i < 100; i++) {
+            merge(methods.get(i - 1), methods.get(i));
+        }
+        for (int i = 199; i > 100; i--) {
+            merge(methods.get(i), methods.get(i - 1));
+        }
+        assertMatches();
+
+        merge(methods.get(150), methods.get(50));
+        assertMatches();
+        Assertions.assertEquals(methods.size(), methods.get(0).nameSetSize());
+    }
+
+    @Test
+    public void merges_diamonds() {
+        // Interfaces b and c both extend a, d implements b and c: the last merge closes the diamond
+        for (int i = 0; i + 3 < methods.size(); i += 4) {
+            MethodInfo a = methods.get(i);
+            MethodInfo b = methods.get(i + 1);
+            MethodInfo c = methods.get(i + 2);
+            MethodInfo d = methods.get(i + 3);
+            merge(b, a);
+            merge(c, a);
+            merge(d, b);
+            merge(d, c);
+            assertMatches();
+        }
+
+        // Merging members of the same set again doesn't change it
+        merge(methods.get(0), methods.get(3));
+        merge(methods.get(2), methods.get(1));
+        assertMatches();
+
+        // Joining the diamonds
+        for (int i = 4; i < methods.size(); i += 4) {
+            merge(methods.get(i + 2), methods.get(i - 3));
+        }
+        assertMatches();
+    }
+
+    @Test
+    public void merges_randomly() {
+        Random random = new Random(1);
+        for (int i = 0; i < 150; i++) {
+            merge(methods.get(random.nextInt(methods.size())), methods.get(random.nextInt(methods.size())));
+            if (i % 10 == 0) {
+                assertMatches();
+            }
+        }
+        assertMatches();
+    }
+
+    private void merge(MethodInfo method, MethodInfo other) {
+        method.mergeNameSetWith(other);
+
+        Set<MethodInfo> merged = expected.get(method);
+        for (MethodInfo member : expected.get(other)) {
+            merged.add(member);
+            expected.put(member, merged);
+        }
+    }
+
+    private void assertMatches() {
+        for (MethodInfo method : methods) {
+            Set<MethodInfo> nameSet = expected.get(method);
+            Assertions.assertEquals(nameSet, method.nameSet());
+            Assertions.assertEquals(nameSet.size(), method.nameSetSize());
+
+            // The circular list visits every member once
+            Set<MethodInfo> visited = new HashSet<>();
+            MethodInfo member = method;
+            do {
+                Assertions.assertTrue(visited.add(member));
+                member = member.nextInNameSet();
+            } while (member != method);
+            Assertions.assertEquals(nameSet, visited);
+
+            // Methods share a representative exactly when they share a name set
+            MethodInfo representative = method.nameSetRepresentative();
+            Assertions.assertTrue(nameSet.contains(representative));
+            for (MethodInfo other : methods) {
+                Assertions.assertEquals(nameSet.contains(other), other.nameSetRepresentative() == representative);
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.quiltmc.mappings_hasher.asm;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SymbolTableTests {
+    @Test
+    public void interns_symbols_once() {
+        SymbolTable table = new SymbolTable();
+        Assertions.assertEquals(-1, table.find("()V"));
+
+        int id = table.intern("()V");
+        Assertions.assertEquals(id, table.intern("()V"));
+        Assertions.assertEquals(id, table.intern(new String("()V".toCharArray())));
+        Assertions.assertEquals(id, table.find("()V"));
+        Assertions.assertEquals("()V", table.get(id));
+
+        int other = table.intern("(I)V");
+        Assertions.assertNotEquals(id, other);
+        Assertions.assertEquals("(I)V", table.get(other));
+        Assertions.assertEquals(2, table.size());
+    }
+
+    @Test
+    public void grows_beyond_initial_pages() {
+        // More symbols than the initial page array holds
+        SymbolTable table = new SymbolTable();
+        int count = 100000;
+        for (int i = 0; i < count; i++) {
+            Assertions.assertEquals(i, table.intern("symbol" + i));
+        }
+
+        for (int i = 0; i < count; i++) {
+            Assertions.assertEquals("symbol" + i, table.get(i));
+        }
+        Assertions.assertEquals(count, table.size());
+    }
+
+    @Test
+    public void reads_while_interning() throws Exception {
+        SymbolTable table = new SymbolTable();
+        int count = 100000;
+        List<String> symbols = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            symbols.add("symbol" + i);
+        }
+
+        int writers = 4;
+        int readers = 2;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + readers);
+        try {
+            AtomicBoolean done = new AtomicBoolean();
+
+            // Readers look up ids as soon as they are published, before the writers are done
+            List<Future<Integer>> reads = new ArrayList<>();
+            for (int r = 0; r < readers; r++) {
+                Random random = new Random(r);
+                reads.add(executor.submit(() -> {
+                    int found = 0;
+                    while (!done.get()) {
+                        String symbol = symbols.get(random.nextInt(count));
+                        int id = table.find(symbol);
+                        if (id != -1) {
+                            Assertions.assertEquals(symbol, table.get(id));
+                            found++;
+                        }
+                    }
+                    return found;
+                }));
+            }
+
+            // Writers intern the same symbols in different orders
+            List<Future<int[]>> writes = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                List<String> shuffled = new ArrayList<>(symbols);
+                Collections.shuffle(shuffled, new Random(w));
+                writes.add(executor.submit(() -> {
+                    int[] ids = new int[count];
+                    for (String symbol : shuffled) {
+                        int id = table.intern(symbol);
+                        Assertions.assertEquals(symbol, table.get(id));
+                        ids[Integer.parseInt(symbol.substring("symbol".length()))] = id;
+                    }
+                    return ids;
+                }));
+            }
+
+            int[] ids = writes.get(0).get();
+            for (Future<int[]> write : writes) {
+                Assertions.assertArrayEquals(ids, write.get());
+            }
+            done.set(true);
+            for (Future<Integer> read : reads) {
+                read.get();
+            }
+
+            // Every symbol got exactly one id, and no id was skipped
+            int[] sortedIds = ids.clone();
+            Arrays.sort(sortedIds);
+            for (int i = 0; i < count; i++) {
+                Assertions.assertEquals(i, sortedIds[i]);
+                Assertions.assertEquals(symbols.get(i), table.get(ids[i]));
+            }
+            Assertions.assertEquals(count, table.size());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}